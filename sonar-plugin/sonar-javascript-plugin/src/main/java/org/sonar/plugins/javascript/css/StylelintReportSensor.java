@@ -19,21 +19,10 @@
  */
 package org.sonar.plugins.javascript.css;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.util.List;
-import javax.annotation.Nullable;
-import org.apache.commons.io.ByteOrderMark;
-import org.apache.commons.io.input.BOMInputStream;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.CheckFactory;
-import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.batch.sensor.issue.NewExternalIssue;
@@ -44,74 +33,58 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
 import org.sonar.plugins.javascript.css.StylelintReport.Issue;
 import org.sonar.plugins.javascript.css.StylelintReport.IssuesPerFile;
-import org.sonarsource.analyzer.commons.ExternalReportProvider;
+import org.sonar.plugins.javascript.external.AbstractExternalIssuesSensor;
 import org.sonarsource.analyzer.commons.ExternalRuleLoader;
 
 import static org.sonar.plugins.javascript.css.CssRulesDefinition.RESOURCE_FOLDER;
 
-public class StylelintReportSensor implements Sensor {
+public class StylelintReportSensor extends AbstractExternalIssuesSensor<IssuesPerFile> {
 
   public static final String STYLELINT = "stylelint";
 
   private static final Logger LOG = Loggers.get(StylelintReportSensor.class);
-  private static final String FILE_EXCEPTION_MESSAGE = "No issues information will be saved as the report file can't be read.";
-  private static final ByteOrderMark[] BYTE_ORDER_MARKS = {ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE};
 
   private final CssRules cssRules;
   private ExternalRuleLoader stylelintRuleLoader = getStylelintRuleLoader();
 
   public StylelintReportSensor(CheckFactory checkFactory) {
+    super(IssuesPerFile.class);
     this.cssRules = new CssRules(checkFactory);
   }
 
   @Override
   public void describe(SensorDescriptor descriptor) {
-    descriptor
-      .onlyOnLanguage(CssLanguage.KEY)
-      .onlyWhenConfiguration(conf -> conf.hasKey(JavaScriptPlugin.STYLELINT_REPORT_PATHS))
-      .name("Import of stylelint issues");
+    super.describe(descriptor);
+    descriptor.onlyOnLanguage(CssLanguage.KEY);
   }
 
   @Override
-  public void execute(SensorContext context) {
-    List<File> reportFiles = ExternalReportProvider.getReportFiles(context, JavaScriptPlugin.STYLELINT_REPORT_PATHS);
-    reportFiles.forEach(report -> importReport(report, context));
+  protected String linterName() {
+    return STYLELINT;
   }
 
-  private void importReport(File report, SensorContext context) {
-    LOG.info("Importing {}", report.getAbsoluteFile());
+  @Override
+  protected String reportsPropertyName() {
+    return JavaScriptPlugin.STYLELINT_REPORT_PATHS;
+  }
 
-    try (BOMInputStream bomInputStream = new BOMInputStream(Files.newInputStream(report.toPath()), BYTE_ORDER_MARKS)) {
-      String charsetName = bomInputStream.getBOMCharsetName();
-      if (charsetName == null) {
-        charsetName = StandardCharsets.UTF_8.name();
-      }
+  @Override
+  protected FilePredicate filePredicate(FilePredicates predicates, String filePath) {
+    return predicates.or(predicates.hasRelativePath(filePath), predicates.hasAbsolutePath(filePath));
+  }
 
-      IssuesPerFile[] issues = new Gson().fromJson(new InputStreamReader(bomInputStream, charsetName), IssuesPerFile[].class);
-      for (IssuesPerFile issuesPerFile : issues) {
-        InputFile inputFile = getInputFile(context, issuesPerFile.source);
-        if (inputFile != null) {
-          for (Issue issue : issuesPerFile.warnings) {
-            saveStylelintIssue(context, issue, inputFile);
-          }
-        }
-      }
-    } catch (IOException e) {
-      LOG.error(FILE_EXCEPTION_MESSAGE, e);
-    } catch (JsonSyntaxException e) {
-      LOG.error("Failed to parse json stylelint report", e);
-    }
+  @Override
+  protected String filePath(IssuesPerFile issuesPerFile) {
+    return issuesPerFile.source;
   }
 
-  @Nullable
-  private static InputFile getInputFile(SensorContext context, String fileName) {
-    FilePredicates predicates = context.fileSystem().predicates();
-    InputFile inputFile = context.fileSystem().inputFile(predicates.or(predicates.hasRelativePath(fileName), predicates.hasAbsolutePath(fileName)));
-    if (inputFile == null) {
-      LOG.warn("No input file found for {}. No stylelint issues will be imported on this file.", fileName);
-      return null;
+  @Override
+  protected void saveIssues(SensorContext context, InputFile inputFile, IssuesPerFile issuesPerFile) {
+    if (issuesPerFile.warnings != null) {
+      for (Issue issue : issuesPerFile.warnings) {
+        saveStylelintIssue(context, issue, inputFile);
+      }
     }
-    return inputFile;
   }
 
   private void saveStylelintIssue(SensorContext context, Issue issue, InputFile inputFile) {
@@ -20,9 +20,7 @@
 package org.sonar.plugins.javascript.css.metrics;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.FileSystem;
@@ -39,6 +37,7 @@ import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.css.CssLanguage;
+import org.sonar.plugins.javascript.utils.LineSet;
 
 public class CssMetricSensor implements Sensor {
 
@@ -146,16 +145,14 @@ public class CssMetricSensor implements Sensor {
 
   private void saveLineTypes(SensorContext context, InputFile file, List<CssToken> tokenList) {
     // collect line types
-    Set<Integer> linesOfCode = new HashSet<>();
-    Set<Integer> linesOfComment = new HashSet<>();
+    LineSet linesOfCode = new LineSet();
+    LineSet linesOfComment = new LineSet();
 
     for (CssToken token : tokenList) {
-      for (int line = token.startLine; line <= token.endLine; line++) {
-        if (token.type.equals(CssTokenType.COMMENT)) {
-          linesOfComment.add(line);
-        } else {
-          linesOfCode.add(line);
-        }
+      if (token.type.equals(CssTokenType.COMMENT)) {
+        linesOfComment.addRange(token.startLine, token.endLine);
+      } else {
+        linesOfCode.addRange(token.startLine, token.endLine);
       }
     }
 
@@ -163,7 +160,7 @@ public class CssMetricSensor implements Sensor {
     context.<Integer>newMeasure().on(file).forMetric(CoreMetrics.COMMENT_LINES).withValue(linesOfComment.size()).save();
 
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(file);
-    linesOfCode.forEach(line -> fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1));
+    linesOfCode.forEachLine(line -> fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1));
     fileLinesContext.save();
   }
 
@@ -43,6 +43,9 @@ public abstract class AbstractEslintSensor implements Sensor {
 
   protected SensorContext context;
   protected ContextUtils contextUtils;
+  protected FileContentHandoff fileContentHandoff;
+  protected CacheStrategies cacheStrategies;
+  protected StringInterner cpdImages;
 
   protected AbstractEslintSensor(EslintBridgeServer eslintBridgeServer,
                                  AnalysisWarningsWrapper analysisWarnings, Monitoring monitoring) {
@@ -54,9 +57,11 @@ public abstract class AbstractEslintSensor implements Sensor {
   @Override
   public void execute(SensorContext context) {
     monitoring.startSensor(context, this);
-    CacheStrategies.reset();
     this.context = context;
+    this.cpdImages = StringInterner.forCpdImages();
+    this.cacheStrategies = new CacheStrategies(cpdImages);
     this.contextUtils = new ContextUtils(context);
+    this.fileContentHandoff = FileContentHandoff.create(context, contextUtils);
     environments = Arrays.asList(context.config().getStringArray(JavaScriptPlugin.ENVIRONMENTS));
     globals = Arrays.asList(context.config().getStringArray(JavaScriptPlugin.GLOBALS));
     try {
@@ -87,7 +92,9 @@ public abstract class AbstractEslintSensor implements Sensor {
         throw new IllegalStateException("Analysis failed (\"sonar.internal.analysis.failFast\"=true)", e);
       }
     } finally {
-      CacheStrategies.logReport();
+      cacheStrategies.logReport();
+      cpdImages.logReport();
+      monitoring.cacheStatistics(cacheStrategies.statistics());
       monitoring.stopSensor();
     }
   }
@@ -96,6 +103,19 @@ public abstract class AbstractEslintSensor implements Sensor {
     LOG.error(msg, e);
   }
 
+  protected void skipFile(InputFile file, FileAnalysisTimeoutException e) {
+    skipFile(file, e, analysisWarnings);
+  }
+
+  /**
+   * Reports a file whose analysis exceeded the deadline, the analysis then continues with the next file.
+   */
+  static void skipFile(InputFile file, FileAnalysisTimeoutException e, AnalysisWarningsWrapper analysisWarnings) {
+    LOG.warn("{}, skipping file {}. Consider excluding it from the analysis or setting {} to a higher value.",
+      e.getMessage(), file, EslintBridgeServerImpl.FILE_TIMEOUT_PROPERTY);
+    analysisWarnings.addUnique("The analysis of some files exceeded the deadline and these files were skipped. Check the analysis logs for more details.");
+  }
+
   protected abstract void analyzeFiles(List<InputFile> inputFiles) throws IOException;
 
   protected abstract List<InputFile> getInputFiles();
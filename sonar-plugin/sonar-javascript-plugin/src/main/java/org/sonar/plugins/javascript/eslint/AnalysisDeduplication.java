@@ -0,0 +1,157 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+import org.sonar.plugins.javascript.eslint.cache.FileMetadata;
+
+/**
+ * Reuses the analysis of a file for the byte-identical files with the same name analyzed after it with the same linter.
+ * <p>
+ * Files are keyed by content hash, linter id, file type, language, file name, as some rules depend on the latter, and
+ * the tsconfig files providing their type information. Only keys shared by at least two files are tracked, and a
+ * response is retained only until all of its duplicates have been processed. Responses producing UCFG files are never
+ * reused, as those files are generated for a specific file path.
+ * <p>
+ * Type information also depends on what the imports of a file resolve to. Deduplication being opted in, duplicates are
+ * assumed to resolve them the same way, e.g. copies of a same library vendored in several places.
+ */
+class AnalysisDeduplication {
+
+  private static final Logger LOG = Loggers.get(AnalysisDeduplication.class);
+
+  private final Map<InputFile, String> keys;
+  private final Map<String, Integer> pending;
+  private final Map<String, AnalysisResponse> responses = new HashMap<>();
+  private int reused;
+
+  private AnalysisDeduplication(Map<InputFile, String> keys, Map<String, Integer> pending) {
+    this.keys = keys;
+    this.pending = pending;
+  }
+
+  static AnalysisDeduplication disabled() {
+    return new AnalysisDeduplication(Map.of(), Map.of());
+  }
+
+  static AnalysisDeduplication create(List<InputFile> inputFiles, Function<InputFile, String> linterIdForFile, List<String> tsConfigs)
+    throws IOException {
+    var program = String.join(",", tsConfigs);
+    var keyByFile = new HashMap<InputFile, String>();
+    for (var inputFile : inputFiles) {
+      keyByFile.put(inputFile, key(inputFile, linterIdForFile.apply(inputFile), program));
+    }
+    var counts = keyByFile.values().stream().collect(Collectors.toMap(Function.identity(), key -> 1, Integer::sum));
+    counts.values().removeIf(count -> count < 2);
+    keyByFile.values().removeIf(key -> !counts.containsKey(key));
+    LOG.debug("Found {} file(s) with duplicated content", keyByFile.size());
+    return new AnalysisDeduplication(keyByFile, counts);
+  }
+
+  private static String key(InputFile inputFile, String linterId, String program) throws IOException {
+    var hash = Base64.getEncoder().encodeToString(FileMetadata.computeHash(inputFile));
+    return String.join(":", hash, linterId, inputFile.type().toString(), String.valueOf(inputFile.language()), inputFile.filename(), program);
+  }
+
+  /**
+   * Returns the analysis of an identical file analyzed previously, or null if the file must be analyzed.
+   */
+  @CheckForNull
+  AnalysisResponse previousAnalysis(InputFile inputFile) {
+    var key = keys.get(inputFile);
+    if (key == null) {
+      return null;
+    }
+    var response = responses.get(key);
+    if (response == null) {
+      return null;
+    }
+    LOG.debug("Reusing analysis of identical file for: {}", inputFile.uri());
+    reused++;
+    release(key);
+    return withoutPerf(response);
+  }
+
+  /**
+   * The performance data belongs to the analysis of the first file, the reuse does not cost any analysis.
+   */
+  private static AnalysisResponse withoutPerf(AnalysisResponse response) {
+    var copy = new AnalysisResponse();
+    copy.parsingError = response.parsingError;
+    copy.issues = response.issues;
+    copy.highlights = response.highlights;
+    copy.highlightedSymbols = response.highlightedSymbols;
+    copy.metrics = response.metrics;
+    copy.cpdTokens = response.cpdTokens;
+    copy.ucfgPaths = response.ucfgPaths;
+    return copy;
+  }
+
+  void register(InputFile inputFile, AnalysisResponse response) {
+    var key = keys.get(inputFile);
+    if (key == null) {
+      return;
+    }
+    if (release(key) && response.ucfgPaths.isEmpty()) {
+      responses.put(key, response);
+    }
+  }
+
+  /**
+   * Notifies that a file was processed without being analyzed, e.g. because its analysis was read from the cache,
+   * so that the response of its duplicates is not retained for it.
+   */
+  void release(InputFile inputFile) {
+    var key = keys.get(inputFile);
+    if (key != null) {
+      release(key);
+    }
+  }
+
+  /**
+   * Returns true if other duplicates of the key are still to be processed.
+   */
+  private boolean release(String key) {
+    var remaining = pending.merge(key, -1, Integer::sum);
+    if (remaining <= 0) {
+      pending.remove(key);
+      responses.remove(key);
+      return false;
+    }
+    return true;
+  }
+
+  void logReport() {
+    if (reused > 0) {
+      LOG.info("Reused analysis results for {} duplicated file(s)", reused);
+    }
+  }
+}
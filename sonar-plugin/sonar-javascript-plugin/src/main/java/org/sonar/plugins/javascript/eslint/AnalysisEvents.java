@@ -0,0 +1,112 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of the analysis pipeline. They are recorded only when a recording is running,
+ * e.g. with {@code -XX:StartFlightRecording}, independently of {@code sonar.javascript.monitoring}.
+ * Fields are set only when {@link Event#shouldCommit()} returns true, so that disabled events cost nothing.
+ */
+final class AnalysisEvents {
+
+  static final String CATEGORY = "SonarJS";
+
+  private AnalysisEvents() {
+  }
+
+  @Name("org.sonarsource.javascript.BridgeStart")
+  @Label("eslint-bridge Start")
+  @Category({CATEGORY, "eslint-bridge"})
+  static class BridgeStart extends Event {
+    @Label("Port")
+    int port;
+    @Label("Rule Bundles")
+    int bundles;
+  }
+
+  @Name("org.sonarsource.javascript.InitLinter")
+  @Label("Linter Initialization")
+  @Category({CATEGORY, "eslint-bridge"})
+  static class InitLinter extends Event {
+    @Label("Linter Id")
+    String linterId;
+    @Label("Rules")
+    int rules;
+  }
+
+  @Name("org.sonarsource.javascript.FileRequest")
+  @Label("File Analysis Request")
+  @Category({CATEGORY, "eslint-bridge"})
+  static class FileRequest extends Event {
+    @Label("Endpoint")
+    String endpoint;
+    @Label("File Path")
+    String filePath;
+    @Label("Linter Id")
+    String linterId;
+    @Label("Program Id")
+    String programId;
+    @Label("Request Size")
+    @DataAmount
+    long requestSize;
+    @Label("Response Size")
+    @DataAmount
+    long responseSize;
+  }
+
+  @Name("org.sonarsource.javascript.CreateProgram")
+  @Label("TypeScript Program Creation")
+  @Category({CATEGORY, "eslint-bridge"})
+  static class CreateProgram extends Event {
+    @Label("tsconfig")
+    String tsConfig;
+    @Label("Program Id")
+    String programId;
+    @Label("Files")
+    int files;
+    @Label("Project References")
+    int projectReferences;
+  }
+
+  @Name("org.sonarsource.javascript.DeleteProgram")
+  @Label("TypeScript Program Deletion")
+  @Category({CATEGORY, "eslint-bridge"})
+  static class DeleteProgram extends Event {
+    @Label("Program Id")
+    String programId;
+  }
+
+  @Name("org.sonarsource.javascript.SaveAnalysis")
+  @Label("Analysis Save")
+  @Category({CATEGORY, "Analysis"})
+  static class SaveAnalysis extends Event {
+    @Label("File Path")
+    String filePath;
+    @Label("Phase")
+    String phase;
+  }
+
+}
@@ -20,14 +20,11 @@
 package org.sonar.plugins.javascript.eslint;
 
 import java.io.Serializable;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
-import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.batch.sensor.symbol.NewSymbol;
@@ -44,6 +41,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
+import org.sonar.plugins.javascript.utils.LineSet;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 import org.sonarsource.sonarlint.plugin.api.SonarLintRuntime;
 import org.sonarsource.sonarlint.plugin.api.issue.NewSonarLintIssue;
@@ -65,6 +63,7 @@ public class AnalysisProcessor {
   private SensorContext context;
   private ContextUtils contextUtils;
   private InputFile file;
+  private LineIndex lineIndex;
   private AbstractChecks checks;
 
   public AnalysisProcessor(NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory, Monitoring monitoring) {
@@ -73,11 +72,13 @@ public class AnalysisProcessor {
     this.monitoring = monitoring;
   }
 
-  void processResponse(SensorContext context, AbstractChecks checks, InputFile file, AnalysisResponse response) {
+  void processResponse(SensorContext context, AbstractChecks checks, InputFile file, AnalysisResponse response,
+    StringInterner cpdImages) {
     this.context = context;
     contextUtils = new ContextUtils(context);
     this.checks = checks;
     this.file = file;
+    this.lineIndex = new LineIndex(file, !contextUtils.isSonarLint());
     if (response.parsingError != null) {
       processParsingError(response.parsingError);
       return;
@@ -92,11 +93,14 @@ public class AnalysisProcessor {
     } else {
       // it's important to have an order here:
       // saving metrics should be done before saving issues so that NO SONAR lines with issues are indeed ignored
-      saveMetrics(response.metrics);
-      saveIssues(response.issues);
-      saveHighlights(response.highlights);
-      saveHighlightedSymbols(response.highlightedSymbols);
-      saveCpd(response.cpdTokens);
+      timed(Monitoring.Phase.SAVE_METRICS, () -> saveMetrics(response.metrics));
+      timed(Monitoring.Phase.SAVE_ISSUES, () -> saveIssues(response.issues));
+      timed(Monitoring.Phase.SAVE_HIGHLIGHTS, () -> saveHighlights(response.highlights));
+      timed(Monitoring.Phase.SAVE_SYMBOLS, () -> saveHighlightedSymbols(response.highlightedSymbols));
+      timed(Monitoring.Phase.SAVE_CPD, () -> {
+        response.cpdTokens.intern(cpdImages);
+        saveCpd(response.cpdTokens);
+      });
       monitoring.stopFile(file, response.metrics.ncloc.length, response.perf);
     }
   }
@@ -105,6 +109,7 @@ public class AnalysisProcessor {
     this.context = context;
     contextUtils = new ContextUtils(context);
     this.file = file;
+    this.lineIndex = new LineIndex(file, !contextUtils.isSonarLint());
 
     if (YamlSensor.LANGUAGE.equals(file.language()) || HtmlSensor.LANGUAGE.equals(file.language())) {
       // SonarQube expects that there is a single analyzer that saves analysis data like metrics, highlighting,
@@ -117,6 +122,19 @@ public class AnalysisProcessor {
     }
   }
 
+  private void timed(Monitoring.Phase phase, Runnable action) {
+    var event = new AnalysisEvents.SaveAnalysis();
+    event.begin();
+    var start = System.nanoTime();
+    action.run();
+    monitoring.recordPhase(phase, start);
+    if (event.shouldCommit()) {
+      event.filePath = file.toString();
+      event.phase = phase.name();
+      event.commit();
+    }
+  }
+
   private void processParsingError(EslintBridgeServer.ParsingError parsingError) {
     Integer line = parsingError.line;
     String message = parsingError.message;
@@ -141,7 +159,7 @@ public class AnalysisProcessor {
         .on(file);
 
       if (line != null) {
-        primaryLocation.at(file.selectLine(line));
+        primaryLocation.at(lineIndex.selectLine(line));
       }
 
       newIssue
@@ -164,21 +182,20 @@ public class AnalysisProcessor {
     }
   }
 
-  private void saveHighlights(EslintBridgeServer.Highlight[] highlights) {
+  private void saveHighlights(Highlights highlights) {
     NewHighlighting highlighting = context.newHighlighting().onFile(file);
-    for (EslintBridgeServer.Highlight highlight : highlights) {
-      highlighting.highlight(highlight.location.toTextRange(file), TypeOfText.valueOf(highlight.textType));
+    for (var i = 0; i < highlights.size(); i++) {
+      highlighting.highlight(highlights.toTextRange(i, lineIndex), highlights.type(i));
     }
     highlighting.save();
   }
 
-  private void saveHighlightedSymbols(EslintBridgeServer.HighlightedSymbol[] highlightedSymbols) {
+  private void saveHighlightedSymbols(HighlightedSymbols highlightedSymbols) {
     NewSymbolTable symbolTable = context.newSymbolTable().onFile(file);
-    for (EslintBridgeServer.HighlightedSymbol highlightedSymbol : highlightedSymbols) {
-      EslintBridgeServer.Location declaration = highlightedSymbol.declaration;
-      NewSymbol newSymbol = symbolTable.newSymbol(declaration.startLine, declaration.startCol, declaration.endLine, declaration.endCol);
-      for (EslintBridgeServer.Location reference : highlightedSymbol.references) {
-        newSymbol.newReference(reference.startLine, reference.startCol, reference.endLine, reference.endCol);
+    for (var i = 0; i < highlightedSymbols.size(); i++) {
+      NewSymbol newSymbol = symbolTable.newSymbol(highlightedSymbols.declaration(i, lineIndex));
+      for (var j = highlightedSymbols.referencesStart(i); j < highlightedSymbols.referencesEnd(i); j++) {
+        newSymbol.newReference(highlightedSymbols.reference(j, lineIndex));
       }
     }
     symbolTable.save();
@@ -186,7 +203,7 @@ public class AnalysisProcessor {
 
   private void saveMetrics(EslintBridgeServer.Metrics metrics) {
     if (file.type() == InputFile.Type.TEST || contextUtils.isSonarLint()) {
-      noSonarFilter.noSonarInFile(file, Arrays.stream(metrics.nosonarLines).boxed().collect(Collectors.toSet()));
+      noSonarFilter.noSonarInFile(file, LineSet.of(metrics.nosonarLines));
       return;
     }
 
@@ -198,7 +215,7 @@ public class AnalysisProcessor {
     saveMetric(file, CoreMetrics.COMPLEXITY, metrics.complexity);
     saveMetric(file, CoreMetrics.COGNITIVE_COMPLEXITY, metrics.cognitiveComplexity);
 
-    noSonarFilter.noSonarInFile(file, Arrays.stream(metrics.nosonarLines).boxed().collect(Collectors.toSet()));
+    noSonarFilter.noSonarInFile(file, LineSet.of(metrics.nosonarLines));
 
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(file);
     for (int line : metrics.ncloc) {
@@ -220,14 +237,14 @@ public class AnalysisProcessor {
       .save();
   }
 
-  private void saveCpd(EslintBridgeServer.CpdToken[] cpdTokens) {
+  private void saveCpd(CpdTokens cpdTokens) {
     if (file.type().equals(InputFile.Type.TEST) || contextUtils.isSonarLint()) {
       // even providing empty 'NewCpdTokens' will trigger duplication computation so skipping
       return;
     }
     NewCpdTokens newCpdTokens = context.newCpdTokens().onFile(file);
-    for (EslintBridgeServer.CpdToken cpdToken : cpdTokens) {
-      newCpdTokens.addToken(cpdToken.location.toTextRange(file), cpdToken.image);
+    for (var i = 0; i < cpdTokens.size(); i++) {
+      newCpdTokens.addToken(cpdTokens.toTextRange(i, lineIndex), cpdTokens.image(i));
     }
     newCpdTokens.save();
   }
@@ -239,15 +256,15 @@ public class AnalysisProcessor {
       .on(file);
 
     if (issue.endLine != null) {
-      location.at(file.newRange(issue.line, issue.column, issue.endLine, issue.endColumn));
+      location.at(lineIndex.newRange(issue.line, issue.column, issue.endLine, issue.endColumn));
     } else {
       if (issue.line != 0) {
-        location.at(file.selectLine(issue.line));
+        location.at(lineIndex.selectLine(issue.line));
       }
     }
 
     issue.secondaryLocations.forEach(secondary -> {
-      NewIssueLocation newIssueLocation = newSecondaryLocation(file, newIssue, secondary);
+      NewIssueLocation newIssueLocation = newSecondaryLocation(lineIndex, newIssue, secondary);
       if (newIssueLocation != null) {
         newIssue.addLocation(newIssueLocation);
       }
@@ -262,7 +279,7 @@ public class AnalysisProcessor {
         newIssue.setQuickFixAvailable(true);
       }
       if (isQuickFixCompatible()) {
-        addQuickFixes(issue, (NewSonarLintIssue) newIssue, file);
+        addQuickFixes(issue, (NewSonarLintIssue) newIssue, lineIndex);
       }
     }
 
@@ -283,11 +300,11 @@ public class AnalysisProcessor {
       && ((SonarLintRuntime) context.runtime()).getSonarLintPluginApiVersion().isGreaterThanOrEqual(SONARLINT_6_3);
   }
 
-  private static NewIssueLocation newSecondaryLocation(InputFile inputFile, NewIssue issue, IssueLocation location) {
-    NewIssueLocation newIssueLocation = issue.newLocation().on(inputFile);
+  private static NewIssueLocation newSecondaryLocation(LineIndex lineIndex, NewIssue issue, IssueLocation location) {
+    NewIssueLocation newIssueLocation = issue.newLocation().on(lineIndex.file());
 
     if (location.line != null && location.endLine != null && location.column != null && location.endColumn != null) {
-      newIssueLocation.at(inputFile.newRange(location.line, location.column, location.endLine, location.endColumn));
+      newIssueLocation.at(lineIndex.newRange(location.line, location.column, location.endLine, location.endColumn));
       if (location.message != null) {
         newIssueLocation.message(location.message);
       }
@@ -20,12 +20,18 @@
 package org.sonar.plugins.javascript.eslint;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.scanner.ScannerSide;
@@ -38,9 +44,12 @@ import org.sonar.plugins.javascript.eslint.EslintBridgeServer.TsProgram;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.TsProgramRequest;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
 import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategy;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategyPrefetcher;
 import org.sonar.plugins.javascript.utils.ProgressReport;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
+import static java.util.stream.Collectors.toList;
 import static org.sonar.plugins.javascript.eslint.TypeScriptSensor.PROGRESS_REPORT_PERIOD;
 import static org.sonar.plugins.javascript.eslint.TypeScriptSensor.PROGRESS_REPORT_TITLE;
 
@@ -59,6 +68,9 @@ public class AnalysisWithProgram {
   private AbstractChecks checks;
   private ProgressReport progressReport;
   private AnalysisMode analysisMode;
+  private boolean skipUnchangedPrograms;
+  private CacheStrategies cacheStrategies;
+  private StringInterner cpdImages;
 
   public AnalysisWithProgram(EslintBridgeServer eslintBridgeServer, Monitoring monitoring, AnalysisProcessor processAnalysis, AnalysisWarningsWrapper analysisWarnings) {
     this.eslintBridgeServer = eslintBridgeServer;
@@ -67,11 +79,15 @@ public class AnalysisWithProgram {
     this.analysisWarnings = analysisWarnings;
   }
 
-  void analyzeFiles(SensorContext context, AbstractChecks checks, List<InputFile> inputFiles) throws IOException {
+  void analyzeFiles(SensorContext context, AbstractChecks checks, CacheStrategies cacheStrategies, StringInterner cpdImages,
+    List<InputFile> inputFiles) throws IOException {
     this.context = context;
+    this.cacheStrategies = cacheStrategies;
+    this.cpdImages = cpdImages;
     this.contextUtils = new ContextUtils(context);
     this.checks = checks;
     this.analysisMode = AnalysisMode.getMode(context, checks.eslintRules());
+    this.skipUnchangedPrograms = AnalysisMode.isRuntimeApiCompatible(context) && context.canSkipUnchangedFiles();
     var tsConfigs = new TsConfigProvider().tsconfigs(context);
     if (tsConfigs.isEmpty()) {
       LOG.info("No tsconfig.json file found");
@@ -83,6 +99,7 @@ public class AnalysisWithProgram {
       Deque<String> workList = new ArrayDeque<>(tsConfigs);
       Set<String> analyzedProjects = new HashSet<>();
       Set<InputFile> analyzedFiles = new HashSet<>();
+      List<String> reducedPrograms = new ArrayList<>();
       while (!workList.isEmpty()) {
         var tsConfig = Path.of(workList.pop()).toString();
         // Use of path.of as it normalizes Unix and Windows paths. Otherwise, project references returned by typescript may not match system slash
@@ -90,26 +107,34 @@ public class AnalysisWithProgram {
           LOG.debug("tsconfig.json already analyzed: '{}'. Skipping it.", tsConfig);
           continue;
         }
-        monitoring.startProgram(tsConfig);
-        PROFILER.startInfo("Creating TypeScript program");
         LOG.info("TypeScript configuration file " + tsConfig);
-        var program = eslintBridgeServer.createProgram(new TsProgramRequest(tsConfig));
-        if (program.error != null) {
-          LOG.error("Failed to create program: " + program.error);
-          PROFILER.stopInfo();
-          continue;
+        var rootFiles = skipUnchangedPrograms ? processCachedRootFiles(tsConfig, analyzedFiles) : null;
+        List<String> changedRootFiles = null;
+        Map<InputFile, CacheStrategy> resolvedStrategies = Map.of();
+        if (rootFiles != null) {
+          if (rootFiles.changed.isEmpty()) {
+            LOG.info("Skipping creation of TypeScript program as none of its files needs to be analyzed");
+            workList.addAll(rootFiles.projectReferences);
+            reducedPrograms.add(tsConfig);
+            continue;
+          }
+          resolvedStrategies = rootFiles.changed;
+          if (rootFiles.hasCachedFiles) {
+            changedRootFiles = rootFiles.changed.keySet().stream().map(InputFile::absolutePath).collect(toList());
+            reducedPrograms.add(tsConfig);
+          }
         }
-        if (program.missingTsConfig) {
-          String msg = "At least one tsconfig.json was not found in the project. Please run 'npm install' for a more complete analysis. Check analysis logs for more details.";
-          LOG.warn(msg);
-          this.analysisWarnings.addUnique(msg);
+        var program = createProgram(tsConfig, changedRootFiles);
+        if (program == null) {
+          continue;
         }
-        PROFILER.stopInfo();
-        monitoring.stopProgram();
-        analyzeProgram(program, analyzedFiles);
+        var analyzedProgram = analyzeProgram(tsConfig, changedRootFiles, program, resolvedStrategies, analyzedFiles);
         workList.addAll(program.projectReferences);
-        eslintBridgeServer.deleteProgram(program);
+        if (analyzedProgram != null) {
+          eslintBridgeServer.deleteProgram(analyzedProgram);
+        }
       }
+      analyzeRemainingFiles(inputFiles, analyzedFiles, reducedPrograms);
       Set<InputFile> skippedFiles = new HashSet<>(inputFiles);
       skippedFiles.removeAll(analyzedFiles);
       if (!skippedFiles.isEmpty()) {
@@ -126,36 +151,192 @@ public class AnalysisWithProgram {
     }
   }
 
-  private void analyzeProgram(TsProgram program, Set<InputFile> analyzedFiles) throws IOException {
-    LOG.info("Starting analysis with current program");
+  @CheckForNull
+  private TsProgram createProgram(String tsConfig, @Nullable List<String> rootFiles) throws IOException {
+    monitoring.startProgram(tsConfig);
+    PROFILER.startInfo("Creating TypeScript program");
+    var program = eslintBridgeServer.createProgram(new TsProgramRequest(tsConfig, rootFiles));
+    if (program.error != null) {
+      LOG.error("Failed to create program: " + program.error);
+      PROFILER.stopInfo();
+      return null;
+    }
+    if (program.missingTsConfig) {
+      String msg = "At least one tsconfig.json was not found in the project. Please run 'npm install' for a more complete analysis. Check analysis logs for more details.";
+      LOG.warn(msg);
+      this.analysisWarnings.addUnique(msg);
+    }
+    PROFILER.stopInfo();
+    monitoring.stopProgram();
+    return program;
+  }
+
+  /**
+   * Processes the cached root files of a tsconfig without creating its program, and keeps the cache strategies of the
+   * other ones for their analysis. Returns null when the tsconfig could not be resolved, in which case the whole program
+   * is created.
+   */
+  @CheckForNull
+  private RootFiles processCachedRootFiles(String tsConfig, Set<InputFile> analyzedFiles) throws IOException {
+    var tsConfigFile = eslintBridgeServer.loadTsConfig(tsConfig);
+    if (tsConfigFile == null || tsConfigFile.files.isEmpty()) {
+      return null;
+    }
+    var inputFiles = new ArrayList<InputFile>();
+    for (var file : tsConfigFile.files) {
+      var inputFile = inputFile(file);
+      if (inputFile != null && !analyzedFiles.contains(inputFile)) {
+        inputFiles.add(inputFile);
+      }
+    }
+    var rootFiles = new RootFiles(projectReferences(tsConfigFile.projectReferences));
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, inputFiles)) {
+      for (var inputFile : inputFiles) {
+        checkCancelled();
+        var cacheStrategy = cacheStrategyPrefetcher.strategyFor(inputFile);
+        if (cacheStrategy.isAnalysisRequired()) {
+          rootFiles.changed.put(inputFile, cacheStrategy);
+        } else if (analyzedFiles.add(inputFile)) {
+          processCacheAnalysis(inputFile, cacheStrategy);
+          rootFiles.hasCachedFiles = true;
+        }
+      }
+    }
+    return rootFiles;
+  }
+
+  private static List<String> projectReferences(List<String> references) {
+    var projectReferences = new ArrayList<String>();
+    for (var reference : references) {
+      var path = Path.of(reference);
+      if (Files.isDirectory(path)) {
+        path = path.resolve("tsconfig.json");
+      }
+      if (Files.exists(path)) {
+        projectReferences.add(path.toString());
+      } else {
+        LOG.warn("Skipping missing referenced tsconfig.json: {}", reference);
+      }
+    }
+    return projectReferences;
+  }
+
+  /**
+   * Files left aside might be dependencies of the programs that were skipped or created with a subset of their root files.
+   * Cached files are processed as such. Other files are analyzed only if they were analyzed before, i.e. if they were part
+   * of a program then: these programs are created again with all their files. The remaining ones, e.g. files that are not
+   * part of any tsconfig.json, are reported as skipped.
+   * <p>
+   * Such changed files are not root files of any tsconfig.json, so which program depends on them is unknown until it is
+   * created. Programs whose directory contains one of them are created first, the other ones only if some of the changed
+   * files are still not analyzed, and no program is created once all of them are.
+   */
+  private void analyzeRemainingFiles(List<InputFile> inputFiles, Set<InputFile> analyzedFiles, List<String> reducedPrograms) throws IOException {
+    if (reducedPrograms.isEmpty()) {
+      return;
+    }
+    var remainingFiles = inputFiles.stream().filter(inputFile -> !analyzedFiles.contains(inputFile)).collect(toList());
+    var changedFiles = new LinkedHashMap<InputFile, CacheStrategy>();
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, remainingFiles)) {
+      for (var inputFile : remainingFiles) {
+        checkCancelled();
+        var cacheStrategy = cacheStrategyPrefetcher.strategyFor(inputFile);
+        if (!cacheStrategy.isAnalysisRequired()) {
+          analyzedFiles.add(inputFile);
+          processCacheAnalysis(inputFile, cacheStrategy);
+        } else if (cacheStrategy.isPreviouslyAnalyzed()) {
+          changedFiles.put(inputFile, cacheStrategy);
+        }
+      }
+    }
+    if (changedFiles.isEmpty()) {
+      return;
+    }
+    var programs = new ArrayList<String>();
+    var otherPrograms = new ArrayList<String>();
+    for (var tsConfig : reducedPrograms) {
+      var directory = Path.of(tsConfig).getParent();
+      if (directory != null && changedFiles.keySet().stream().anyMatch(inputFile -> Path.of(inputFile.absolutePath()).startsWith(directory))) {
+        programs.add(tsConfig);
+      } else {
+        otherPrograms.add(tsConfig);
+      }
+    }
+    programs.addAll(otherPrograms);
+    for (var tsConfig : programs) {
+      var pendingFiles = changedFiles.keySet().stream().filter(inputFile -> !analyzedFiles.contains(inputFile)).count();
+      if (pendingFiles == 0) {
+        break;
+      }
+      LOG.info("Creating TypeScript program of {} with all its files to analyze {} changed file(s) it may depend on", tsConfig, pendingFiles);
+      var program = createProgram(tsConfig, null);
+      if (program != null) {
+        var analyzedProgram = analyzeProgram(tsConfig, null, program, changedFiles, analyzedFiles);
+        if (analyzedProgram != null) {
+          eslintBridgeServer.deleteProgram(analyzedProgram);
+        }
+      }
+    }
+  }
+
+  @CheckForNull
+  private InputFile inputFile(String file) {
     var fs = context.fileSystem();
-    var counter = 0;
+    return fs.inputFile(fs.predicates().and(
+      fs.predicates().hasAbsolutePath(file),
+      // we need to check the language, because project might contain files which were already analyzed with JS sensor
+      // this should be removed once we unify the two sensors
+      fs.predicates().hasLanguage(TypeScriptLanguage.KEY)));
+  }
+
+  /**
+   * Returns the program used for the last file, as it is created again when eslint-bridge gets restarted after a file
+   * exceeded the analysis deadline, or null if that failed. Cache strategies that are not already resolved are prefetched.
+   */
+  @CheckForNull
+  private TsProgram analyzeProgram(String tsConfig, @Nullable List<String> rootFiles, TsProgram program,
+    Map<InputFile, CacheStrategy> resolvedStrategies, Set<InputFile> analyzedFiles) throws IOException {
+    LOG.info("Starting analysis with current program");
+    var filesToAnalyze = new ArrayList<InputFile>();
     for (var file : program.files) {
-      var inputFile = fs.inputFile(fs.predicates().and(
-        fs.predicates().hasAbsolutePath(file),
-        // we need to check the language, because project might contain files which were already analyzed with JS sensor
-        // this should be removed once we unify the two sensors
-        fs.predicates().hasLanguage(TypeScriptLanguage.KEY)));
+      var inputFile = inputFile(file);
       if (inputFile == null) {
         LOG.debug("File not part of the project: '{}'", file);
         continue;
       }
       if (analyzedFiles.add(inputFile)) {
-        analyze(inputFile, program);
-        counter++;
+        filesToAnalyze.add(inputFile);
       } else {
         LOG.debug("File already analyzed: '{}'. Check your project configuration to avoid files being part of multiple projects.", file);
       }
     }
 
-    LOG.info("Analyzed {} file(s) with current program", counter);
+    var filesToPrefetch = filesToAnalyze.stream().filter(f -> !resolvedStrategies.containsKey(f)).collect(toList());
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, filesToPrefetch)) {
+      for (var inputFile : filesToAnalyze) {
+        checkCancelled();
+        var cacheStrategy = resolvedStrategies.containsKey(inputFile) ? resolvedStrategies.get(inputFile) : cacheStrategyPrefetcher.strategyFor(inputFile);
+        try {
+          analyze(inputFile, program, cacheStrategy);
+        } catch (FileAnalysisTimeoutException e) {
+          monitoring.stopFile(inputFile, 0, null);
+          AbstractEslintSensor.skipFile(inputFile, e, analysisWarnings);
+          if (e.isServerRestarted()) {
+            LOG.info("Creating TypeScript program of {} again as eslint-bridge was restarted", tsConfig);
+            program = createProgram(tsConfig, rootFiles);
+            if (program == null) {
+              return null;
+            }
+          }
+        }
+      }
+    }
+
+    LOG.info("Analyzed {} file(s) with current program", filesToAnalyze.size());
+    return program;
   }
 
-  private void analyze(InputFile file, TsProgram tsProgram) throws IOException {
-    if (context.isCancelled()) {
-      throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
-    }
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, file);
+  private void analyze(InputFile file, TsProgram tsProgram, CacheStrategy cacheStrategy) throws IOException {
     if (cacheStrategy.isAnalysisRequired()) {
       try {
         LOG.debug("Analyzing file: {}", file.uri());
@@ -164,16 +345,37 @@ public class AnalysisWithProgram {
         EslintBridgeServer.JsAnalysisRequest request = new EslintBridgeServer.JsAnalysisRequest(file.absolutePath(),
           file.type().toString(), null, contextUtils.ignoreHeaderComments(), null, tsProgram.programId, analysisMode.getLinterIdFor(file));
         EslintBridgeServer.AnalysisResponse response = eslintBridgeServer.analyzeWithProgram(request);
-        processAnalysis.processResponse(context, checks, file, response);
+        processAnalysis.processResponse(context, checks, file, response, cpdImages);
         cacheStrategy.writeAnalysisToCache(CacheAnalysis.fromResponse(response.ucfgPaths, response.cpdTokens), file);
       } catch (IOException e) {
         LOG.error("Failed to get response while analyzing " + file, e);
         throw e;
       }
     } else {
-      LOG.debug("Processing cache analysis of file: {}", file.uri());
-      var cacheAnalysis = cacheStrategy.readAnalysisFromCache();
-      processAnalysis.processCacheAnalysis(context, file, cacheAnalysis);
+      processCacheAnalysis(file, cacheStrategy);
+    }
+  }
+
+  private void processCacheAnalysis(InputFile file, CacheStrategy cacheStrategy) {
+    LOG.debug("Processing cache analysis of file: {}", file.uri());
+    var cacheAnalysis = cacheStrategy.readAnalysisFromCache();
+    processAnalysis.processCacheAnalysis(context, file, cacheAnalysis);
+  }
+
+  private void checkCancelled() {
+    if (context.isCancelled()) {
+      throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
+    }
+  }
+
+  private static class RootFiles {
+
+    private final Map<InputFile, CacheStrategy> changed = new LinkedHashMap<>();
+    private final List<String> projectReferences;
+    private boolean hasCachedFiles;
+
+    RootFiles(List<String> projectReferences) {
+      this.projectReferences = projectReferences;
     }
   }
 
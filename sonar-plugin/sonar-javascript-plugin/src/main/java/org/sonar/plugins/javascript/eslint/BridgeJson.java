@@ -0,0 +1,551 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Issue;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.IssueLocation;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Metrics;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.ParsingError;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.ParsingErrorCode;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.Perf;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.QuickFix;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.QuickFixEdit;
+
+/**
+ * JSON mapping of the requests sent to eslint-bridge and of the analysis responses. Requests are written by reflection.
+ * Responses are read without reflection, into the same objects as the reflective adapters of Gson, except that fields
+ * missing or null in a response keep their default value. Highlights, symbols and CPD tokens are streamed into their
+ * packed representation by their own adapters.
+ */
+final class BridgeJson {
+
+  static final Gson GSON = new GsonBuilder()
+    .registerTypeAdapter(AnalysisResponse.class, new AnalysisResponseAdapter().nullSafe())
+    .create();
+
+  private static final Highlights.Adapter HIGHLIGHTS = new Highlights.Adapter();
+  private static final HighlightedSymbols.Adapter HIGHLIGHTED_SYMBOLS = new HighlightedSymbols.Adapter();
+  private static final CpdTokens.Adapter CPD_TOKENS = new CpdTokens.Adapter();
+
+  private BridgeJson() {
+  }
+
+  static class AnalysisResponseAdapter extends TypeAdapter<AnalysisResponse> {
+
+    @Override
+    public void write(JsonWriter out, AnalysisResponse response) throws IOException {
+      out.beginObject();
+      out.name("parsingError");
+      writeParsingError(out, response.parsingError);
+      out.name("issues");
+      writeList(out, response.issues, BridgeJson::writeIssue);
+      out.name("highlights");
+      HIGHLIGHTS.write(out, response.highlights);
+      out.name("highlightedSymbols");
+      HIGHLIGHTED_SYMBOLS.write(out, response.highlightedSymbols);
+      out.name("metrics");
+      writeMetrics(out, response.metrics);
+      out.name("cpdTokens");
+      CPD_TOKENS.write(out, response.cpdTokens);
+      out.name("perf");
+      writePerf(out, response.perf);
+      out.name("ucfgPaths");
+      writeStrings(out, response.ucfgPaths);
+      out.endObject();
+    }
+
+    @Override
+    public AnalysisResponse read(JsonReader in) throws IOException {
+      var response = new AnalysisResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        var name = in.nextName();
+        if (in.peek() == JsonToken.NULL) {
+          in.nextNull();
+          continue;
+        }
+        switch (name) {
+          case "parsingError":
+            response.parsingError = readParsingError(in);
+            break;
+          case "issues":
+            response.issues = readList(in, BridgeJson::readIssue);
+            break;
+          case "highlights":
+            response.highlights = HIGHLIGHTS.read(in);
+            break;
+          case "highlightedSymbols":
+            response.highlightedSymbols = HIGHLIGHTED_SYMBOLS.read(in);
+            break;
+          case "metrics":
+            response.metrics = readMetrics(in);
+            break;
+          case "cpdTokens":
+            response.cpdTokens = CPD_TOKENS.read(in);
+            break;
+          case "perf":
+            response.perf = readPerf(in);
+            break;
+          case "ucfgPaths":
+            response.ucfgPaths = readList(in, JsonReader::nextString);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return response;
+    }
+  }
+
+  private static ParsingError readParsingError(JsonReader in) throws IOException {
+    var parsingError = new ParsingError();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "message":
+          parsingError.message = nextString(in);
+          break;
+        case "line":
+          parsingError.line = nextInteger(in);
+          break;
+        case "code":
+          parsingError.code = nextParsingErrorCode(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return parsingError;
+  }
+
+  private static void writeParsingError(JsonWriter out, @Nullable ParsingError parsingError) throws IOException {
+    if (parsingError == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("message").value(parsingError.message);
+    out.name("line").value(parsingError.line);
+    out.name("code").value(parsingError.code == null ? null : parsingError.code.name());
+    out.endObject();
+  }
+
+  private static Issue readIssue(JsonReader in) throws IOException {
+    var issue = new Issue();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "line":
+          issue.line = nextInteger(in);
+          break;
+        case "column":
+          issue.column = nextInteger(in);
+          break;
+        case "endLine":
+          issue.endLine = nextInteger(in);
+          break;
+        case "endColumn":
+          issue.endColumn = nextInteger(in);
+          break;
+        case "message":
+          issue.message = nextString(in);
+          break;
+        case "ruleId":
+          issue.ruleId = nextString(in);
+          break;
+        case "secondaryLocations":
+          issue.secondaryLocations = readNullableList(in, BridgeJson::readIssueLocation);
+          break;
+        case "cost":
+          issue.cost = nextDouble(in);
+          break;
+        case "quickFixes":
+          issue.quickFixes = readNullableList(in, BridgeJson::readQuickFix);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return issue;
+  }
+
+  private static void writeIssue(JsonWriter out, Issue issue) throws IOException {
+    out.beginObject();
+    out.name("line").value(issue.line);
+    out.name("column").value(issue.column);
+    out.name("endLine").value(issue.endLine);
+    out.name("endColumn").value(issue.endColumn);
+    out.name("message").value(issue.message);
+    out.name("ruleId").value(issue.ruleId);
+    out.name("secondaryLocations");
+    writeList(out, issue.secondaryLocations, BridgeJson::writeIssueLocation);
+    out.name("cost").value(issue.cost);
+    out.name("quickFixes");
+    writeList(out, issue.quickFixes, BridgeJson::writeQuickFix);
+    out.endObject();
+  }
+
+  private static QuickFix readQuickFix(JsonReader in) throws IOException {
+    var quickFix = new QuickFix();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "message":
+          quickFix.message = nextString(in);
+          break;
+        case "edits":
+          quickFix.edits = readNullableList(in, BridgeJson::readQuickFixEdit);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return quickFix;
+  }
+
+  private static void writeQuickFix(JsonWriter out, QuickFix quickFix) throws IOException {
+    out.beginObject();
+    out.name("message").value(quickFix.message);
+    out.name("edits");
+    writeList(out, quickFix.edits, BridgeJson::writeQuickFixEdit);
+    out.endObject();
+  }
+
+  private static QuickFixEdit readQuickFixEdit(JsonReader in) throws IOException {
+    var edit = new QuickFixEdit();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "text":
+          edit.text = nextString(in);
+          break;
+        case "loc":
+          edit.loc = readNullable(in, BridgeJson::readIssueLocation);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return edit;
+  }
+
+  private static void writeQuickFixEdit(JsonWriter out, QuickFixEdit edit) throws IOException {
+    out.beginObject();
+    out.name("text").value(edit.text);
+    out.name("loc");
+    if (edit.loc == null) {
+      out.nullValue();
+    } else {
+      writeIssueLocation(out, edit.loc);
+    }
+    out.endObject();
+  }
+
+  private static IssueLocation readIssueLocation(JsonReader in) throws IOException {
+    var location = new IssueLocation();
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "line":
+          location.line = nextInteger(in);
+          break;
+        case "column":
+          location.column = nextInteger(in);
+          break;
+        case "endLine":
+          location.endLine = nextInteger(in);
+          break;
+        case "endColumn":
+          location.endColumn = nextInteger(in);
+          break;
+        case "message":
+          location.message = nextString(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return location;
+  }
+
+  private static void writeIssueLocation(JsonWriter out, IssueLocation location) throws IOException {
+    out.beginObject();
+    out.name("line").value(location.line);
+    out.name("column").value(location.column);
+    out.name("endLine").value(location.endLine);
+    out.name("endColumn").value(location.endColumn);
+    out.name("message").value(location.message);
+    out.endObject();
+  }
+
+  private static Metrics readMetrics(JsonReader in) throws IOException {
+    var metrics = new Metrics();
+    in.beginObject();
+    while (in.hasNext()) {
+      var name = in.nextName();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        continue;
+      }
+      switch (name) {
+        case "ncloc":
+          metrics.ncloc = readInts(in);
+          break;
+        case "commentLines":
+          metrics.commentLines = readInts(in);
+          break;
+        case "nosonarLines":
+          metrics.nosonarLines = readInts(in);
+          break;
+        case "executableLines":
+          metrics.executableLines = readInts(in);
+          break;
+        case "functions":
+          metrics.functions = in.nextInt();
+          break;
+        case "statements":
+          metrics.statements = in.nextInt();
+          break;
+        case "classes":
+          metrics.classes = in.nextInt();
+          break;
+        case "complexity":
+          metrics.complexity = in.nextInt();
+          break;
+        case "cognitiveComplexity":
+          metrics.cognitiveComplexity = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return metrics;
+  }
+
+  private static void writeMetrics(JsonWriter out, @Nullable Metrics metrics) throws IOException {
+    if (metrics == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("ncloc");
+    writeInts(out, metrics.ncloc);
+    out.name("commentLines");
+    writeInts(out, metrics.commentLines);
+    out.name("nosonarLines");
+    writeInts(out, metrics.nosonarLines);
+    out.name("executableLines");
+    writeInts(out, metrics.executableLines);
+    out.name("functions").value(metrics.functions);
+    out.name("statements").value(metrics.statements);
+    out.name("classes").value(metrics.classes);
+    out.name("complexity").value(metrics.complexity);
+    out.name("cognitiveComplexity").value(metrics.cognitiveComplexity);
+    out.endObject();
+  }
+
+  private static Perf readPerf(JsonReader in) throws IOException {
+    var perf = new Perf();
+    in.beginObject();
+    while (in.hasNext()) {
+      var name = in.nextName();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        continue;
+      }
+      switch (name) {
+        case "parseTime":
+          perf.parseTime = in.nextInt();
+          break;
+        case "analysisTime":
+          perf.analysisTime = in.nextInt();
+          break;
+        case "ruleTimes":
+          perf.ruleTimes = readRuleTimes(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return perf;
+  }
+
+  private static Map<String, Integer> readRuleTimes(JsonReader in) throws IOException {
+    var ruleTimes = new HashMap<String, Integer>();
+    in.beginObject();
+    while (in.hasNext()) {
+      ruleTimes.put(in.nextName(), nextInteger(in));
+    }
+    in.endObject();
+    return ruleTimes;
+  }
+
+  private static void writePerf(JsonWriter out, @Nullable Perf perf) throws IOException {
+    if (perf == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("parseTime").value(perf.parseTime);
+    out.name("analysisTime").value(perf.analysisTime);
+    out.name("ruleTimes");
+    if (perf.ruleTimes == null) {
+      out.nullValue();
+    } else {
+      out.beginObject();
+      for (var entry : perf.ruleTimes.entrySet()) {
+        out.name(entry.getKey()).value(entry.getValue());
+      }
+      out.endObject();
+    }
+    out.endObject();
+  }
+
+  private interface ElementReader<T> {
+    T read(JsonReader in) throws IOException;
+  }
+
+  private interface ElementWriter<T> {
+    void write(JsonWriter out, T element) throws IOException;
+  }
+
+  @Nullable
+  private static <T> T readNullable(JsonReader in, ElementReader<T> reader) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return reader.read(in);
+  }
+
+  private static <T> List<T> readList(JsonReader in, ElementReader<T> reader) throws IOException {
+    var list = new ArrayList<T>();
+    in.beginArray();
+    while (in.hasNext()) {
+      list.add(readNullable(in, reader));
+    }
+    in.endArray();
+    return list;
+  }
+
+  @Nullable
+  private static <T> List<T> readNullableList(JsonReader in, ElementReader<T> reader) throws IOException {
+    return readNullable(in, input -> readList(input, reader));
+  }
+
+  private static <T> void writeList(JsonWriter out, @Nullable List<T> list, ElementWriter<T> writer) throws IOException {
+    if (list == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    for (var element : list) {
+      if (element == null) {
+        out.nullValue();
+      } else {
+        writer.write(out, element);
+      }
+    }
+    out.endArray();
+  }
+
+  private static void writeStrings(JsonWriter out, @Nullable List<String> strings) throws IOException {
+    writeList(out, strings, JsonWriter::value);
+  }
+
+  private static int[] readInts(JsonReader in) throws IOException {
+    var values = new int[16];
+    var size = 0;
+    in.beginArray();
+    while (in.hasNext()) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = in.nextInt();
+    }
+    in.endArray();
+    return Arrays.copyOf(values, size);
+  }
+
+  private static void writeInts(JsonWriter out, @Nullable int[] values) throws IOException {
+    if (values == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginArray();
+    for (int value : values) {
+      out.value(value);
+    }
+    out.endArray();
+  }
+
+  @Nullable
+  private static String nextString(JsonReader in) throws IOException {
+    return readNullable(in, JsonReader::nextString);
+  }
+
+  @Nullable
+  private static Integer nextInteger(JsonReader in) throws IOException {
+    return readNullable(in, JsonReader::nextInt);
+  }
+
+  @Nullable
+  private static Double nextDouble(JsonReader in) throws IOException {
+    return readNullable(in, JsonReader::nextDouble);
+  }
+
+  /**
+   * Unknown codes are read as null, like the enum adapter of Gson does.
+   */
+  @Nullable
+  private static ParsingErrorCode nextParsingErrorCode(JsonReader in) throws IOException {
+    var code = nextString(in);
+    if (code == null) {
+      return null;
+    }
+    try {
+      return ParsingErrorCode.valueOf(code);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
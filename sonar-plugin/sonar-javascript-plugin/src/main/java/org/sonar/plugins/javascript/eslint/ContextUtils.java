@@ -27,6 +27,9 @@ import org.sonar.plugins.javascript.JavaScriptPlugin;
 
 class ContextUtils {
 
+  // internal property to reuse the analysis of byte-identical files within a sensor
+  static final String DEDUPLICATE_FILES = "sonar.javascript.deduplicateFiles";
+
   private final SensorContext context;
 
   ContextUtils(SensorContext context) {
@@ -50,6 +53,10 @@ class ContextUtils {
     return isSonarLint() || !StandardCharsets.UTF_8.equals(file.charset());
   }
 
+  boolean deduplicateFiles() {
+    return !isSonarLint() && context.config().getBoolean(DEDUPLICATE_FILES).orElse(false);
+  }
+
   boolean failFast() {
     return context.config().getBoolean("sonar.internal.analysis.failFast").orElse(false);
   }
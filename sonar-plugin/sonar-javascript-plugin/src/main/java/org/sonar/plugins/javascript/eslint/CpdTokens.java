@@ -0,0 +1,179 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import org.sonar.api.batch.fs.TextRange;
+
+/**
+ * CPD tokens of a file, with packed locations and images interned across the files of a sensor,
+ * as large files produce hundreds of thousands of tokens. In JSON, tokens are objects with a location and an image.
+ */
+@JsonAdapter(value = CpdTokens.Adapter.class, nullSafe = false)
+public final class CpdTokens {
+
+  private final PackedLocations locations;
+  private String[] images;
+
+  public CpdTokens() {
+    this(16);
+  }
+
+  public CpdTokens(int capacity) {
+    locations = new PackedLocations(capacity);
+    images = new String[Math.max(1, capacity)];
+  }
+
+  public int size() {
+    return locations.size();
+  }
+
+  public void add(int startLine, int startCol, int endLine, int endCol, String image) {
+    var index = locations.size();
+    if (index == images.length) {
+      images = Arrays.copyOf(images, images.length * 2);
+    }
+    images[index] = image;
+    locations.add(startLine, startCol, endLine, endCol);
+  }
+
+  public int startLine(int index) {
+    return locations.startLine(index);
+  }
+
+  public int startCol(int index) {
+    return locations.startCol(index);
+  }
+
+  public int endLine(int index) {
+    return locations.endLine(index);
+  }
+
+  public int endCol(int index) {
+    return locations.endCol(index);
+  }
+
+  public String image(int index) {
+    return images[index];
+  }
+
+  /**
+   * Replaces the images by the ones of the interner, so that the files of a sensor share their common images.
+   */
+  void intern(StringInterner interner) {
+    for (var i = 0; i < size(); i++) {
+      images[i] = interner.intern(images[i]);
+    }
+  }
+
+  TextRange toTextRange(int index, LineIndex lineIndex) {
+    return locations.toTextRange(index, lineIndex);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CpdTokens)) {
+      return false;
+    }
+    var other = (CpdTokens) obj;
+    if (size() != other.size()) {
+      return false;
+    }
+    for (var i = 0; i < size(); i++) {
+      if (!locations.equals(i, other.locations, i) || !Objects.equals(images[i], other.images[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    var hash = size();
+    for (var i = 0; i < size(); i++) {
+      hash = 31 * hash + startLine(i);
+      hash = 31 * hash + startCol(i);
+      hash = 31 * hash + Objects.hashCode(images[i]);
+    }
+    return hash;
+  }
+
+  static class Adapter extends TypeAdapter<CpdTokens> {
+
+    @Override
+    public void write(JsonWriter out, CpdTokens cpdTokens) throws IOException {
+      if (cpdTokens == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (var i = 0; i < cpdTokens.size(); i++) {
+        out.beginObject();
+        out.name("location");
+        cpdTokens.locations.write(out, i);
+        out.name("image").value(cpdTokens.images[i]);
+        out.endObject();
+      }
+      out.endArray();
+    }
+
+    @Override
+    public CpdTokens read(JsonReader in) throws IOException {
+      var cpdTokens = new CpdTokens();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return cpdTokens;
+      }
+      var location = new int[4];
+      in.beginArray();
+      while (in.hasNext()) {
+        String image = null;
+        Arrays.fill(location, 0);
+        in.beginObject();
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "location":
+              PackedLocations.read(in, location);
+              break;
+            case "image":
+              image = in.nextString();
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        in.endObject();
+        cpdTokens.add(location[0], location[1], location[2], location[3], image);
+      }
+      in.endArray();
+      return cpdTokens;
+    }
+  }
+}
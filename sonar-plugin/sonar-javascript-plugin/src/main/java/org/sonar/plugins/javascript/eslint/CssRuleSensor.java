@@ -93,10 +93,11 @@ public class CssRuleSensor extends AbstractEslintSensor {
   protected void analyzeFiles(List<InputFile> inputFiles) throws IOException {
     ProgressReport progressReport = new ProgressReport("Analysis progress", TimeUnit.SECONDS.toMillis(10));
     boolean success = false;
-    List<StylelintRule> rules = cssRules.getStylelintRules();
 
     try {
       progressReport.start(inputFiles.size(), inputFiles.iterator().next().absolutePath());
+      // rules are registered once, file requests only reference the linter by its id
+      eslintBridgeServer.initCssLinter(cssRules.getStylelintRules());
       for (InputFile inputFile : inputFiles) {
         if (context.isCancelled()) {
           throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
@@ -105,7 +106,7 @@ public class CssRuleSensor extends AbstractEslintSensor {
           throw new IllegalStateException("eslint-bridge server is not answering");
         }
 
-        analyzeFile(inputFile, context, rules);
+        analyzeFile(inputFile, context);
         progressReport.nextFile(inputFile.absolutePath());
       }
       success = true;
@@ -119,7 +120,7 @@ public class CssRuleSensor extends AbstractEslintSensor {
     }
   }
 
-  void analyzeFile(InputFile inputFile, SensorContext context, List<StylelintRule> rules) {
+  void analyzeFile(InputFile inputFile, SensorContext context) {
     try {
       URI uri = inputFile.uri();
       if (!"file".equalsIgnoreCase(uri.getScheme())) {
@@ -127,11 +128,16 @@ public class CssRuleSensor extends AbstractEslintSensor {
         return;
       }
       LOG.debug("Analyzing file: {}", uri);
-      String fileContent = contextUtils.shouldSendFileContent(inputFile) ? inputFile.contents() : null;
-      EslintBridgeServer.CssAnalysisRequest request = new EslintBridgeServer.CssAnalysisRequest(new File(uri).getAbsolutePath(), fileContent, rules);
-      EslintBridgeServer.AnalysisResponse analysisResponse = eslintBridgeServer.analyzeCss(request);
+      EslintBridgeServer.AnalysisResponse analysisResponse;
+      try (var content = fileContentHandoff.prepare(inputFile)) {
+        EslintBridgeServer.CssAnalysisRequest request = new EslintBridgeServer.CssAnalysisRequest(new File(uri).getAbsolutePath(), content.text,
+          AnalysisMode.DEFAULT_LINTER_ID, content.path, content.hash);
+        analysisResponse = eslintBridgeServer.analyzeCss(request);
+      }
       LOG.debug("Found {} issue(s)", analysisResponse.issues.size());
       saveIssues(context, inputFile, analysisResponse.issues);
+    } catch (FileAnalysisTimeoutException e) {
+      skipFile(inputFile, e);
     } catch (IOException | RuntimeException e) {
       throw new IllegalStateException("Failure during analysis of " + inputFile.uri(), e);
     }
@@ -21,10 +21,9 @@ package org.sonar.plugins.javascript.eslint;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.sonar.api.Startable;
-import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.scanner.ScannerSide;
 import org.sonarsource.api.sonarlint.SonarLintSide;
@@ -39,6 +38,8 @@ public interface EslintBridgeServer extends Startable {
 
   void initLinter(List<EslintRule> rules, List<String> environments, List<String> globals, AnalysisMode analysisMode) throws IOException;
 
+  void initCssLinter(List<StylelintRule> rules) throws IOException;
+
   AnalysisResponse analyzeJavaScript(JsAnalysisRequest request) throws IOException;
 
   AnalysisResponse analyzeTypeScript(JsAnalysisRequest request) throws IOException;
@@ -75,9 +76,17 @@ public interface EslintBridgeServer extends Startable {
     final List<String> tsConfigs;
     final String programId;
     final String linterId;
+    // UTF-8 copy of the file content, read by eslint-bridge instead of the file itself
+    final String fileContentPath;
+    final String fileContentHash;
 
     JsAnalysisRequest(String filePath, String fileType, @Nullable String fileContent, boolean ignoreHeaderComments, @Nullable List<String> tsConfigs, @Nullable String programId,
       String linterId) {
+      this(filePath, fileType, fileContent, ignoreHeaderComments, tsConfigs, programId, linterId, null, null);
+    }
+
+    JsAnalysisRequest(String filePath, String fileType, @Nullable String fileContent, boolean ignoreHeaderComments, @Nullable List<String> tsConfigs, @Nullable String programId,
+      String linterId, @Nullable String fileContentPath, @Nullable String fileContentHash) {
       this.filePath = filePath;
       this.fileType = fileType;
       this.fileContent = fileContent;
@@ -85,28 +94,39 @@ public interface EslintBridgeServer extends Startable {
       this.tsConfigs = tsConfigs;
       this.programId = programId;
       this.linterId = linterId;
+      this.fileContentPath = fileContentPath;
+      this.fileContentHash = fileContentHash;
     }
   }
 
   class CssAnalysisRequest {
     final String filePath;
     final String fileContent;
-    final List<StylelintRule> rules;
+    final String linterId;
+    final String fileContentPath;
+    final String fileContentHash;
+
+    CssAnalysisRequest(String filePath, @Nullable String fileContent, String linterId) {
+      this(filePath, fileContent, linterId, null, null);
+    }
 
-    CssAnalysisRequest(String filePath, @Nullable String fileContent, List<StylelintRule> rules) {
+    CssAnalysisRequest(String filePath, @Nullable String fileContent, String linterId, @Nullable String fileContentPath,
+      @Nullable String fileContentHash) {
       this.filePath = filePath;
       this.fileContent = fileContent;
-      this.rules = rules;
+      this.linterId = linterId;
+      this.fileContentPath = fileContentPath;
+      this.fileContentHash = fileContentHash;
     }
   }
 
   class AnalysisResponse {
     ParsingError parsingError;
     List<Issue> issues = List.of();
-    Highlight[] highlights = {};
-    HighlightedSymbol[] highlightedSymbols = {};
+    Highlights highlights = new Highlights();
+    HighlightedSymbols highlightedSymbols = new HighlightedSymbols();
     Metrics metrics = new Metrics();
-    CpdToken[] cpdTokens = {};
+    CpdTokens cpdTokens = new CpdTokens();
     Perf perf;
     List<String> ucfgPaths = List.of();
   }
@@ -155,59 +175,6 @@ public interface EslintBridgeServer extends Startable {
     String message;
   }
 
-  class Highlight {
-    Location location;
-    String textType;
-  }
-
-  class HighlightedSymbol {
-    Location declaration;
-    Location[] references;
-  }
-
-  class Location {
-    int startLine;
-    int startCol;
-    int endLine;
-    int endCol;
-
-    public int getStartLine() {
-      return startLine;
-    }
-
-    public int getStartCol() {
-      return startCol;
-    }
-
-    public int getEndLine() {
-      return endLine;
-    }
-
-    public int getEndCol() {
-      return endCol;
-    }
-
-    public void setStartLine(int startLine) {
-      this.startLine = startLine;
-    }
-
-    public void setStartCol(int startCol) {
-      this.startCol = startCol;
-    }
-
-    public void setEndLine(int endLine) {
-      this.endLine = endLine;
-    }
-
-    public void setEndCol(int endCol) {
-      this.endCol = endCol;
-    }
-
-    TextRange toTextRange(InputFile inputFile) {
-      return inputFile.newRange(this.startLine, this.startCol, this.endLine, this.endCol);
-    }
-  }
-
   class Metrics {
     int[] ncloc = {};
     int[] commentLines = {};
@@ -220,30 +187,23 @@ public interface EslintBridgeServer extends Startable {
     int cognitiveComplexity;
   }
 
-  class CpdToken {
-    Location location;
-    String image;
-
-    public void setLocation(Location location) {
-      this.location = location;
-    }
-
-    public void setImage(String image) {
-      this.image = image;
-    }
-
-    public Location getLocation() {
-      return location;
-    }
-
-    public String getImage() {
-      return image;
-    }
-  }
-
   class Perf {
     int parseTime;
     int analysisTime;
+    // time in microseconds spent by each rule, only available when monitoring is enabled
+    Map<String, Integer> ruleTimes;
+  }
+
+  class ProcessStatus {
+    // memory is measured in bytes
+    long heapUsed;
+    long heapTotal;
+    long heapLimit;
+    long rss;
+    // event loop delays are measured in milliseconds since the previous status
+    double eventLoopLag;
+    double eventLoopLagMax;
+    int programs;
   }
 
   class TsConfigResponse {
@@ -303,9 +263,15 @@ public interface EslintBridgeServer extends Startable {
 
   class TsProgramRequest {
     final String tsConfig;
+    final List<String> rootFiles;
 
     public TsProgramRequest(String tsConfig) {
+      this(tsConfig, null);
+    }
+
+    public TsProgramRequest(String tsConfig, @Nullable List<String> rootFiles) {
       this.tsConfig = tsConfig;
+      this.rootFiles = rootFiles;
     }
   }
 }
@@ -27,19 +27,23 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
@@ -70,7 +74,11 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   // internal property to set "--max-old-space-size" for Node process running this server
   private static final String MAX_OLD_SPACE_SIZE_PROPERTY = "sonar.javascript.node.maxspace";
   private static final String ALLOW_TS_PARSER_JS_FILES = "sonar.javascript.allowTsParserJsFiles";
-  private static final Gson GSON = new Gson();
+  // internal property to set a shorter deadline (in seconds) for the analysis of a single file than the request timeout
+  static final String FILE_TIMEOUT_PROPERTY = "sonar.javascript.analysis.fileTimeout";
+  // time given to the server to answer after the deadline of a file was exceeded before it gets restarted
+  private static final int RESPONSIVENESS_TIMEOUT_SECONDS = 5;
+  private static final Gson GSON = BridgeJson.GSON;
 
   private static final String DEPLOY_LOCATION = "eslint-bridge-bundle";
 
@@ -80,17 +88,27 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   private final Bundle bundle;
   private final String hostAddress;
   private int port;
-  private NodeCommand nodeCommand;
+  private volatile NodeCommand nodeCommand;
   private Status status = Status.NOT_STARTED;
   private final RulesBundles rulesBundles;
   private final NodeDeprecationWarning deprecationWarning;
   private final Path deployLocation;
   private final Monitoring monitoring;
+  private int fileTimeoutSeconds;
+  // requests replayed when the server is restarted, keyed by endpoint and linter id
+  private final Map<String, InitRequest> initRequests = new LinkedHashMap<>();
+  private final SlowestFiles slowestFiles = new SlowestFiles();
 
   private static final int HEARTBEAT_INTERVAL_SECONDS = 5;
   private final ScheduledExecutorService heartbeatService;
   private ScheduledFuture<?> heartbeatFuture;
 
+  // ratio of the heap limit above which a warning is logged
+  static final double MEMORY_WARNING_RATIO = 0.9;
+  private static final long MB = 1024L * 1024L;
+  private volatile long maxOldSpaceSize;
+  private volatile boolean memoryWarningLogged;
+
   // Used by pico container for dependency injection
   public EslintBridgeServerImpl(NodeCommandBuilder nodeCommandBuilder, Bundle bundle, RulesBundles rulesBundles,
                                 NodeDeprecationWarning deprecationWarning, TempFolder tempFolder, Monitoring monitoring) {
@@ -104,6 +122,7 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
                          NodeDeprecationWarning deprecationWarning, TempFolder tempFolder, Monitoring monitoring) {
     this.nodeCommandBuilder = nodeCommandBuilder;
     this.timeoutSeconds = timeoutSeconds;
+    this.fileTimeoutSeconds = timeoutSeconds;
     this.bundle = bundle;
     this.client = HttpClient.newBuilder()
       .connectTimeout(Duration.ofSeconds(timeoutSeconds))
@@ -118,20 +137,61 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   void heartbeat() {
     LOG.trace("Pinging the server");
-    isAlive();
+    processStatus().ifPresent(processStatus -> {
+      monitoring.recordProcessStatus(processStatus);
+      checkMemory(processStatus);
+    });
+  }
+
+  Optional<ProcessStatus> processStatus() {
+    if (nodeCommand == null) {
+      return Optional.empty();
+    }
+    var request = HttpRequest.newBuilder(url("status", "details=true")).GET().build();
+    try {
+      var response = client.send(request, BodyHandlers.ofString());
+      return Optional.ofNullable(GSON.fromJson(response.body(), ProcessStatus.class));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    } catch (IOException | JsonSyntaxException e) {
+      LOG.trace("Failed to get the status of the server", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Warns once per server start when the heap used by Node.js gets close to its limit, which is either
+   * sonar.javascript.node.maxspace or the default limit of Node.js.
+   */
+  void checkMemory(ProcessStatus processStatus) {
+    var limit = maxOldSpaceSize > 0 ? maxOldSpaceSize : processStatus.heapLimit;
+    if (memoryWarningLogged || limit <= 0 || processStatus.heapUsed < MEMORY_WARNING_RATIO * limit) {
+      return;
+    }
+    memoryWarningLogged = true;
+    LOG.warn("eslint-bridge Node.js process uses {} MB of heap out of {} MB. Consider setting {} to a higher value (e.g. 4096).",
+      processStatus.heapUsed / MB, limit / MB, MAX_OLD_SPACE_SIZE_PROPERTY);
   }
 
   int getTimeoutSeconds() {
     return timeoutSeconds;
   }
 
+  int getFileTimeoutSeconds() {
+    return fileTimeoutSeconds;
+  }
+
   void deploy() throws IOException {
     bundle.deploy(deployLocation);
   }
 
   void startServer(SensorContext context, List<Path> deployedBundles) throws IOException {
     PROFILER.startDebug("Starting server");
+    var event = new AnalysisEvents.BridgeStart();
+    event.begin();
     port = findOpenPort();
+    fileTimeoutSeconds = fileTimeoutSeconds(context);
 
     File scriptFile = new File(bundle.startServerScript());
     if (!scriptFile.exists()) {
@@ -141,6 +201,21 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     String bundles = deployedBundles.stream().map(Path::toString).collect(Collectors.joining(File.pathSeparator));
     initNodeCommand(context, scriptFile, context.fileSystem().workDir(), bundles);
 
+    startNodeProcess();
+    PROFILER.stopDebug();
+    if (event.shouldCommit()) {
+      event.port = port;
+      event.bundles = deployedBundles.size();
+      event.commit();
+    }
+    deprecationWarning.logNodeDeprecation(nodeCommand.getActualNodeVersion().major());
+  }
+
+  /**
+   * Launches the Node.js process of the current command, which is also used to restart the server on the same port.
+   */
+  private void startNodeProcess() {
+    memoryWarningLogged = false;
     LOG.debug("Starting Node.js process to start eslint-bridge server at port " + port);
     nodeCommand.start();
 
@@ -154,8 +229,6 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
         heartbeatFuture = heartbeatService.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
       }
     }
-    PROFILER.stopDebug();
-    deprecationWarning.logNodeDeprecation(nodeCommand.getActualNodeVersion().major());
   }
 
   boolean waitServerToStart(int timeoutMs) {
@@ -175,18 +248,22 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     return true;
   }
 
+  private int fileTimeoutSeconds(SensorContext context) {
+    var seconds = context.config().getInt(FILE_TIMEOUT_PROPERTY).orElse(timeoutSeconds);
+    if (seconds <= 0 || seconds > timeoutSeconds) {
+      return timeoutSeconds;
+    }
+    return seconds;
+  }
+
   private void initNodeCommand(SensorContext context, File scriptFile, File workDir, String bundles) throws IOException {
     boolean allowTsParserJsFiles = context.config().getBoolean(ALLOW_TS_PARSER_JS_FILES).orElse(true);
     boolean isSonarLint = context.runtime().getProduct() == SonarProduct.SONARLINT;
     if (isSonarLint) {
       LOG.info("Running in SonarLint context, metrics will not be computed.");
     }
-    var outputConsumer = monitoring.isMonitoringEnabled() ?
-      new LogOutputConsumer().andThen(new MonitoringOutputConsumer(monitoring)) : new LogOutputConsumer();
-    // enable per rule performance tracking https://eslint.org/docs/1.0.0/developer-guide/working-with-rules#per-rule-performance
-
     nodeCommandBuilder
-      .outputConsumer(outputConsumer)
+      .outputConsumer(new LogOutputConsumer())
       .pathResolver(bundle)
       .minNodeVersion(NodeDeprecationWarning.MIN_SUPPORTED_NODE_VERSION)
       .configuration(context.config())
@@ -194,9 +271,9 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
       .scriptArgs(String.valueOf(port), hostAddress, workDir.getAbsolutePath(), String.valueOf(allowTsParserJsFiles), String.valueOf(isSonarLint), bundles)
       .env(getEnv());
 
-    context.config()
-      .getInt(MAX_OLD_SPACE_SIZE_PROPERTY)
-      .ifPresent(nodeCommandBuilder::maxOldSpaceSize);
+    var maxOldSpace = context.config().getInt(MAX_OLD_SPACE_SIZE_PROPERTY);
+    maxOldSpace.ifPresent(nodeCommandBuilder::maxOldSpaceSize);
+    maxOldSpaceSize = maxOldSpace.map(size -> size * MB).orElse(0L);
 
     nodeCommand = nodeCommandBuilder.build();
   }
@@ -204,7 +281,8 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   private Map<String, String> getEnv() {
     Map<String, String> env = new HashMap<>();
     if (monitoring.isMonitoringEnabled()) {
-      env.put("TIMING", "all");
+      // eslint-bridge then returns the time spent by each rule on each file
+      env.put("SONARJS_RULE_TIMING", "true");
     }
     // see https://github.com/SonarSource/SonarJS/issues/2803
     env.put("BROWSERSLIST_IGNORE_OLD_DATA", "true");
@@ -248,67 +326,176 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   }
 
   private void initLinter(String linterId, List<EslintRule> rules, List<String> environments, List<String> globals) throws IOException {
+    var event = new AnalysisEvents.InitLinter();
+    event.begin();
     InitLinterRequest initLinterRequest = new InitLinterRequest(linterId, rules, environments, globals);
     String request = GSON.toJson(initLinterRequest);
+    initRequests.put("init-linter/" + linterId, new InitRequest("init-linter", request));
     String response = request(request, "init-linter");
+    if (event.shouldCommit()) {
+      event.linterId = linterId;
+      event.rules = rules.size();
+      event.commit();
+    }
     if (!"OK!".equals(response)) {
       throw new IllegalStateException("Failed to initialize linter");
     }
   }
 
+  @Override
+  public void initCssLinter(List<StylelintRule> rules) throws IOException {
+    InitCssLinterRequest initCssLinterRequest = new InitCssLinterRequest(AnalysisMode.DEFAULT_LINTER_ID, rules);
+    String request = GSON.toJson(initCssLinterRequest);
+    initRequests.put("init-css-linter/" + initCssLinterRequest.linterId, new InitRequest("init-css-linter", request));
+    String response = request(request, "init-css-linter");
+    if (!"OK!".equals(response)) {
+      throw new IllegalStateException("Failed to initialize CSS linter");
+    }
+  }
+
   @Override
   public AnalysisResponse analyzeJavaScript(JsAnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-js"), request.filePath);
+    return analyze(request, "analyze-js", request.filePath, request.linterId, request.programId);
   }
 
   @Override
   public AnalysisResponse analyzeTypeScript(JsAnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-ts"), request.filePath);
+    return analyze(request, "analyze-ts", request.filePath, request.linterId, request.programId);
   }
 
   @Override
   public AnalysisResponse analyzeWithProgram(JsAnalysisRequest request) throws IOException {
-    return response(request(GSON.toJson(request), "analyze-with-program"), request.filePath);
+    return analyze(request, "analyze-with-program", request.filePath, request.linterId, request.programId);
   }
 
   @Override
   public AnalysisResponse analyzeCss(CssAnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-css"), request.filePath);
+    return analyze(request, "analyze-css", request.filePath, request.linterId, null);
   }
 
   @Override
   public AnalysisResponse analyzeYaml(JsAnalysisRequest request) throws IOException {
-    String json = GSON.toJson(request);
-    return response(request(json, "analyze-yaml"), request.filePath);
+    return analyze(request, "analyze-yaml", request.filePath, request.linterId, request.programId);
   }
 
   @Override
   public AnalysisResponse analyzeHtml(JsAnalysisRequest request) throws IOException {
+    return analyze(request, "analyze-html", request.filePath, request.linterId, request.programId);
+  }
+
+  private AnalysisResponse analyze(Object request, String endpoint, String filePath, String linterId, @Nullable String programId) throws IOException {
+    var event = new AnalysisEvents.FileRequest();
+    event.begin();
+    var start = System.nanoTime();
     var json = GSON.toJson(request);
-    return response(request(json, "analyze-html"), request.filePath);
+    monitoring.recordPhase(Monitoring.Phase.REQUEST_SERIALIZATION, start);
+
+    start = System.nanoTime();
+    var result = analysisRequest(json, endpoint, filePath);
+    monitoring.recordPhase(Monitoring.Phase.BRIDGE_REQUEST, start);
+
+    start = System.nanoTime();
+    var response = response(result, filePath);
+    monitoring.recordPhase(Monitoring.Phase.RESPONSE_DESERIALIZATION, start);
+    if (event.shouldCommit()) {
+      event.endpoint = endpoint;
+      event.filePath = filePath;
+      event.linterId = linterId;
+      event.programId = programId;
+      // sizes are in bytes, as sent over HTTP
+      event.requestSize = json.getBytes(StandardCharsets.UTF_8).length;
+      event.responseSize = result.getBytes(StandardCharsets.UTF_8).length;
+      event.commit();
+    }
+    return response;
   }
 
   private String request(String json, String endpoint) throws IOException {
+    try {
+      return send(json, endpoint, timeoutSeconds);
+    } catch (InterruptedException e) {
+      throw handleInterruptedException(e, "Request " + endpoint + " was interrupted.");
+    } catch (IOException e) {
+      throw unresponsive(e);
+    }
+  }
+
+  /**
+   * Same as {@link #request(String, String)}, but bounded by the deadline of the analysis of a single file, so that a
+   * pathological file is skipped instead of failing the whole analysis.
+   */
+  private String analysisRequest(String json, String endpoint, String filePath) throws IOException {
+    var start = System.nanoTime();
+    String result;
+    try {
+      result = send(json, endpoint, fileTimeoutSeconds);
+    } catch (HttpConnectTimeoutException e) {
+      // the bridge cannot be reached at all, the next files would not fare better
+      throw unresponsive(e);
+    } catch (HttpTimeoutException e) {
+      slowestFiles.record(filePath, System.nanoTime() - start, true);
+      throw fileAnalysisTimeout(filePath, e);
+    } catch (InterruptedException e) {
+      throw handleInterruptedException(e, "Request " + endpoint + " was interrupted.");
+    } catch (IOException e) {
+      throw unresponsive(e);
+    }
+    slowestFiles.record(filePath, System.nanoTime() - start, false);
+    return result;
+  }
+
+  private String send(String json, String endpoint, int timeout) throws IOException, InterruptedException {
     var request = HttpRequest.newBuilder()
       .uri(url(endpoint))
-      .timeout(Duration.ofSeconds(timeoutSeconds))
+      .timeout(Duration.ofSeconds(timeout))
       .header("Content-Type", "application/json")
       .POST(HttpRequest.BodyPublishers.ofString(json))
       .build();
+    var response = client.send(request, BodyHandlers.ofString());
+    return response.body();
+  }
+
+  private static IllegalStateException unresponsive(IOException e) {
+    String msg = "eslint-bridge Node.js process is unresponsive. This is most likely caused by process running out of memory." +
+      " Consider setting sonar.javascript.node.maxspace to higher value (e.g. 4096).";
+    LOG.error(msg);
+    return new IllegalStateException("eslint-bridge is unresponsive", e);
+  }
 
+  private FileAnalysisTimeoutException fileAnalysisTimeout(String filePath, HttpTimeoutException e) throws IOException {
+    var restart = !isResponsive();
+    if (restart) {
+      LOG.warn("eslint-bridge Node.js process is still busy with file {}, restarting it", filePath);
+      restart();
+    }
+    return new FileAnalysisTimeoutException(filePath, fileTimeoutSeconds, restart, e);
+  }
+
+  private boolean isResponsive() {
+    var request = HttpRequest.newBuilder(url("status"))
+      .timeout(Duration.ofSeconds(Math.min(RESPONSIVENESS_TIMEOUT_SECONDS, fileTimeoutSeconds)))
+      .GET()
+      .build();
     try {
-      var response = client.send(request, BodyHandlers.ofString());
-      return response.body();
+      return "OK!".equals(client.send(request, BodyHandlers.ofString()).body());
     } catch (InterruptedException e) {
-      throw handleInterruptedException(e, "Request " + endpoint + " was interrupted.");
+      throw handleInterruptedException(e, "isResponsive was interrupted");
     } catch (IOException e) {
-      String msg = "eslint-bridge Node.js process is unresponsive. This is most likely caused by process running out of memory." +
-        " Consider setting sonar.javascript.node.maxspace to higher value (e.g. 4096).";
-      LOG.error(msg);
-      throw new IllegalStateException("eslint-bridge is unresponsive", e);
+      return false;
+    }
+  }
+
+  /**
+   * Kills the Node.js process and starts the same command again, with the linters initialized as before. The port is
+   * free again once the killed process is terminated. TypeScript programs are lost.
+   */
+  private void restart() throws IOException {
+    nodeCommand.destroy();
+    startNodeProcess();
+    for (var initRequest : initRequests.values()) {
+      if (!"OK!".equals(request(initRequest.json, initRequest.endpoint))) {
+        throw new IllegalStateException("Failed to initialize linter after restart of eslint-bridge");
+      }
     }
   }
 
@@ -380,14 +567,32 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
 
   @Override
   public TsProgram createProgram(TsProgramRequest tsProgramRequest) throws IOException {
+    var event = new AnalysisEvents.CreateProgram();
+    event.begin();
     var response = request(GSON.toJson(tsProgramRequest), "create-program");
-    return GSON.fromJson(response, TsProgram.class);
+    var program = GSON.fromJson(response, TsProgram.class);
+    if (event.shouldCommit()) {
+      event.tsConfig = tsProgramRequest.tsConfig;
+      if (program != null) {
+        event.programId = program.programId;
+        event.files = program.files == null ? 0 : program.files.size();
+        event.projectReferences = program.projectReferences == null ? 0 : program.projectReferences.size();
+      }
+      event.commit();
+    }
+    return program;
   }
 
   @Override
   public boolean deleteProgram(TsProgram tsProgram) throws IOException {
+    var event = new AnalysisEvents.DeleteProgram();
+    event.begin();
     var programToDelete = new TsProgram(tsProgram.programId, null, null);
     var response = request(GSON.toJson(programToDelete), "delete-program");
+    if (event.shouldCommit()) {
+      event.programId = tsProgram.programId;
+      event.commit();
+    }
     return "OK!".equals(response);
   }
 
@@ -405,6 +610,8 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   public void clean() {
     LOG.trace("Closing heartbeat service");
     heartbeatService.shutdownNow();
+    slowestFiles.logReport(fileTimeoutSeconds);
+    slowestFiles.reset();
     if (nodeCommand != null && isAlive()) {
       try {
         request("", "close");
@@ -443,8 +650,12 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
   }
 
   private URI url(String endpoint) {
+    return url(endpoint, null);
+  }
+
+  private URI url(String endpoint, @Nullable String query) {
     try {
-      return new URI("http", null, hostAddress, port, "/" + endpoint, null, null);
+      return new URI("http", null, hostAddress, port, "/" + endpoint, query, null);
     } catch (URISyntaxException e) {
       throw new IllegalStateException("Invalid URI: " + e.getMessage(), e);
     }
@@ -458,6 +669,16 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     }
   }
 
+  static class InitRequest {
+    final String endpoint;
+    final String json;
+
+    InitRequest(String endpoint, String json) {
+      this.endpoint = endpoint;
+      this.json = json;
+    }
+  }
+
   static class InitLinterRequest {
 
     String linterId;
@@ -473,38 +694,14 @@ public class EslintBridgeServerImpl implements EslintBridgeServer {
     }
   }
 
-  static class MonitoringOutputConsumer implements Consumer<String> {
+  static class InitCssLinterRequest {
 
-    // number of spaces after "Rule" depends on the rule keys lengths
-    private static final Pattern HEADER = Pattern.compile("Rule\\s+\\|\\s+Time \\(ms\\)\\s+\\|\\s+Relative\\s*");
-    private static final Pattern RULE_LINE = Pattern.compile("(\\S+)\\s*\\|\\s*(\\d+\\.?\\d+)\\s*\\|\\s*(\\d+\\.?\\d+)%");
-    private final Monitoring monitoring;
-
-    boolean headerDetected;
-
-    MonitoringOutputConsumer(Monitoring monitoring) {
-      this.monitoring = monitoring;
-    }
+    String linterId;
+    List<StylelintRule> rules;
 
-    @Override
-    public void accept(String s) {
-      if (HEADER.matcher(s).matches()) {
-        headerDetected = true;
-        return;
-      }
-      if (headerDetected) {
-        try {
-          var matcher = RULE_LINE.matcher(s);
-          if (matcher.matches()) {
-            var ruleKey = matcher.group(1);
-            var timeMs = Double.parseDouble(matcher.group(2));
-            var relative = Double.parseDouble(matcher.group(3));
-            monitoring.ruleStatistics(ruleKey, timeMs, relative);
-          }
-        } catch (Exception e) {
-          LOG.error("Error parsing rule timing data", e);
-        }
-      }
+    InitCssLinterRequest(String linterId, List<StylelintRule> rules) {
+      this.linterId = linterId;
+      this.rules = rules;
     }
   }
 
@@ -0,0 +1,42 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+/**
+ * Thrown when the analysis of a single file by eslint-bridge exceeds the deadline set with
+ * {@link EslintBridgeServerImpl#FILE_TIMEOUT_PROPERTY}. Sensors skip the file and continue with the next one.
+ */
+public class FileAnalysisTimeoutException extends RuntimeException {
+
+  private final boolean serverRestarted;
+
+  FileAnalysisTimeoutException(String filePath, int timeoutSeconds, boolean serverRestarted, Throwable cause) {
+    super("Analysis of file " + filePath + " exceeded the deadline of " + timeoutSeconds + " seconds", cause);
+    this.serverRestarted = serverRestarted;
+  }
+
+  /**
+   * Whether eslint-bridge was restarted as it was still busy with the file, in which case the linters are initialized
+   * again, but the TypeScript programs created before are lost.
+   */
+  public boolean isServerRestarted() {
+    return serverRestarted;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.utils.Hex;
+
+/**
+ * Hands the content of files which eslint-bridge cannot read as is over through UTF-8 copies in the working directory,
+ * instead of embedding it in requests. This applies to files which are not encoded in UTF-8 and, in SonarLint, to large
+ * buffers. Requests then only carry the path of the copy and the SHA-256 hash of its content, checked by eslint-bridge.
+ * The handoff is opt-in, through {@value #CONTENT_HANDOFF}.
+ */
+class FileContentHandoff {
+
+  private static final Logger LOG = Loggers.get(FileContentHandoff.class);
+
+  // internal property to hand the content of files over through copies instead of embedding it in requests
+  static final String CONTENT_HANDOFF = "sonar.javascript.contentHandoff";
+  // SonarLint buffers up to this number of characters are embedded in requests
+  static final int SONARLINT_INLINE_MAX_LENGTH = 1_000_000;
+  private static final String DIRECTORY = "eslint-bridge-content";
+
+  private final ContextUtils contextUtils;
+  private final Path directory;
+
+  private FileContentHandoff(ContextUtils contextUtils, @Nullable Path directory) {
+    this.contextUtils = contextUtils;
+    this.directory = directory;
+  }
+
+  static FileContentHandoff create(SensorContext context, ContextUtils contextUtils) {
+    if (!context.config().getBoolean(CONTENT_HANDOFF).orElse(false)) {
+      return new FileContentHandoff(contextUtils, null);
+    }
+    var directory = context.fileSystem().workDir().toPath().resolve(DIRECTORY);
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      LOG.debug("Failed to create directory " + directory + ", file contents will be sent in requests", e);
+      return new FileContentHandoff(contextUtils, null);
+    }
+    return new FileContentHandoff(contextUtils, directory);
+  }
+
+  boolean isEnabled() {
+    return directory != null;
+  }
+
+  /**
+   * The content to send for a file: nothing when eslint-bridge can read the file itself, the content in the request,
+   * or a copy to delete once the file is analyzed.
+   */
+  FileContent prepare(InputFile file) throws IOException {
+    if (!contextUtils.shouldSendFileContent(file)) {
+      return FileContent.NONE;
+    }
+    if (contextUtils.isSonarLint() || !isEnabled()) {
+      var text = file.contents();
+      if (!isEnabled() || text.length() <= SONARLINT_INLINE_MAX_LENGTH) {
+        return new FileContent(text, null, null);
+      }
+      return copyOrInline(file, new StringReader(text), text);
+    }
+    return copyOrInline(file, new InputStreamReader(file.inputStream(), file.charset()), null);
+  }
+
+  private FileContent copyOrInline(InputFile file, Reader reader, @Nullable String text) throws IOException {
+    try (reader) {
+      return copy(reader);
+    } catch (IOException e) {
+      LOG.debug("Failed to copy the content of " + file + ", it will be sent in the request", e);
+      return new FileContent(text == null ? file.contents() : text, null, null);
+    }
+  }
+
+  private FileContent copy(Reader reader) throws IOException {
+    var copy = Files.createTempFile(directory, "content", ".txt");
+    var digest = sha256();
+    try (var writer = new OutputStreamWriter(new DigestOutputStream(Files.newOutputStream(copy), digest), StandardCharsets.UTF_8)) {
+      reader.transferTo(writer);
+    } catch (IOException e) {
+      Files.deleteIfExists(copy);
+      throw e;
+    }
+    return new FileContent(null, copy, Hex.encode(digest.digest()));
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static final class FileContent implements AutoCloseable {
+
+    static final FileContent NONE = new FileContent(null, null, null);
+
+    final String text;
+    final String path;
+    final String hash;
+    private final Path copy;
+
+    private FileContent(@Nullable String text, @Nullable Path copy, @Nullable String hash) {
+      this.text = text;
+      this.copy = copy;
+      this.path = copy == null ? null : copy.toString();
+      this.hash = hash;
+    }
+
+    @Override
+    public void close() {
+      if (copy == null) {
+        return;
+      }
+      try {
+        Files.deleteIfExists(copy);
+      } catch (IOException e) {
+        LOG.debug("Failed to delete " + copy, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.sonar.api.batch.fs.TextRange;
+
+/**
+ * Symbols of a file, with the packed locations of their declarations and of all their references. The references of
+ * a symbol are the ones between the end of the references of the previous symbol and {@link #referencesEnd(int)}.
+ * In JSON, symbols are objects with a declaration and an array of references.
+ */
+@JsonAdapter(value = HighlightedSymbols.Adapter.class, nullSafe = false)
+final class HighlightedSymbols {
+
+  private final PackedLocations declarations = new PackedLocations();
+  private final PackedLocations references = new PackedLocations();
+  private int[] referencesEnds = new int[16];
+
+  int size() {
+    return declarations.size();
+  }
+
+  TextRange declaration(int symbol, LineIndex lineIndex) {
+    return declarations.toTextRange(symbol, lineIndex);
+  }
+
+  int referencesStart(int symbol) {
+    return symbol == 0 ? 0 : referencesEnds[symbol - 1];
+  }
+
+  int referencesEnd(int symbol) {
+    return referencesEnds[symbol];
+  }
+
+  TextRange reference(int reference, LineIndex lineIndex) {
+    return references.toTextRange(reference, lineIndex);
+  }
+
+  /**
+   * Adds a symbol declared at the given location, with the references added since the previous symbol.
+   */
+  void addSymbol(int startLine, int startCol, int endLine, int endCol) {
+    var index = declarations.size();
+    if (index == referencesEnds.length) {
+      referencesEnds = Arrays.copyOf(referencesEnds, referencesEnds.length * 2);
+    }
+    referencesEnds[index] = references.size();
+    declarations.add(startLine, startCol, endLine, endCol);
+  }
+
+  void addReference(int startLine, int startCol, int endLine, int endCol) {
+    references.add(startLine, startCol, endLine, endCol);
+  }
+
+  static class Adapter extends TypeAdapter<HighlightedSymbols> {
+
+    @Override
+    public void write(JsonWriter out, HighlightedSymbols symbols) throws IOException {
+      if (symbols == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (var i = 0; i < symbols.size(); i++) {
+        out.beginObject();
+        out.name("declaration");
+        symbols.declarations.write(out, i);
+        out.name("references");
+        out.beginArray();
+        for (var j = symbols.referencesStart(i); j < symbols.referencesEnd(i); j++) {
+          symbols.references.write(out, j);
+        }
+        out.endArray();
+        out.endObject();
+      }
+      out.endArray();
+    }
+
+    @Override
+    public HighlightedSymbols read(JsonReader in) throws IOException {
+      var symbols = new HighlightedSymbols();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return symbols;
+      }
+      var declaration = new int[4];
+      in.beginArray();
+      while (in.hasNext()) {
+        Arrays.fill(declaration, 0);
+        in.beginObject();
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "declaration":
+              PackedLocations.read(in, declaration);
+              break;
+            case "references":
+              readReferences(in, symbols);
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        in.endObject();
+        symbols.addSymbol(declaration[0], declaration[1], declaration[2], declaration[3]);
+      }
+      in.endArray();
+      return symbols;
+    }
+
+    private static void readReferences(JsonReader in, HighlightedSymbols symbols) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return;
+      }
+      in.beginArray();
+      while (in.hasNext()) {
+        symbols.references.read(in);
+      }
+      in.endArray();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+/**
+ * Syntax highlights of a file, with packed locations and text types stored as ordinals. In JSON, highlights are
+ * objects with a location and the name of a {@link TypeOfText}.
+ */
+@JsonAdapter(value = Highlights.Adapter.class, nullSafe = false)
+final class Highlights {
+
+  private static final TypeOfText[] TYPES = TypeOfText.values();
+
+  private final PackedLocations locations = new PackedLocations();
+  private byte[] types = new byte[16];
+
+  int size() {
+    return locations.size();
+  }
+
+  void add(int startLine, int startCol, int endLine, int endCol, TypeOfText type) {
+    var index = locations.size();
+    if (index == types.length) {
+      types = Arrays.copyOf(types, types.length * 2);
+    }
+    types[index] = (byte) type.ordinal();
+    locations.add(startLine, startCol, endLine, endCol);
+  }
+
+  TextRange toTextRange(int index, LineIndex lineIndex) {
+    return locations.toTextRange(index, lineIndex);
+  }
+
+  TypeOfText type(int index) {
+    return TYPES[types[index]];
+  }
+
+  static class Adapter extends TypeAdapter<Highlights> {
+
+    @Override
+    public void write(JsonWriter out, Highlights highlights) throws IOException {
+      if (highlights == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (var i = 0; i < highlights.size(); i++) {
+        out.beginObject();
+        out.name("location");
+        highlights.locations.write(out, i);
+        out.name("textType").value(highlights.type(i).name());
+        out.endObject();
+      }
+      out.endArray();
+    }
+
+    @Override
+    public Highlights read(JsonReader in) throws IOException {
+      var highlights = new Highlights();
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return highlights;
+      }
+      var location = new int[4];
+      in.beginArray();
+      while (in.hasNext()) {
+        TypeOfText type = null;
+        Arrays.fill(location, 0);
+        in.beginObject();
+        while (in.hasNext()) {
+          switch (in.nextName()) {
+            case "location":
+              PackedLocations.read(in, location);
+              break;
+            case "textType":
+              type = TypeOfText.valueOf(in.nextString());
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        in.endObject();
+        if (type == null) {
+          throw new IOException("Missing text type of highlight at line " + location[0]);
+        }
+        highlights.add(location[0], location[1], location[2], location[3], type);
+      }
+      in.endArray();
+      return highlights;
+    }
+  }
+}
@@ -33,8 +33,8 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.CancellationException;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.JsAnalysisRequest;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
-import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
 import org.sonar.plugins.javascript.eslint.cache.CacheStrategy;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategyPrefetcher;
 import org.sonar.plugins.javascript.utils.ProgressReport;
 
 public class HtmlSensor extends AbstractEslintSensor {
@@ -71,7 +71,7 @@ public class HtmlSensor extends AbstractEslintSensor {
     var progressReport = new ProgressReport("Analysis progress", TimeUnit.SECONDS.toMillis(10));
     analysisMode = AnalysisMode.getMode(context, checks.eslintRules());
     var success = false;
-    try {
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, inputFiles)) {
       progressReport.start(inputFiles.size(), inputFiles.iterator().next().absolutePath());
       eslintBridgeServer.initLinter(AnalysisMode.getHtmlFileRules(checks.eslintRules()), environments, globals, analysisMode);
       for (var inputFile : inputFiles) {
@@ -80,9 +80,12 @@ public class HtmlSensor extends AbstractEslintSensor {
         }
         if (eslintBridgeServer.isAlive()) {
           progressReport.nextFile(inputFile.absolutePath());
-          var cacheStrategy = CacheStrategies.getStrategyFor(context, inputFile);
+          var cacheStrategy = cacheStrategyPrefetcher.strategyFor(inputFile);
           if (cacheStrategy.isAnalysisRequired()) {
             analyze(inputFile, cacheStrategy);
+          } else {
+            // nothing to process, but the cached entries are kept for the next analysis
+            cacheStrategy.readAnalysisFromCache();
           }
         } else {
           throw new IllegalStateException("eslint-bridge server is not answering");
@@ -114,20 +117,23 @@ public class HtmlSensor extends AbstractEslintSensor {
   }
 
   private void analyze(InputFile file, CacheStrategy cacheStrategy) throws IOException {
-    try {
-      LOG.debug("Analyzing file: {}", file.uri());
-      var fileContent = contextUtils.shouldSendFileContent(file) ? file.contents() : null;
+    LOG.debug("Analyzing file: {}", file.uri());
+    try (var content = fileContentHandoff.prepare(file)) {
       var jsAnalysisRequest = new JsAnalysisRequest(
         file.absolutePath(),
         file.type().toString(),
-        fileContent,
+        content.text,
         contextUtils.ignoreHeaderComments(),
         null,
         null,
-        analysisMode.getLinterIdFor(file));
+        analysisMode.getLinterIdFor(file),
+        content.path,
+        content.hash);
       var response = eslintBridgeServer.analyzeHtml(jsAnalysisRequest);
-      analysisProcessor.processResponse(context, checks, file, response);
+      analysisProcessor.processResponse(context, checks, file, response, cpdImages);
       cacheStrategy.writeAnalysisToCache(CacheAnalysis.fromResponse(response.ucfgPaths, response.cpdTokens), file);
+    } catch (FileAnalysisTimeoutException e) {
+      skipFile(file, e);
     } catch (IOException e) {
       LOG.error("Failed to get response while analyzing " + file.uri(), e);
       throw e;
@@ -39,7 +39,7 @@ import org.sonar.plugins.javascript.JavaScriptLanguage;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.JsAnalysisRequest;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
-import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategyPrefetcher;
 import org.sonar.plugins.javascript.eslint.TsConfigProvider.DefaultTsConfigProvider;
 import org.sonar.plugins.javascript.utils.ProgressReport;
 
@@ -52,6 +52,9 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
   private final AnalysisProcessor processAnalysis;
   private final JavaScriptProjectChecker javaScriptProjectChecker;
   private AnalysisMode analysisMode;
+  private AnalysisDeduplication deduplication;
+  private LocalAnalysisCache localCache;
+  private CacheStrategyPrefetcher cacheStrategyPrefetcher;
 
   // This constructor is required to avoid an error in SonarCloud because there's no implementation available for the interface
   // JavaScriptProjectChecker. The implementation for that interface is available only in SonarLint. Unlike SonarCloud,
@@ -93,8 +96,13 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
 
   private void runEslintAnalysis(List<String> tsConfigs, List<InputFile> inputFiles) throws IOException {
     analysisMode = AnalysisMode.getMode(context, checks.eslintRules());
+    deduplication = contextUtils.deduplicateFiles()
+      ? AnalysisDeduplication.create(inputFiles, analysisMode::getLinterIdFor, tsConfigs)
+      : AnalysisDeduplication.disabled();
+    localCache = LocalAnalysisCache.create(context, tsConfigs, checks.eslintRules(), environments, globals, contextUtils.ignoreHeaderComments());
     ProgressReport progressReport = new ProgressReport("Analysis progress", TimeUnit.SECONDS.toMillis(10));
     boolean success = false;
+    cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, inputFiles);
     try {
       progressReport.start(inputFiles.size(), inputFiles.iterator().next().absolutePath());
       eslintBridgeServer.initLinter(checks.eslintRules(), environments, globals, analysisMode);
@@ -110,8 +118,11 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
           throw new IllegalStateException("eslint-bridge server is not answering");
         }
       }
+      deduplication.logReport();
+      localCache.logReport();
       success = true;
     } finally {
+      cacheStrategyPrefetcher.close();
       if (success) {
         progressReport.stop();
       } else {
@@ -121,27 +132,49 @@ public class JavaScriptEslintBasedSensor extends AbstractEslintSensor {
   }
 
   private void analyze(InputFile file, List<String> tsConfigs) throws IOException {
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, file);
+    var cacheStrategy = cacheStrategyPrefetcher.strategyFor(file);
     if (cacheStrategy.isAnalysisRequired()) {
       try {
-        LOG.debug("Analyzing file: {}", file.uri());
-        String fileContent = contextUtils.shouldSendFileContent(file) ? file.contents() : null;
-        JsAnalysisRequest jsAnalysisRequest = new JsAnalysisRequest(file.absolutePath(), file.type().toString(),
-          fileContent, contextUtils.ignoreHeaderComments(), tsConfigs, null, analysisMode.getLinterIdFor(file));
-        AnalysisResponse response = eslintBridgeServer.analyzeJavaScript(jsAnalysisRequest);
-        processAnalysis.processResponse(context, checks, file, response);
+        AnalysisResponse response = deduplication.previousAnalysis(file);
+        if (response == null) {
+          response = analyzeOrReadLocalCache(file, tsConfigs);
+          deduplication.register(file, response);
+        }
+        processAnalysis.processResponse(context, checks, file, response, cpdImages);
         cacheStrategy.writeAnalysisToCache(CacheAnalysis.fromResponse(response.ucfgPaths, response.cpdTokens), file);
+      } catch (FileAnalysisTimeoutException e) {
+        deduplication.release(file);
+        monitoring.stopFile(file, 0, null);
+        skipFile(file, e);
       } catch (IOException e) {
         LOG.error("Failed to get response while analyzing " + file.uri(), e);
         throw e;
       }
     } else {
+      deduplication.release(file);
       LOG.debug("Processing cache analysis of file: {}", file.uri());
       var cacheAnalysis = cacheStrategy.readAnalysisFromCache();
       processAnalysis.processCacheAnalysis(context, file, cacheAnalysis);
     }
   }
 
+  private AnalysisResponse analyzeOrReadLocalCache(InputFile file, List<String> tsConfigs) throws IOException {
+    var linterId = analysisMode.getLinterIdFor(file);
+    var cachedResponse = localCache.read(file, linterId);
+    if (cachedResponse.isPresent()) {
+      return cachedResponse.get();
+    }
+    LOG.debug("Analyzing file: {}", file.uri());
+    AnalysisResponse response;
+    try (var content = fileContentHandoff.prepare(file)) {
+      JsAnalysisRequest jsAnalysisRequest = new JsAnalysisRequest(file.absolutePath(), file.type().toString(),
+        content.text, contextUtils.ignoreHeaderComments(), tsConfigs, null, linterId, content.path, content.hash);
+      response = eslintBridgeServer.analyzeJavaScript(jsAnalysisRequest);
+    }
+    localCache.write(file, linterId, response);
+    return response;
+  }
+
   @Override
   protected List<InputFile> getInputFiles() {
     FileSystem fileSystem = context.fileSystem();
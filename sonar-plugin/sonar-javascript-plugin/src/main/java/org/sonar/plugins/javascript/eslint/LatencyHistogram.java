@@ -0,0 +1,88 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+/**
+ * Histogram of latencies with logarithmic buckets, each power of two being split in {@link #SUB_BUCKETS} linear buckets.
+ * Memory does not depend on the number of recorded values and percentiles are reported with a relative error below 1/16.
+ * Values below {@link #SUB_BUCKETS} are recorded exactly.
+ */
+class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKETS];
+  private long count;
+  private long max;
+
+  void record(long value) {
+    var v = Math.max(0, value);
+    counts[indexOf(v)]++;
+    count++;
+    max = Math.max(max, v);
+  }
+
+  long count() {
+    return count;
+  }
+
+  long max() {
+    return max;
+  }
+
+  /**
+   * Returns the upper bound of the bucket holding the value at the given percentile, capped to the maximum recorded value.
+   */
+  long percentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    var seen = 0L;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    var shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    var subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+  }
+
+  static long upperBoundOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    var shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    var subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1L) << shift) - 1;
+  }
+
+}
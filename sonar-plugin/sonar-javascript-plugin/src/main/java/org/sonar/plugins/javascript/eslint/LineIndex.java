@@ -0,0 +1,187 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.util.Arrays;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextPointer;
+import org.sonar.api.batch.fs.TextRange;
+
+/**
+ * Creates the text ranges of a file with plain arithmetic on line lengths, as validating and allocating them through
+ * {@link InputFile#newRange(int, int, int, int)} dominates the time spent saving the analysis of large files. The length
+ * of a line is read from the input file the first time it is needed. Invalid locations are delegated to the input file,
+ * so that the same exceptions are thrown.
+ */
+class LineIndex {
+
+  private final InputFile file;
+  private final boolean isEnabled;
+  // indexed by line number, -1 until the length of the line is known
+  private int[] lineLengths;
+
+  /**
+   * SonarLint does not validate text ranges, so the index is disabled and ranges are created by the input file.
+   */
+  LineIndex(InputFile file, boolean isEnabled) {
+    this.file = file;
+    this.isEnabled = isEnabled;
+  }
+
+  InputFile file() {
+    return file;
+  }
+
+  TextRange newRange(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+    if (!isEnabled || !isValid(startLine, startLineOffset) || !isValid(endLine, endLineOffset)
+      || compare(startLine, startLineOffset, endLine, endLineOffset) >= 0) {
+      return file.newRange(startLine, startLineOffset, endLine, endLineOffset);
+    }
+    return new Range(new Pointer(startLine, startLineOffset), new Pointer(endLine, endLineOffset));
+  }
+
+  TextRange selectLine(int line) {
+    if (!isEnabled || !isValidLine(line)) {
+      return file.selectLine(line);
+    }
+    return new Range(new Pointer(line, 0), new Pointer(line, lineLength(line)));
+  }
+
+  private boolean isValidLine(int line) {
+    if (lineLengths == null) {
+      lineLengths = new int[file.lines() + 1];
+      Arrays.fill(lineLengths, -1);
+    }
+    return line >= 1 && line < lineLengths.length;
+  }
+
+  private boolean isValid(int line, int lineOffset) {
+    return isValidLine(line) && lineOffset >= 0 && lineOffset <= lineLength(line);
+  }
+
+  private int lineLength(int line) {
+    var length = lineLengths[line];
+    if (length < 0) {
+      length = file.selectLine(line).end().lineOffset();
+      lineLengths[line] = length;
+    }
+    return length;
+  }
+
+  private static int compare(int line, int lineOffset, int otherLine, int otherLineOffset) {
+    if (line != otherLine) {
+      return Integer.compare(line, otherLine);
+    }
+    return Integer.compare(lineOffset, otherLineOffset);
+  }
+
+  /**
+   * Equality only depends on lines and offsets, so that pointers and ranges can be compared with the ones of the input file.
+   */
+  static final class Pointer implements TextPointer {
+
+    private final int line;
+    private final int lineOffset;
+
+    Pointer(int line, int lineOffset) {
+      this.line = line;
+      this.lineOffset = lineOffset;
+    }
+
+    @Override
+    public int line() {
+      return line;
+    }
+
+    @Override
+    public int lineOffset() {
+      return lineOffset;
+    }
+
+    @Override
+    public int compareTo(TextPointer other) {
+      return compare(line, lineOffset, other.line(), other.lineOffset());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TextPointer)) {
+        return false;
+      }
+      var other = (TextPointer) obj;
+      return line == other.line() && lineOffset == other.lineOffset();
+    }
+
+    @Override
+    public int hashCode() {
+      return 37 * line + lineOffset;
+    }
+
+    @Override
+    public String toString() {
+      return "[line=" + line + ", lineOffset=" + lineOffset + "]";
+    }
+  }
+
+  static final class Range implements TextRange {
+
+    private final TextPointer start;
+    private final TextPointer end;
+
+    Range(TextPointer start, TextPointer end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    public TextPointer start() {
+      return start;
+    }
+
+    @Override
+    public TextPointer end() {
+      return end;
+    }
+
+    @Override
+    public boolean overlap(TextRange another) {
+      return end.compareTo(another.start()) > 0 && another.end().compareTo(start) > 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TextRange)) {
+        return false;
+      }
+      var other = (TextRange) obj;
+      return start.equals(other.start()) && end.equals(other.end());
+    }
+
+    @Override
+    public int hashCode() {
+      return start.hashCode() * 17 + end.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Range[from " + start + " to " + end + "]";
+    }
+  }
+}
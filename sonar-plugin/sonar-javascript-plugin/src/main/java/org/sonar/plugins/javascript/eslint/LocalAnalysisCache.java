@@ -0,0 +1,264 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.JavaScriptLanguage;
+import org.sonar.plugins.javascript.TypeScriptLanguage;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+import org.sonar.plugins.javascript.eslint.cache.FileMetadata;
+import org.sonar.plugins.javascript.utils.Hex;
+
+/**
+ * Persistent cache of complete analysis responses, stored on the local disk.
+ * <p>
+ * Unlike the cache of the sensor context, which is only available on SonarQube 9.4+ and only stores CPD tokens
+ * and UCFG files, this cache stores the whole bridge response. Entries are keyed by file path, content hash, fingerprint
+ * of the rules configuration and plugin version, so that an entry is never reused once any of them changes.
+ * The total size of the entries is bounded, the least recently used entries being evicted first.
+ * Responses producing UCFG files are not stored, as those files are generated for a specific analysis.
+ * <p>
+ * The result of an analysis with type information also depends on the files imported by the analyzed file. The
+ * fingerprint then also covers the tsconfig files, the JavaScript and TypeScript files of the project, and the lock
+ * files of its dependencies, so that any change to them invalidates all the entries. This still serves analyses
+ * repeated on the same sources, e.g. CI runs on a same agent.
+ * The performance data of a cached response is dropped on read, as no analysis was performed.
+ */
+class LocalAnalysisCache {
+
+  private static final Logger LOG = Loggers.get(LocalAnalysisCache.class);
+
+  static final String LOCAL_CACHE_ENABLED = "sonar.javascript.localCache";
+  static final String LOCAL_CACHE_PATH = "sonar.javascript.localCache.path";
+  static final String LOCAL_CACHE_MAX_SIZE = "sonar.javascript.localCache.maxSize";
+  static final long DEFAULT_MAX_SIZE_MB = 256;
+  private static final String DEFAULT_DIRECTORY = "js-analysis-cache";
+  private static final String ENTRY_SUFFIX = ".json.gz";
+  private static final List<String> LOCK_FILES = List.of("package-lock.json", "yarn.lock", "pnpm-lock.yaml");
+  private static final Gson GSON = BridgeJson.GSON;
+
+  private final Path directory;
+  private final long maxSize;
+  private final String fingerprint;
+  // access-ordered: iteration starts with the least recently used entry
+  private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalSize;
+  private int hits;
+  private int requests;
+
+  private LocalAnalysisCache(Path directory, long maxSize, String fingerprint) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.fingerprint = fingerprint;
+  }
+
+  static LocalAnalysisCache disabled() {
+    return new LocalAnalysisCache(null, 0, "");
+  }
+
+  /**
+   * @param tsConfigs the tsconfig files providing type information, empty if the analysis does not use it
+   * @param configuration everything sent to the bridge, besides the file, that may change the analysis result
+   */
+  static LocalAnalysisCache create(SensorContext context, List<String> tsConfigs, Object... configuration) {
+    var config = context.config();
+    if (!config.getBoolean(LOCAL_CACHE_ENABLED).orElse(false)) {
+      return disabled();
+    }
+    var directory = config.get(LOCAL_CACHE_PATH).map(Paths::get)
+      .orElse(context.fileSystem().workDir().toPath().resolve(DEFAULT_DIRECTORY));
+    var maxSize = config.getLong(LOCAL_CACHE_MAX_SIZE).orElse(DEFAULT_MAX_SIZE_MB) * 1024 * 1024;
+    LocalAnalysisCache cache;
+    try {
+      cache = new LocalAnalysisCache(directory, maxSize, fingerprint(programFingerprint(context, tsConfigs), configuration));
+      cache.load();
+    } catch (IOException e) {
+      LOG.warn("Failed to load the local analysis cache from " + directory + ", it will be disabled", e);
+      return disabled();
+    }
+    return cache;
+  }
+
+  static String fingerprint(Object... configuration) {
+    var json = GSON.toJson(List.of(PluginInfo.getVersion() == null ? "" : PluginInfo.getVersion(), configuration));
+    return sha256(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String programFingerprint(SensorContext context, List<String> tsConfigs) throws IOException {
+    if (tsConfigs.isEmpty()) {
+      return "";
+    }
+    var digest = sha256Digest();
+    for (var tsConfig : tsConfigs) {
+      digest.update(Files.readAllBytes(Paths.get(tsConfig)));
+    }
+    var fileSystem = context.fileSystem();
+    var inputFiles = new ArrayList<InputFile>();
+    fileSystem.inputFiles(fileSystem.predicates().hasLanguages(JavaScriptLanguage.KEY, TypeScriptLanguage.KEY)).forEach(inputFiles::add);
+    inputFiles.sort(Comparator.comparing(InputFile::key));
+    for (var inputFile : inputFiles) {
+      digest.update(inputFile.key().getBytes(StandardCharsets.UTF_8));
+      digest.update(FileMetadata.computeHash(inputFile));
+    }
+    for (var lockFile : LOCK_FILES) {
+      var path = fileSystem.baseDir().toPath().resolve(lockFile);
+      if (Files.isRegularFile(path)) {
+        digest.update(Files.readAllBytes(path));
+      }
+    }
+    return Hex.encode(digest.digest());
+  }
+
+  private void load() throws IOException {
+    Files.createDirectories(directory);
+    Map<Path, FileTime> lastAccess = new HashMap<>();
+    List<Path> files;
+    try (var stream = Files.list(directory)) {
+      files = stream.filter(file -> file.getFileName().toString().endsWith(ENTRY_SUFFIX)).collect(Collectors.toList());
+    }
+    for (var file : files) {
+      lastAccess.put(file, Files.getLastModifiedTime(file));
+    }
+    files.sort(Comparator.comparing(lastAccess::get));
+    for (var file : files) {
+      var size = Files.size(file);
+      entries.put(file, size);
+      totalSize += size;
+    }
+    LOG.debug("Local analysis cache loaded from {} with {} entries", directory, entries.size());
+  }
+
+  boolean isEnabled() {
+    return directory != null;
+  }
+
+  Optional<AnalysisResponse> read(InputFile file, String linterId) {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    requests++;
+    try {
+      var entry = entryFor(file, linterId);
+      if (entries.get(entry) == null) {
+        return Optional.empty();
+      }
+      AnalysisResponse response;
+      try (var reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(entry)), StandardCharsets.UTF_8)) {
+        response = GSON.fromJson(reader, AnalysisResponse.class);
+      }
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      if (response == null) {
+        return Optional.empty();
+      }
+      response.perf = null;
+      hits++;
+      LOG.debug("Local analysis cache hit for file: {}", file.uri());
+      return Optional.of(response);
+    } catch (IOException | JsonParseException e) {
+      LOG.debug("Failed to read local analysis cache entry for file " + file.uri(), e);
+      return Optional.empty();
+    }
+  }
+
+  void write(InputFile file, String linterId, AnalysisResponse response) {
+    if (!isEnabled() || !response.ucfgPaths.isEmpty()) {
+      return;
+    }
+    try {
+      var entry = entryFor(file, linterId);
+      var temp = Files.createTempFile(directory, "entry", ".tmp");
+      try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8)) {
+        GSON.toJson(response, writer);
+      }
+      Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      var size = Files.size(entry);
+      var previous = entries.put(entry, size);
+      totalSize += size - (previous == null ? 0 : previous);
+      evict();
+    } catch (IOException e) {
+      LOG.debug("Failed to write local analysis cache entry for file " + file.uri(), e);
+    }
+  }
+
+  private void evict() throws IOException {
+    var iterator = entries.entrySet().iterator();
+    while (totalSize > maxSize && iterator.hasNext()) {
+      var entry = iterator.next();
+      Files.deleteIfExists(entry.getKey());
+      totalSize -= entry.getValue();
+      iterator.remove();
+    }
+  }
+
+  private Path entryFor(InputFile file, String linterId) throws IOException {
+    var key = String.join(":", fingerprint, linterId, file.type().toString(), String.valueOf(file.language()), file.key(),
+      Hex.encode(FileMetadata.computeHash(file)));
+    return directory.resolve(sha256(key.getBytes(StandardCharsets.UTF_8)) + ENTRY_SUFFIX);
+  }
+
+  private static String sha256(byte[] bytes) {
+    return Hex.encode(sha256Digest().digest(bytes));
+  }
+
+  private static MessageDigest sha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  long size() {
+    return totalSize;
+  }
+
+  void logReport() {
+    if (isEnabled()) {
+      LOG.info("Local analysis cache hit for {} out of {} file(s)", hits, requests);
+    }
+  }
+}
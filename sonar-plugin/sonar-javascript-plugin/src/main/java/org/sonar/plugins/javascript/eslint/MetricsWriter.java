@@ -0,0 +1,163 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Appends metrics to metrics.json as they are produced, so that they are not retained until the end of the analysis.
+ * Metrics are serialized on a background thread. The queue is bounded, producers wait when the writer falls behind.
+ */
+class MetricsWriter {
+
+  private static final Logger LOG = Loggers.get(MetricsWriter.class);
+
+  static final String METRICS_FILE = "metrics.json";
+  static final int QUEUE_CAPACITY = 1_024;
+
+  private static final Gson GSON = new GsonBuilder().create();
+  private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+    .withZone(ZoneId.systemDefault());
+  private static final Object END = new Object();
+
+  private final Supplier<Path> monitoringPath;
+  private final String executionId;
+  private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+  private Thread thread;
+  private boolean append;
+  private volatile Exception failure;
+
+  MetricsWriter(Supplier<Path> monitoringPath, String executionId) {
+    this.monitoringPath = monitoringPath;
+    this.executionId = executionId;
+  }
+
+  synchronized void write(Monitoring.Metric metric) {
+    startLazily();
+    put(metric);
+  }
+
+  /**
+   * Waits for the pending metrics to be written and closes the file. A later write opens the file again in append mode.
+   */
+  synchronized void close() {
+    startLazily();
+    put(END);
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    thread = null;
+    var error = failure;
+    failure = null;
+    if (error != null) {
+      LOG.error("Failed to save metrics", error);
+      throw new IllegalStateException("Failed to write metrics", error);
+    }
+  }
+
+  private void startLazily() {
+    if (thread == null) {
+      thread = new Thread(this::run, "sonarjs-monitoring-writer");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void put(Object item) {
+    try {
+      queue.put(item);
+    } catch (InterruptedException e) {
+      LOG.debug("Interrupted while queuing metric, it will not be saved");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    try (var writer = openWriter()) {
+      Object item;
+      while ((item = queue.take()) != END) {
+        writeMetric(writer, (Monitoring.Metric) item);
+        if (queue.isEmpty()) {
+          writer.flush();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      failure = e;
+      discardUntilEnd();
+    }
+  }
+
+  private BufferedWriter openWriter() throws IOException {
+    var path = monitoringPath.get();
+    var file = path.resolve(METRICS_FILE);
+    LOG.info("Saving performance metrics with executionId {} to {}", executionId, file);
+    Files.createDirectories(path);
+    var writer = append
+      ? Files.newBufferedWriter(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+      : Files.newBufferedWriter(file);
+    append = true;
+    return writer;
+  }
+
+  private static void writeMetric(BufferedWriter writer, Monitoring.Metric metric) throws IOException {
+    metric.timestamp = formatTimestamp(metric.timestampMillis);
+    // each metric is written on separate line - this format is used by AWS Athena
+    writer.write(GSON.toJson(metric));
+    writer.write('\n');
+  }
+
+  static String formatTimestamp(long epochMillis) {
+    return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(epochMillis));
+  }
+
+  /**
+   * Keeps consuming the queue after a failure, so that producers never wait on a writer that stopped.
+   */
+  private void discardUntilEnd() {
+    try {
+      Object item;
+      do {
+        item = queue.take();
+      } while (item != END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
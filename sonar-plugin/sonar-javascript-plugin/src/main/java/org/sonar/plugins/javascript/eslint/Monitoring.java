@@ -19,19 +19,17 @@
  */
 package org.sonar.plugins.javascript.eslint;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import java.io.BufferedWriter;
-import java.io.IOException;
 import java.io.Serializable;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.UUID;
+import javax.annotation.Nullable;
 import org.sonar.api.Startable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.Sensor;
@@ -41,11 +39,16 @@ import org.sonar.api.scanner.ScannerSide;
 import org.sonar.api.utils.ManifestUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.eslint.cache.CacheStatistics;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 
+import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.CACHE;
 import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.FILE;
+import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.LATENCY;
+import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.PROCESS;
 import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.PROGRAM;
 import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.RULE;
+import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.RULE_FILE;
 import static org.sonar.plugins.javascript.eslint.Monitoring.MetricType.SENSOR;
 import static org.sonarsource.api.sonarlint.SonarLintSide.MULTIPLE_ANALYSES;
 
@@ -55,26 +58,35 @@ public class Monitoring implements Startable {
 
   private static final Logger LOG = Loggers.get(Monitoring.class);
 
+  // number of the slowest (rule, file) pairs reported at the end of each sensor
+  static final int SLOWEST_RULE_FILES = 20;
+
   private static final String MONITORING_ON = "sonar.javascript.monitoring";
   private static final String MONITORING_PATH = "sonar.javascript.monitoring.path";
 
-  private final List<Metric> metrics = new ArrayList<>();
   private final Configuration configuration;
+  private final MetricsWriter metricsWriter;
 
-  private boolean enabled;
+  private volatile boolean enabled;
   private boolean canSkipUnchangedFiles;
-  private SensorMetric sensorMetric;
+  private volatile SensorMetric sensorMetric;
   private FileMetric fileMetric;
   private ProgramMetric programMetric;
+  private Map<Phase, LatencyHistogram> latencies;
+  private Map<String, Long> ruleTimes;
+  private PriorityQueue<RuleFileMetric> slowestRuleFiles;
   private final String executionId;
 
   public Monitoring(Configuration configuration) {
     this.configuration = configuration;
     this.executionId = UUID.randomUUID().toString();
+    this.metricsWriter = new MetricsWriter(this::monitoringPath, executionId);
   }
 
   void startSensor(SensorContext sensorContext, Sensor sensor) {
     this.enabled = isMonitoringEnabled();
+    // a file whose analysis failed is never stopped
+    fileMetric = null;
     if (!enabled) {
       return;
     }
@@ -86,6 +98,9 @@ public class Monitoring implements Startable {
     sensorMetric = new SensorMetric(executionId, canSkipUnchangedFiles);
     sensorMetric.component = sensor.getClass().getCanonicalName();
     sensorMetric.projectKey = sensorContext.project().key();
+    latencies = new EnumMap<>(Phase.class);
+    ruleTimes = new HashMap<>();
+    slowestRuleFiles = new PriorityQueue<>(Comparator.comparingLong(metric -> metric.time));
   }
 
   void stopSensor() {
@@ -93,7 +108,40 @@ public class Monitoring implements Startable {
       return;
     }
     sensorMetric.duration = sensorMetric.clock.stop();
-    metrics.add(sensorMetric);
+    latencies.forEach(this::writeLatencyMetric);
+    writeRuleMetrics();
+    writeSlowestRuleFiles();
+    metricsWriter.write(sensorMetric);
+  }
+
+  /**
+   * Records the duration of a phase of the analysis, measured from the given {@link System#nanoTime()} value. The request
+   * time of a file is only recorded while that file is open, as some sensors query eslint-bridge without opening files.
+   */
+  void recordPhase(Phase phase, long startNanos) {
+    if (!enabled) {
+      return;
+    }
+    var duration = (System.nanoTime() - startNanos) / 1_000;
+    recordPhaseDuration(phase, duration);
+    if (phase == Phase.BRIDGE_REQUEST && fileMetric != null) {
+      fileMetric.requestTime = duration;
+    }
+  }
+
+  private void recordPhaseDuration(Phase phase, long duration) {
+    latencies.computeIfAbsent(phase, key -> new LatencyHistogram()).record(duration);
+  }
+
+  private void writeLatencyMetric(Phase phase, LatencyHistogram histogram) {
+    var latencyMetric = new LatencyMetric(phase, executionId, sensorMetric.projectKey, canSkipUnchangedFiles);
+    latencyMetric.component = sensorMetric.component;
+    latencyMetric.count = histogram.count();
+    latencyMetric.p50 = histogram.percentile(50);
+    latencyMetric.p95 = histogram.percentile(95);
+    latencyMetric.p99 = histogram.percentile(99);
+    latencyMetric.max = histogram.max();
+    metricsWriter.write(latencyMetric);
   }
 
   void startFile(InputFile inputFile) {
@@ -106,18 +154,43 @@ public class Monitoring implements Startable {
     sensorMetric.fileCount++;
   }
 
-  public void stopFile(InputFile inputFile, int ncloc, EslintBridgeServer.Perf perf) {
+  /**
+   * @param perf performance data of the bridge, null when the response was not produced by an analysis, e.g. read from a cache
+   */
+  public void stopFile(InputFile inputFile, int ncloc, @Nullable EslintBridgeServer.Perf perf) {
     if (!enabled) {
       return;
     }
-    fileMetric.duration = fileMetric.clock.stop();
-    if (!fileMetric.component.equals(inputFile.toString())) {
+    if (fileMetric == null || !fileMetric.component.equals(inputFile.toString())) {
       throw new IllegalStateException("Mismatched Monitoring.startFile / stopFile");
     }
+    fileMetric.duration = fileMetric.clock.stop();
     fileMetric.ncloc = ncloc;
+    if (perf != null) {
+      recordPerf(perf);
+    }
+    // the metric is written asynchronously, so it must not be updated anymore
+    metricsWriter.write(fileMetric);
+    fileMetric = null;
+  }
+
+  private void recordPerf(EslintBridgeServer.Perf perf) {
     fileMetric.parseTime = perf.parseTime;
     fileMetric.analysisTime = perf.analysisTime;
-    metrics.add(fileMetric);
+    recordPhaseDuration(Phase.NODE_PARSE, perf.parseTime);
+    recordPhaseDuration(Phase.NODE_ANALYSIS, perf.analysisTime);
+    if (perf.ruleTimes != null) {
+      fileMetric.ruleTimes = perf.ruleTimes;
+      perf.ruleTimes.forEach((ruleKey, time) -> {
+        // the map is deserialized from the bridge response, where a time may be missing
+        if (time != null) {
+          recordRuleTime(ruleKey, fileMetric.component, time);
+        }
+      });
+    }
+    if (fileMetric.requestTime > 0) {
+      recordPhaseDuration(Phase.HTTP_TRANSFER, Math.max(0, fileMetric.requestTime - perf.parseTime - perf.analysisTime));
+    }
   }
 
   @Override
@@ -125,31 +198,16 @@ public class Monitoring implements Startable {
     // not used
   }
 
+  /**
+   * Synchronized with {@link #recordProcessStatus}, so that the heartbeat does not start the writer again once closed.
+   */
   @Override
-  public void stop() {
+  public synchronized void stop() {
     if (!enabled) {
       return;
     }
-    saveMetrics();
-  }
-
-  private void saveMetrics() {
-    Path monitoringPath = monitoringPath();
-    Gson gson = new GsonBuilder().create();
-    try {
-      Path path = monitoringPath.resolve("metrics.json");
-      LOG.info("Saving performance metrics with executionId {} to {}", executionId, path);
-      Files.createDirectories(monitoringPath);
-      try (BufferedWriter bw = Files.newBufferedWriter(path)) {
-        for (Metric metric : metrics) {
-          // each metric is written on separate line - this format is used by AWS Athena
-          bw.write(gson.toJson(metric) + "\n");
-        }
-      }
-    } catch (IOException e) {
-      LOG.error("Failed to save metrics", e);
-      throw new IllegalStateException("Failed to write metrics", e);
-    }
+    sensorMetric = null;
+    metricsWriter.close();
   }
 
   public boolean isMonitoringEnabled() {
@@ -161,9 +219,61 @@ public class Monitoring implements Startable {
       .orElseThrow(() -> new IllegalStateException("Monitoring path " + MONITORING_PATH + " not configured"));
   }
 
-  public void ruleStatistics(String ruleKey, double timeMs, double relative) {
-    var ruleMetric = new RuleMetric(ruleKey, timeMs, relative, sensorMetric.projectKey, executionId, canSkipUnchangedFiles);
-    metrics.add(ruleMetric);
+  private void recordRuleTime(String ruleKey, String file, int time) {
+    ruleTimes.merge(ruleKey, (long) time, Long::sum);
+    if (slowestRuleFiles.size() < SLOWEST_RULE_FILES) {
+      slowestRuleFiles.add(new RuleFileMetric(ruleKey, file, time, executionId, sensorMetric.projectKey, canSkipUnchangedFiles));
+    } else if (time > slowestRuleFiles.peek().time) {
+      slowestRuleFiles.poll();
+      slowestRuleFiles.add(new RuleFileMetric(ruleKey, file, time, executionId, sensorMetric.projectKey, canSkipUnchangedFiles));
+    }
+  }
+
+  private void writeRuleMetrics() {
+    var total = ruleTimes.values().stream().mapToLong(Long::longValue).sum();
+    ruleTimes.entrySet().stream()
+      .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+      .forEach(entry -> {
+        var time = entry.getValue();
+        var relative = total == 0 ? 0 : (100.0 * time / total);
+        metricsWriter.write(new RuleMetric(entry.getKey(), time / 1_000.0, relative, sensorMetric.projectKey, executionId, canSkipUnchangedFiles));
+      });
+  }
+
+  private void writeSlowestRuleFiles() {
+    if (slowestRuleFiles.isEmpty()) {
+      return;
+    }
+    var slowest = new ArrayList<>(slowestRuleFiles);
+    slowest.sort(Comparator.comparingLong((RuleFileMetric metric) -> metric.time).reversed());
+    LOG.info("Slowest rules on a single file:");
+    for (var i = 0; i < slowest.size(); i++) {
+      var metric = slowest.get(i);
+      metric.rank = i + 1;
+      LOG.info(String.format("  %s on %s: %.3f ms", metric.ruleKey, metric.component, metric.time / 1_000.0));
+      metricsWriter.write(metric);
+    }
+  }
+
+  /**
+   * Records a sample of the resources used by eslint-bridge, called from the heartbeat thread. Samples are dropped until a
+   * sensor starts again after {@link #stop()}.
+   */
+  synchronized void recordProcessStatus(EslintBridgeServer.ProcessStatus processStatus) {
+    var currentSensor = sensorMetric;
+    if (!enabled || currentSensor == null) {
+      return;
+    }
+    var processMetric = new ProcessMetric(executionId, currentSensor.projectKey, canSkipUnchangedFiles);
+    processMetric.component = currentSensor.component;
+    processMetric.heapUsed = processStatus.heapUsed;
+    processMetric.heapTotal = processStatus.heapTotal;
+    processMetric.heapLimit = processStatus.heapLimit;
+    processMetric.rss = processStatus.rss;
+    processMetric.eventLoopLag = processStatus.eventLoopLag;
+    processMetric.eventLoopLagMax = processStatus.eventLoopLagMax;
+    processMetric.programs = processStatus.programs;
+    metricsWriter.write(processMetric);
   }
 
   public void startProgram(String tsConfig) {
@@ -178,15 +288,41 @@ public class Monitoring implements Startable {
       return;
     }
     programMetric.duration = programMetric.clock.stop();
-    metrics.add(programMetric);
+    metricsWriter.write(programMetric);
   }
 
-  List<Metric> metrics() {
-    return metrics;
+  void cacheStatistics(CacheStatistics statistics) {
+    if (!enabled) {
+      return;
+    }
+    var cacheMetric = new CacheMetric(executionId, sensorMetric.projectKey, canSkipUnchangedFiles);
+    cacheMetric.component = sensorMetric.component;
+    cacheMetric.hits = statistics.getHits();
+    cacheMetric.misses = statistics.getMisses();
+    cacheMetric.bytesRead = statistics.getBytesRead();
+    cacheMetric.bytesWritten = statistics.getBytesWritten();
+    cacheMetric.stages = statistics.getStages();
+    metricsWriter.write(cacheMetric);
   }
 
   enum MetricType {
-    SENSOR, FILE, RULE, PROGRAM
+    SENSOR, FILE, RULE, RULE_FILE, PROGRAM, CACHE, LATENCY, PROCESS
+  }
+
+  enum Phase {
+    REQUEST_SERIALIZATION,
+    // round trip of the request to eslint-bridge, including parsing and analysis in Node.js
+    BRIDGE_REQUEST,
+    // round trip without the time spent in Node.js parsing and analysis
+    HTTP_TRANSFER,
+    NODE_PARSE,
+    NODE_ANALYSIS,
+    RESPONSE_DESERIALIZATION,
+    SAVE_METRICS,
+    SAVE_ISSUES,
+    SAVE_HIGHLIGHTS,
+    SAVE_SYMBOLS,
+    SAVE_CPD
   }
 
 
@@ -200,20 +336,28 @@ public class Monitoring implements Startable {
     // sha of the commit
     String pluginBuild;
     final String executionId;
-    final String timestamp;
+    // formatted from timestampMillis when the metric is written
+    String timestamp;
     // transient to exclude field from json
+    final transient long timestampMillis = System.currentTimeMillis();
     transient Clock clock = new Clock();
 
     Metric(MetricType metricType, String executionId, boolean canSkipUnchangedFiles) {
       this.executionId = executionId;
       pluginVersion = PluginInfo.getVersion();
-      pluginBuild = ManifestUtils.getPropertyValues(Metric.class.getClassLoader(), "Implementation-Build").get(0);
+      pluginBuild = PluginBuild.VALUE;
       this.metricType = metricType;
-      this.timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
       this.canSkipUnchangedFiles = canSkipUnchangedFiles;
     }
   }
 
+  /**
+   * Reads the manifest once, on the first metric.
+   */
+  private static class PluginBuild {
+    static final String VALUE = ManifestUtils.getPropertyValues(Metric.class.getClassLoader(), "Implementation-Build").get(0);
+  }
+
   static class SensorMetric extends Metric {
     int fileCount;
     long duration;
@@ -230,7 +374,10 @@ public class Monitoring implements Startable {
     // time is measured in microseconds
     int parseTime;
     int analysisTime;
+    long requestTime;
     long duration;
+    // time spent by each rule on the file, only available when eslint-bridge times the rules
+    Map<String, Integer> ruleTimes;
 
     FileMetric(String executionId, String projectKey, boolean canSkipUnchangedFiles) {
       super(FILE, executionId, canSkipUnchangedFiles);
@@ -266,6 +413,23 @@ public class Monitoring implements Startable {
     }
   }
 
+  static class RuleFileMetric extends Metric {
+
+    String ruleKey;
+    // time is measured in microseconds
+    long time;
+    // position among the slowest (rule, file) pairs of the sensor, 1 - slowest
+    int rank;
+
+    RuleFileMetric(String ruleKey, String file, long time, String executionId, String projectKey, boolean canSkipUnchangedFiles) {
+      super(RULE_FILE, executionId, canSkipUnchangedFiles);
+      this.ruleKey = ruleKey;
+      this.component = file;
+      this.time = time;
+      this.projectKey = projectKey;
+    }
+  }
+
   static class ProgramMetric extends Metric {
 
     String tsConfig;
@@ -278,4 +442,54 @@ public class Monitoring implements Startable {
     }
   }
 
+  static class CacheMetric extends Metric {
+
+    long hits;
+    Map<String, Long> misses;
+    long bytesRead;
+    long bytesWritten;
+    // count, total and max time of each stage, time is measured in microseconds
+    Map<String, CacheStatistics.StageStatistics> stages;
+
+    CacheMetric(String executionId, String projectKey, boolean canSkipUnchangedFiles) {
+      super(CACHE, executionId, canSkipUnchangedFiles);
+      this.projectKey = projectKey;
+    }
+  }
+
+  static class LatencyMetric extends Metric {
+
+    Phase phase;
+    long count;
+    // time is measured in microseconds
+    long p50;
+    long p95;
+    long p99;
+    long max;
+
+    LatencyMetric(Phase phase, String executionId, String projectKey, boolean canSkipUnchangedFiles) {
+      super(LATENCY, executionId, canSkipUnchangedFiles);
+      this.phase = phase;
+      this.projectKey = projectKey;
+    }
+  }
+
+  static class ProcessMetric extends Metric {
+
+    // memory is measured in bytes
+    long heapUsed;
+    long heapTotal;
+    long heapLimit;
+    long rss;
+    // event loop delays are measured in milliseconds
+    double eventLoopLag;
+    double eventLoopLagMax;
+    int programs;
+
+    ProcessMetric(String executionId, String projectKey, boolean canSkipUnchangedFiles) {
+      super(PROCESS, executionId, canSkipUnchangedFiles);
+      this.projectKey = projectKey;
+    }
+  }
+
 }
@@ -0,0 +1,132 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import org.sonar.api.batch.fs.TextRange;
+
+/**
+ * Locations of an analysis response packed into a single array, with 4 values per location: start line, start column,
+ * end line and end column. It replaces an object per location for the highlights, symbols and CPD tokens of a file.
+ */
+final class PackedLocations {
+
+  private static final int FIELDS = 4;
+
+  private int[] values;
+  private int size;
+
+  PackedLocations() {
+    this(16);
+  }
+
+  PackedLocations(int capacity) {
+    values = new int[Math.max(1, capacity) * FIELDS];
+  }
+
+  int size() {
+    return size;
+  }
+
+  void add(int startLine, int startCol, int endLine, int endCol) {
+    if ((size + 1) * FIELDS > values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+    }
+    var offset = size * FIELDS;
+    values[offset] = startLine;
+    values[offset + 1] = startCol;
+    values[offset + 2] = endLine;
+    values[offset + 3] = endCol;
+    size++;
+  }
+
+  int startLine(int index) {
+    return values[index * FIELDS];
+  }
+
+  int startCol(int index) {
+    return values[index * FIELDS + 1];
+  }
+
+  int endLine(int index) {
+    return values[index * FIELDS + 2];
+  }
+
+  int endCol(int index) {
+    return values[index * FIELDS + 3];
+  }
+
+  TextRange toTextRange(int index, LineIndex lineIndex) {
+    var offset = index * FIELDS;
+    return lineIndex.newRange(values[offset], values[offset + 1], values[offset + 2], values[offset + 3]);
+  }
+
+  /**
+   * Reads a location sent by eslint-bridge, i.e. an object with the fields startLine, startCol, endLine and endCol.
+   */
+  void read(JsonReader in) throws IOException {
+    var location = new int[FIELDS];
+    read(in, location);
+    add(location[0], location[1], location[2], location[3]);
+  }
+
+  /**
+   * Reads a location into the given array of 4 values, for locations stored along with other data.
+   */
+  static void read(JsonReader in, int[] location) throws IOException {
+    Arrays.fill(location, 0);
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "startLine":
+          location[0] = in.nextInt();
+          break;
+        case "startCol":
+          location[1] = in.nextInt();
+          break;
+        case "endLine":
+          location[2] = in.nextInt();
+          break;
+        case "endCol":
+          location[3] = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+  }
+
+  void write(JsonWriter out, int index) throws IOException {
+    out.beginObject();
+    out.name("startLine").value(startLine(index));
+    out.name("startCol").value(startCol(index));
+    out.name("endLine").value(endLine(index));
+    out.name("endCol").value(endCol(index));
+    out.endObject();
+  }
+
+  boolean equals(int index, PackedLocations other, int otherIndex) {
+    return Arrays.equals(values, index * FIELDS, (index + 1) * FIELDS, other.values, otherIndex * FIELDS, (otherIndex + 1) * FIELDS);
+  }
+}
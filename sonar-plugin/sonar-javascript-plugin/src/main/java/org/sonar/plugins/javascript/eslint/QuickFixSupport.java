@@ -19,7 +19,6 @@
  */
 package org.sonar.plugins.javascript.eslint;
 
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonarsource.sonarlint.plugin.api.issue.NewSonarLintIssue;
@@ -36,14 +35,15 @@ class QuickFixSupport {
     // utility class
   }
 
-  static void addQuickFixes(EslintBridgeServer.Issue issue, NewSonarLintIssue sonarLintIssue, InputFile file) {
+  static void addQuickFixes(EslintBridgeServer.Issue issue, NewSonarLintIssue sonarLintIssue, LineIndex lineIndex) {
+    var file = lineIndex.file();
     issue.quickFixes.forEach(qf -> {
       LOG.debug("Adding quick fix for issue {} at line {}", issue.ruleId, issue.line);
       var quickFix = sonarLintIssue.newQuickFix();
       var fileEdit = quickFix.newInputFileEdit();
       qf.edits.forEach(e -> {
         var textEdit = fileEdit.newTextEdit();
-        textEdit.at(file.newRange(e.loc.line, e.loc.column, e.loc.endLine, e.loc.endColumn)).withNewText(e.text);
+        textEdit.at(lineIndex.newRange(e.loc.line, e.loc.column, e.loc.endLine, e.loc.endColumn)).withNewText(e.text);
         fileEdit.on(file).addTextEdit(textEdit);
       });
       quickFix
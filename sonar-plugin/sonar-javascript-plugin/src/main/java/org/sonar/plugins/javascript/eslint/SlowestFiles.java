@@ -0,0 +1,96 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Keeps the files with the longest analysis requests to eslint-bridge, as well as the files skipped because their
+ * analysis exceeded the deadline, to report them at the end of the analysis.
+ */
+class SlowestFiles {
+
+  private static final Logger LOG = Loggers.get(SlowestFiles.class);
+
+  // number of the slowest files reported at the end of the analysis
+  static final int SLOWEST_FILES = 10;
+
+  private final PriorityQueue<FileTime> slowest = new PriorityQueue<>(Comparator.comparingLong(fileTime -> fileTime.nanos));
+  private final List<String> skipped = new ArrayList<>();
+
+  void record(String filePath, long nanos, boolean isSkipped) {
+    if (isSkipped) {
+      skipped.add(filePath);
+    }
+    if (slowest.size() < SLOWEST_FILES) {
+      slowest.add(new FileTime(filePath, nanos, isSkipped));
+    } else if (nanos > slowest.peek().nanos) {
+      slowest.poll();
+      slowest.add(new FileTime(filePath, nanos, isSkipped));
+    }
+  }
+
+  List<FileTime> ranked() {
+    var ranked = new ArrayList<>(slowest);
+    ranked.sort(Comparator.comparingLong((FileTime fileTime) -> fileTime.nanos).reversed());
+    return ranked;
+  }
+
+  List<String> skipped() {
+    return skipped;
+  }
+
+  void logReport(int fileTimeoutSeconds) {
+    if (slowest.isEmpty()) {
+      return;
+    }
+    LOG.info("Slowest files analyzed by eslint-bridge:");
+    var ranked = ranked();
+    for (var i = 0; i < ranked.size(); i++) {
+      var fileTime = ranked.get(i);
+      LOG.info(String.format("  %d. %s: %.3f ms%s", i + 1, fileTime.filePath, fileTime.nanos / 1_000_000.0, fileTime.skipped ? " (skipped)" : ""));
+    }
+    if (!skipped.isEmpty()) {
+      LOG.warn("{} file(s) skipped as their analysis exceeded the deadline of {} seconds: {}", skipped.size(), fileTimeoutSeconds, String.join(", ", skipped));
+    }
+  }
+
+  void reset() {
+    slowest.clear();
+    skipped.clear();
+  }
+
+  static class FileTime {
+    final String filePath;
+    final long nanos;
+    final boolean skipped;
+
+    FileTime(String filePath, long nanos, boolean skipped) {
+      this.filePath = filePath;
+      this.nanos = nanos;
+      this.skipped = skipped;
+    }
+  }
+}
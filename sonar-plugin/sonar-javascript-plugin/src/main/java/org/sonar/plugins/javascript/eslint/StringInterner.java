@@ -0,0 +1,120 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.lang.String.format;
+
+/**
+ * Bounded interner shared by all the files of a sensor. Once full, strings which are not yet interned are returned as is,
+ * as the first strings of a sensor are also the most common ones, e.g. keywords and punctuators in CPD token images.
+ * Each sensor execution creates its own instance and drops it when it ends, so that strings are neither retained
+ * across sensors and scans nor shared between concurrent analyses.
+ */
+public final class StringInterner {
+
+  private static final Logger LOG = Loggers.get(StringInterner.class);
+
+  static final int DEFAULT_MAX_SIZE = 50_000;
+
+  // approximate size of a string with compact Latin-1 content: object header and fields plus array header
+  private static final int STRING_OVERHEAD_BYTES = 40;
+
+  private final String name;
+  private final int maxSize;
+  private final Map<String, String> strings = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder savedBytes = new LongAdder();
+
+  StringInterner(String name, int maxSize) {
+    this.name = name;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Interner of the images of CPD tokens, both received from eslint-bridge and read from the cache.
+   */
+  public static StringInterner forCpdImages() {
+    return new StringInterner("CPD token images", DEFAULT_MAX_SIZE);
+  }
+
+  @CheckForNull
+  public String intern(@Nullable String string) {
+    if (string == null) {
+      return null;
+    }
+    var interned = strings.get(string);
+    if (interned == null && strings.size() < maxSize) {
+      interned = strings.putIfAbsent(string, string);
+    }
+    if (interned == null) {
+      misses.increment();
+      return string;
+    }
+    hits.increment();
+    if (interned != string) {
+      savedBytes.add(STRING_OVERHEAD_BYTES + (long) string.length());
+    }
+    return interned;
+  }
+
+  int size() {
+    return strings.size();
+  }
+
+  long hits() {
+    return hits.sum();
+  }
+
+  long misses() {
+    return misses.sum();
+  }
+
+  double hitRatio() {
+    var hitCount = hits.sum();
+    var total = hitCount + misses.sum();
+    return total == 0 ? 0 : ((double) hitCount / total);
+  }
+
+  /**
+   * Heap saved by returning interned strings instead of duplicates, assuming that duplicates become garbage.
+   */
+  long savedBytes() {
+    return savedBytes.sum();
+  }
+
+  public void logReport() {
+    var total = hits.sum() + misses.sum();
+    if (total == 0) {
+      return;
+    }
+    LOG.debug(format("Interned %s: %d distinct out of %d (max %d), hit ratio %.1f%%, saved about %d KB of heap",
+      name, size(), total, maxSize, hitRatio() * 100, savedBytes() / 1024));
+  }
+
+}
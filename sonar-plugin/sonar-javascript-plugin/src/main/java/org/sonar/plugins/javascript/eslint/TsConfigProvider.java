@@ -23,19 +23,23 @@ import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.function.Function;
 import javax.annotation.Nullable;
+import org.sonar.api.CoreProperties;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FileSystem;
@@ -46,6 +50,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.JavaScriptFilePredicate;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
+import org.sonar.plugins.javascript.filter.PathAssessor;
 import org.sonarsource.analyzer.commons.FileProvider;
 
 import static java.util.Collections.emptyList;
@@ -152,30 +157,115 @@ class TsConfigProvider {
     }
   }
 
+  /**
+   * Looks up tsconfig.json files below the base directory. Directories are listed in parallel, and the ones which
+   * cannot contain relevant files are not entered: dependencies, VCS metadata, the scanner working directory and the
+   * directories excluded with sonar.javascript.exclusions and sonar.typescript.exclusions. Symbolic links are followed,
+   * but each directory is only listed once, based on its real path, so that link cycles end the lookup.
+   */
   static class LookupTsConfigProvider implements Provider {
 
+    // internal property to limit the depth of the lookup below the base directory
+    static final String MAX_DEPTH_PROPERTY = "sonar.typescript.tsconfigLookup.maxDepth";
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of("node_modules", ".git", ".svn", ".hg", ".scannerwork");
+    private static final int MAX_THREADS = 8;
+
     @Override
     public List<String> tsconfigs(SensorContext context) {
-      var fs = context.fileSystem();
-      var tsconfigs = new ArrayList<String>();
-      var dirs = new ArrayDeque<File>();
-      dirs.add(fs.baseDir());
-      while (!dirs.isEmpty()) {
-        var dir = dirs.removeFirst();
-        var files = dir.listFiles();
-        if (files == null) {
-          continue;
+      var baseDir = context.fileSystem().baseDir().toPath();
+      // the default working directory is ignored by name, and the file system of some contexts has no working directory
+      var workDir = context.config().get(CoreProperties.WORKING_DIRECTORY).map(baseDir::resolve).orElse(null);
+      var lookup = new Lookup(baseDir, workDir, new PathAssessor(context.config()),
+        context.config().getInt(MAX_DEPTH_PROPERTY).orElse(Integer.MAX_VALUE));
+      var pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS));
+      List<Path> found;
+      try {
+        found = pool.invoke(lookup.new DirectoryLookup(lookup.baseDir, 0));
+      } finally {
+        pool.shutdown();
+      }
+      var tsconfigs = found.stream()
+        .sorted(Comparator.comparingInt(Path::getNameCount).thenComparing(Path::toString))
+        .map(path -> path.toAbsolutePath().toString())
+        .collect(toList());
+      LOG.info("Found " + tsconfigs.size() + " tsconfig.json file(s): " + tsconfigs);
+      return tsconfigs;
+    }
+
+    private static class Lookup {
+
+      private final Path baseDir;
+      @Nullable
+      private final Path workDir;
+      private final PathAssessor pathAssessor;
+      private final int maxDepth;
+      private final Set<Path> visitedDirectories = ConcurrentHashMap.newKeySet();
+
+      Lookup(Path baseDir, @Nullable Path workDir, PathAssessor pathAssessor, int maxDepth) {
+        this.baseDir = baseDir;
+        this.workDir = workDir;
+        this.pathAssessor = pathAssessor;
+        this.maxDepth = maxDepth;
+      }
+
+      boolean isIgnored(Path directory) {
+        if (IGNORED_DIRECTORIES.contains(directory.getFileName().toString()) || directory.equals(workDir)) {
+          return true;
+        }
+        var relativePath = baseDir.relativize(directory).toString().replace(File.separatorChar, '/');
+        return pathAssessor.isExcludedDirectory(relativePath);
+      }
+
+      boolean visit(Path directory) {
+        try {
+          return visitedDirectories.add(directory.toRealPath());
+        } catch (IOException e) {
+          LOG.debug("Failed to resolve directory " + directory + " when looking up tsconfig.json files", e);
+          return false;
+        }
+      }
+
+      /**
+       * Lists a directory at the given depth below the base directory, and its subdirectories in parallel.
+       */
+      private class DirectoryLookup extends RecursiveTask<List<Path>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path directory;
+        private final int depth;
+
+        DirectoryLookup(Path directory, int depth) {
+          this.directory = directory;
+          this.depth = depth;
         }
-        for (var file : files) {
-          if (file.isDirectory() && !"node_modules".equals(file.getName())) {
-            dirs.add(file);
-          } else if ("tsconfig.json".equals(file.getName())) {
-            tsconfigs.add(file.getAbsolutePath());
+
+        @Override
+        protected List<Path> compute() {
+          if (!visit(directory)) {
+            return emptyList();
           }
+          var tsconfigs = new ArrayList<Path>();
+          var subdirectories = new ArrayList<DirectoryLookup>();
+          try (var entries = Files.newDirectoryStream(directory)) {
+            for (var entry : entries) {
+              if (Files.isDirectory(entry)) {
+                if (depth + 1 < maxDepth && !isIgnored(entry)) {
+                  var subdirectory = new DirectoryLookup(entry, depth + 1);
+                  subdirectory.fork();
+                  subdirectories.add(subdirectory);
+                }
+              } else if ("tsconfig.json".equals(entry.getFileName().toString())) {
+                tsconfigs.add(entry);
+              }
+            }
+          } catch (IOException | DirectoryIteratorException e) {
+            LOG.debug("Failed to list directory " + directory + " when looking up tsconfig.json files", e);
+          }
+          subdirectories.forEach(subdirectory -> tsconfigs.addAll(subdirectory.join()));
+          return tsconfigs;
         }
       }
-      LOG.info("Found " + tsconfigs.size() + " tsconfig.json file(s): " + tsconfigs);
-      return tsconfigs;
     }
   }
 
@@ -44,7 +44,8 @@ import org.sonar.plugins.javascript.TypeScriptLanguage;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.JsAnalysisRequest;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
-import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategy;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategyPrefetcher;
 import org.sonar.plugins.javascript.utils.ProgressReport;
 
 import static java.util.Collections.singletonList;
@@ -92,7 +93,7 @@ public class TypeScriptSensor extends AbstractEslintSensor {
     analysisMode = AnalysisMode.getMode(context, checks.eslintRules());
     eslintBridgeServer.initLinter(checks.eslintRules(), environments, globals, analysisMode);
     if (shouldAnalyzeWithProgram(inputFiles)) {
-      analysisWithProgram.analyzeFiles(context, checks, inputFiles);
+      analysisWithProgram.analyzeFiles(context, checks, cacheStrategies, cpdImages, inputFiles);
       return;
     }
     List<String> tsConfigs = new TsConfigProvider(tempFolder).tsconfigs(context);
@@ -133,31 +134,31 @@ public class TypeScriptSensor extends AbstractEslintSensor {
   }
 
   private void analyzeFilesWithTsConfig(List<InputFile> files, TsConfigFile tsConfigFile, ProgressReport progressReport) throws IOException {
-    for (InputFile inputFile : files) {
-      if (context.isCancelled()) {
-        throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
-      }
-      if (eslintBridgeServer.isAlive()) {
-        monitoring.startFile(inputFile);
-        analyze(inputFile, tsConfigFile);
-        progressReport.nextFile(inputFile.absolutePath());
-      } else {
-        throw new IllegalStateException("eslint-bridge server is not answering");
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, files)) {
+      for (InputFile inputFile : files) {
+        if (context.isCancelled()) {
+          throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
+        }
+        if (eslintBridgeServer.isAlive()) {
+          monitoring.startFile(inputFile);
+          analyze(inputFile, tsConfigFile, cacheStrategyPrefetcher.strategyFor(inputFile));
+          progressReport.nextFile(inputFile.absolutePath());
+        } else {
+          throw new IllegalStateException("eslint-bridge server is not answering");
+        }
       }
     }
   }
 
-  private void analyze(InputFile file, TsConfigFile tsConfigFile) throws IOException {
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, file);
+  private void analyze(InputFile file, TsConfigFile tsConfigFile, CacheStrategy cacheStrategy) throws IOException {
     if (cacheStrategy.isAnalysisRequired()) {
       try {
-        LOG.debug("Analyzing file: " + file.uri());
-        String fileContent = contextUtils.shouldSendFileContent(file) ? file.contents() : null;
-        JsAnalysisRequest request = new JsAnalysisRequest(file.absolutePath(), file.type().toString(), fileContent,
-          contextUtils.ignoreHeaderComments(), singletonList(tsConfigFile.filename), null, analysisMode.getLinterIdFor(file));
-        AnalysisResponse response = eslintBridgeServer.analyzeTypeScript(request);
-        analysisProcessor.processResponse(context, checks, file, response);
+        AnalysisResponse response = analyzeFile(file, tsConfigFile);
+        analysisProcessor.processResponse(context, checks, file, response, cpdImages);
         cacheStrategy.writeAnalysisToCache(CacheAnalysis.fromResponse(response.ucfgPaths, response.cpdTokens), file);
+      } catch (FileAnalysisTimeoutException e) {
+        monitoring.stopFile(file, 0, null);
+        skipFile(file, e);
       } catch (IOException e) {
         LOG.error("Failed to get response while analyzing " + file, e);
         throw e;
@@ -169,6 +170,16 @@ public class TypeScriptSensor extends AbstractEslintSensor {
     }
   }
 
+  private AnalysisResponse analyzeFile(InputFile file, TsConfigFile tsConfigFile) throws IOException {
+    LOG.debug("Analyzing file: " + file.uri());
+    try (var content = fileContentHandoff.prepare(file)) {
+      JsAnalysisRequest request = new JsAnalysisRequest(file.absolutePath(), file.type().toString(), content.text,
+        contextUtils.ignoreHeaderComments(), singletonList(tsConfigFile.filename), null, analysisMode.getLinterIdFor(file),
+        content.path, content.hash);
+      return eslintBridgeServer.analyzeTypeScript(request);
+    }
+  }
+
   private List<TsConfigFile> loadTsConfigs(List<String> tsConfigPaths) {
     List<TsConfigFile> tsConfigFiles = new ArrayList<>();
     Deque<String> workList = new ArrayDeque<>(tsConfigPaths);
@@ -35,7 +35,8 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.CancellationException;
 import org.sonar.plugins.javascript.eslint.EslintBridgeServer.JsAnalysisRequest;
 import org.sonar.plugins.javascript.eslint.cache.CacheAnalysis;
-import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategy;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategyPrefetcher;
 import org.sonar.plugins.javascript.utils.ProgressReport;
 
 public class YamlSensor extends AbstractEslintSensor {
@@ -74,7 +75,7 @@ public class YamlSensor extends AbstractEslintSensor {
     analysisMode = AnalysisMode.getMode(context, checks.eslintRules());
     var progressReport = new ProgressReport("Analysis progress", TimeUnit.SECONDS.toMillis(10));
     var success = false;
-    try {
+    try (var cacheStrategyPrefetcher = CacheStrategyPrefetcher.create(context, cacheStrategies, inputFiles)) {
       progressReport.start(inputFiles.size(), inputFiles.iterator().next().absolutePath());
       eslintBridgeServer.initLinter(checks.eslintRules(), environments, globals, analysisMode);
       for (var inputFile : inputFiles) {
@@ -83,7 +84,7 @@ public class YamlSensor extends AbstractEslintSensor {
         }
         if (eslintBridgeServer.isAlive()) {
           progressReport.nextFile(inputFile.absolutePath());
-          analyze(inputFile);
+          analyze(inputFile, cacheStrategyPrefetcher.strategyFor(inputFile));
         } else {
           throw new IllegalStateException("eslint-bridge server is not answering");
         }
@@ -139,29 +140,33 @@ public class YamlSensor extends AbstractEslintSensor {
     return false;
   }
 
-  private void analyze(InputFile file) throws IOException {
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, file);
+  private void analyze(InputFile file, CacheStrategy cacheStrategy) throws IOException {
     // When there is no analysis required, the sensor doesn't need to do anything as the CPD tokens are handled by the sonar-iac plugin.
-    // See AnalysisProcessor for more details.
+    // See AnalysisProcessor for more details. The cached entries are still kept for the next analysis.
     if (cacheStrategy.isAnalysisRequired()) {
-      try {
-        LOG.debug("Analyzing file: {}", file.uri());
-        var fileContent = contextUtils.shouldSendFileContent(file) ? file.contents() : null;
+      LOG.debug("Analyzing file: {}", file.uri());
+      try (var content = fileContentHandoff.prepare(file)) {
         var jsAnalysisRequest = new JsAnalysisRequest(
           file.absolutePath(),
           file.type().toString(),
-          fileContent,
+          content.text,
           contextUtils.ignoreHeaderComments(),
           null,
           null,
-          analysisMode.getLinterIdFor(file));
+          analysisMode.getLinterIdFor(file),
+          content.path,
+          content.hash);
         var response = eslintBridgeServer.analyzeYaml(jsAnalysisRequest);
-        analysisProcessor.processResponse(context, checks, file, response);
+        analysisProcessor.processResponse(context, checks, file, response, cpdImages);
         cacheStrategy.writeAnalysisToCache(CacheAnalysis.fromResponse(response.ucfgPaths, response.cpdTokens), file);
+      } catch (FileAnalysisTimeoutException e) {
+        skipFile(file, e);
       } catch (IOException e) {
         LOG.error("Failed to get response while analyzing " + file.uri(), e);
         throw e;
       }
+    } else {
+      cacheStrategy.readAnalysisFromCache();
     }
   }
 }
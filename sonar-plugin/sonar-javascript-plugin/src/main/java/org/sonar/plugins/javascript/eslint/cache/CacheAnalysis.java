@@ -21,23 +21,23 @@ package org.sonar.plugins.javascript.eslint.cache;
 
 import java.util.List;
 import javax.annotation.Nullable;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
 
 public class CacheAnalysis {
 
   private final List<String> ucfgPaths;
-  private final EslintBridgeServer.CpdToken[] cpdTokens;
+  private final CpdTokens cpdTokens;
 
-  public CacheAnalysis(@Nullable List<String> ucfgPaths, EslintBridgeServer.CpdToken[] cpdTokens) {
+  public CacheAnalysis(@Nullable List<String> ucfgPaths, CpdTokens cpdTokens) {
     this.ucfgPaths = ucfgPaths;
     this.cpdTokens = cpdTokens;
   }
 
-  public static CacheAnalysis fromResponse(List<String> ucfgPaths, EslintBridgeServer.CpdToken[] cpdTokens) {
+  public static CacheAnalysis fromResponse(List<String> ucfgPaths, CpdTokens cpdTokens) {
     return new CacheAnalysis(ucfgPaths, cpdTokens);
   }
 
-  static CacheAnalysis fromCache(EslintBridgeServer.CpdToken[] cpdTokens) {
+  static CacheAnalysis fromCache(CpdTokens cpdTokens) {
     return new CacheAnalysis(null, cpdTokens);
   }
 
@@ -46,7 +46,7 @@ public class CacheAnalysis {
     return ucfgPaths;
   }
 
-  public EslintBridgeServer.CpdToken[] getCpdTokens() {
+  public CpdTokens getCpdTokens() {
     return cpdTokens;
   }
 
@@ -23,9 +23,7 @@ import java.io.IOException;
 import java.util.Optional;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
-
-import static java.util.Arrays.asList;
+import org.sonar.plugins.javascript.eslint.StringInterner;
 
 public class CacheAnalysisSerialization extends CacheSerialization {
 
@@ -33,11 +31,11 @@ public class CacheAnalysisSerialization extends CacheSerialization {
   private final CpdSerialization cpdSerialization;
   private final JsonSerialization<FileMetadata> fileMetadataSerialization;
 
-  CacheAnalysisSerialization(SensorContext context, CacheKey cacheKey) {
-    super(context, cacheKey);
-    ucfgFileSerialization = new UCFGFilesSerialization(context, cacheKey.forUcfg());
-    cpdSerialization = new CpdSerialization(context, cacheKey.forCpd());
-    fileMetadataSerialization = new JsonSerialization<>(FileMetadata.class, context, cacheKey.forFileMetadata());
+  CacheAnalysisSerialization(SensorContext context, CacheReporter reporter, CacheKey cacheKey, StringInterner cpdImages) {
+    super(context, reporter, cacheKey);
+    ucfgFileSerialization = new UCFGFilesSerialization(context, reporter, cacheKey.forUcfg());
+    cpdSerialization = new CpdSerialization(context, reporter, cacheKey.forCpd(), cpdImages);
+    fileMetadataSerialization = new JsonSerialization<>(FileMetadata.class, context, reporter, cacheKey.forFileMetadata());
   }
 
   @Override
@@ -47,7 +45,10 @@ public class CacheAnalysisSerialization extends CacheSerialization {
 
   Optional<FileMetadata> fileMetadata() throws IOException {
     if (fileMetadataSerialization.isInCache()) {
-      return Optional.of(fileMetadataSerialization.readFromCache());
+      var start = System.nanoTime();
+      var fileMetadata = fileMetadataSerialization.readFromCache();
+      getReporter().recordStage(CacheReporter.Stage.METADATA_READ, start);
+      return Optional.of(fileMetadata);
     } else {
       return Optional.empty();
     }
@@ -57,19 +58,23 @@ public class CacheAnalysisSerialization extends CacheSerialization {
     ucfgFileSerialization.readFromCache();
 
     var cpdData = cpdSerialization.readFromCache();
-    return CacheAnalysis.fromCache(cpdData.getCpdTokens().toArray(new EslintBridgeServer.CpdToken[0]));
+    return CacheAnalysis.fromCache(cpdData.getCpdTokens());
   }
 
   void writeToCache(CacheAnalysis analysis, InputFile file) throws IOException {
     ucfgFileSerialization.writeToCache(analysis.getUcfgPaths());
-    cpdSerialization.writeToCache(new CpdData(asList(analysis.getCpdTokens())));
-    fileMetadataSerialization.writeToCache(FileMetadata.from(file));
+    cpdSerialization.writeToCache(new CpdData(analysis.getCpdTokens()));
+    var start = System.nanoTime();
+    var fileMetadata = FileMetadata.from(file);
+    getReporter().recordStage(CacheReporter.Stage.HASH, start);
+    fileMetadataSerialization.writeToCache(fileMetadata);
   }
 
   @Override
   void copyFromPrevious() {
     ucfgFileSerialization.copyFromPrevious();
     cpdSerialization.copyFromPrevious();
+    fileMetadataSerialization.copyFromPrevious();
   }
 
 }
@@ -0,0 +1,59 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events of the analysis cache, see {@code AnalysisEvents} for the other events of the analysis pipeline.
+ */
+final class CacheEvents {
+
+  private CacheEvents() {
+  }
+
+  @Name("org.sonarsource.javascript.CacheStrategyResolution")
+  @Label("Cache Strategy Resolution")
+  @Category({"SonarJS", "Cache"})
+  static class StrategyResolution extends Event {
+    @Label("File Path")
+    String filePath;
+    @Label("Strategy")
+    String strategy;
+  }
+
+  @Name("org.sonarsource.javascript.UcfgRestore")
+  @Label("UCFG Files Restore")
+  @Category({"SonarJS", "Cache"})
+  static class UcfgRestore extends Event {
+    @Label("Cache Key")
+    String cacheKey;
+    @Label("Files")
+    int files;
+    @Label("Size")
+    @DataAmount
+    long size;
+  }
+
+}
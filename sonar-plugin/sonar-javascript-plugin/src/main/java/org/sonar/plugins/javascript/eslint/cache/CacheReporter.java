@@ -19,24 +19,41 @@
  */
 package org.sonar.plugins.javascript.eslint.cache;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
 import static java.lang.String.format;
-import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.joining;
 
+/**
+ * Collects the cache statistics of a sensor. Strategies can be resolved outside of the sensor thread,
+ * so all counters are updated without locking.
+ */
 class CacheReporter {
 
   private static final Logger LOG = Loggers.get(CacheReporter.class);
 
-  private final Map<Optional<CacheStrategies.MissReason>, AtomicInteger> counters = new HashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final Map<CacheStrategies.MissReason, LongAdder> misses = new ConcurrentHashMap<>();
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder bytesWritten = new LongAdder();
+  private final Map<Stage, StageTimer> stages = new EnumMap<>(Stage.class);
+
+  CacheReporter() {
+    for (var stage : Stage.values()) {
+      stages.put(stage, new StageTimer());
+    }
+  }
 
   private static String getStrategyMessage(CacheStrategy strategy, @Nullable InputFile inputFile, @Nullable CacheStrategies.MissReason missReason) {
     var logBuilder = new StringBuilder("Cache strategy set to '");
@@ -50,7 +67,7 @@ class CacheReporter {
     return logBuilder.toString();
   }
 
-  private static String getMissMessage(int total, CacheStrategies.MissReason reason, int count) {
+  private static String getMissMessage(long total, CacheStrategies.MissReason reason, long count) {
     return format("%s [%d/%d]", reason.name(), count, total);
   }
 
@@ -58,45 +75,98 @@ class CacheReporter {
     if (LOG.isDebugEnabled()) {
       LOG.debug(getStrategyMessage(strategy, inputFile, missReason));
     }
-    getCounter(missReason).incrementAndGet();
+    if (missReason == null) {
+      hits.increment();
+    } else {
+      misses.computeIfAbsent(missReason, key -> new LongAdder()).increment();
+    }
+  }
+
+  void recordBytesRead(long bytes) {
+    bytesRead.add(bytes);
+  }
+
+  void recordBytesWritten(long bytes) {
+    bytesWritten.add(bytes);
+  }
+
+  /**
+   * Records a stage duration measured from the given {@link System#nanoTime()} value.
+   */
+  void recordStage(Stage stage, long startNanos) {
+    stages.get(stage).record(System.nanoTime() - startNanos);
   }
 
   void reset() {
-    counters.clear();
+    hits.reset();
+    misses.clear();
+    bytesRead.reset();
+    bytesWritten.reset();
+    stages.values().forEach(StageTimer::reset);
   }
 
   void logReport() {
-    var total = getTotal();
-    var hits = getHits();
-    var misses = total - hits;
+    var hitCount = hits.sum();
+    var missCounts = getMissCounts();
+    var missCount = missCounts.values().stream().mapToLong(Long::longValue).sum();
+    var total = hitCount + missCount;
 
-    LOG.info(format("Hit the cache for %d out of %d", hits, total));
-    LOG.info(format("Miss the cache for %d out of %d%s", misses, total, getMissMessages(total)));
+    LOG.info(format("Hit the cache for %d out of %d", hitCount, total));
+    LOG.info(format("Miss the cache for %d out of %d%s", missCount, total, getMissMessages(total, missCounts)));
   }
 
-  private String getMissMessages(int total) {
-    String message = counters.entrySet().stream()
-      .filter(entry -> entry.getKey().isPresent())
-      .map(entry -> getMissMessage(total, entry.getKey().get(), entry.getValue().intValue()))
+  CacheStatistics statistics() {
+    var missCounts = new LinkedHashMap<String, Long>();
+    getMissCounts().forEach((reason, count) -> missCounts.put(reason.name(), count));
+    var stageStatistics = new LinkedHashMap<String, CacheStatistics.StageStatistics>();
+    stages.forEach((stage, timer) -> stageStatistics.put(stage.name(), timer.statistics()));
+    return new CacheStatistics(hits.sum(), missCounts, bytesRead.sum(), bytesWritten.sum(), stageStatistics);
+  }
+
+  private Map<CacheStrategies.MissReason, Long> getMissCounts() {
+    var counts = new TreeMap<CacheStrategies.MissReason, Long>();
+    misses.forEach((reason, count) -> counts.put(reason, count.sum()));
+    return counts;
+  }
+
+  private static String getMissMessages(long total, Map<CacheStrategies.MissReason, Long> missCounts) {
+    String message = missCounts.entrySet().stream()
+      .map(entry -> getMissMessage(total, entry.getKey(), entry.getValue()))
       .sorted()
       .collect(joining(", "));
     return message.length() > 0 ? (": " + message) : "";
   }
 
-  private int getTotal() {
-    var total = 0;
-    for (var count : counters.values()) {
-      total += count.intValue();
-    }
-    return total;
+  enum Stage {
+    HASH,
+    METADATA_READ,
+    CPD_DECODE,
+    UCFG_EXTRACT
   }
 
-  private int getHits() {
-    return getCounter(null).intValue();
-  }
+  private static class StageTimer {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
 
-  private AtomicInteger getCounter(@Nullable CacheStrategies.MissReason reason) {
-    return counters.computeIfAbsent(ofNullable(reason), key -> new AtomicInteger(0));
+    void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    void reset() {
+      count.reset();
+      totalNanos.reset();
+      maxNanos.reset();
+    }
+
+    CacheStatistics.StageStatistics statistics() {
+      return new CacheStatistics.StageStatistics(count.sum(),
+        TimeUnit.NANOSECONDS.toMicros(totalNanos.sum()),
+        TimeUnit.NANOSECONDS.toMicros(maxNanos.get()));
+    }
   }
 
 }
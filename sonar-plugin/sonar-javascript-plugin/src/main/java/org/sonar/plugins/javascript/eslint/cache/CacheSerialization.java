@@ -26,10 +26,12 @@ import org.sonar.api.batch.sensor.SensorContext;
 class CacheSerialization {
 
   private final SensorContext context;
+  private final CacheReporter reporter;
   private final CacheKey cacheKey;
 
-  CacheSerialization(SensorContext context, CacheKey cacheKey) {
+  CacheSerialization(SensorContext context, CacheReporter reporter, CacheKey cacheKey) {
     this.context = context;
+    this.reporter = reporter;
     this.cacheKey = cacheKey;
   }
 
@@ -45,6 +47,10 @@ class CacheSerialization {
     return context;
   }
 
+  CacheReporter getReporter() {
+    return reporter;
+  }
+
   CacheKey getCacheKey() {
     return cacheKey;
   }
@@ -55,12 +61,15 @@ class CacheSerialization {
 
   byte[] readBytesFromCache() throws IOException {
     try (var input = getInputStream()) {
-      return input.readAllBytes();
+      var bytes = input.readAllBytes();
+      reporter.recordBytesRead(bytes.length);
+      return bytes;
     }
   }
 
   void writeToCache(byte[] bytes) {
     context.nextCache().write(cacheKey.toString(), bytes);
+    reporter.recordBytesWritten(bytes.length);
   }
 
   void writeToCache(InputStream sequence) {
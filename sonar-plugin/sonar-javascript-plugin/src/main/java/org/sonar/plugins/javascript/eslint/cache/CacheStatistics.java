@@ -0,0 +1,89 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the cache usage during the execution of a sensor. Durations are expressed in microseconds.
+ */
+public class CacheStatistics {
+
+  private final long hits;
+  private final Map<String, Long> misses;
+  private final long bytesRead;
+  private final long bytesWritten;
+  private final Map<String, StageStatistics> stages;
+
+  CacheStatistics(long hits, Map<String, Long> misses, long bytesRead, long bytesWritten,
+    Map<String, StageStatistics> stages) {
+    this.hits = hits;
+    this.misses = misses;
+    this.bytesRead = bytesRead;
+    this.bytesWritten = bytesWritten;
+    this.stages = stages;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public Map<String, Long> getMisses() {
+    return misses;
+  }
+
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  public Map<String, StageStatistics> getStages() {
+    return stages;
+  }
+
+  public static class StageStatistics {
+
+    private final long count;
+    private final long totalTime;
+    private final long maxTime;
+
+    StageStatistics(long count, long totalTime, long maxTime) {
+      this.count = count;
+      this.totalTime = totalTime;
+      this.maxTime = maxTime;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getTotalTime() {
+      return totalTime;
+    }
+
+    public long getMaxTime() {
+      return maxTime;
+    }
+  }
+
+}
@@ -20,6 +20,7 @@
 package org.sonar.plugins.javascript.eslint.cache;
 
 import java.io.IOException;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.InputFile;
@@ -29,21 +30,32 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.javascript.eslint.AnalysisMode;
 import org.sonar.plugins.javascript.eslint.PluginInfo;
+import org.sonar.plugins.javascript.eslint.StringInterner;
 
 import static org.sonar.plugins.javascript.eslint.cache.CacheStrategy.noCache;
 import static org.sonar.plugins.javascript.eslint.cache.CacheStrategy.readAndWrite;
 import static org.sonar.plugins.javascript.eslint.cache.CacheStrategy.writeOnly;
 
+/**
+ * Resolves the cache strategies of the files analyzed by a sensor. Each sensor execution uses its own instance,
+ * so that the reported statistics only cover the files of that sensor.
+ */
 public class CacheStrategies {
 
   private static final Logger LOG = Loggers.get(CacheStrategies.class);
 
-  private static final CacheReporter REPORTER = new CacheReporter();
+  private final CacheReporter reporter = new CacheReporter();
+  private final StringInterner cpdImages;
+
+  public CacheStrategies() {
+    this(StringInterner.forCpdImages());
+  }
 
-  private CacheStrategies() {
+  public CacheStrategies(StringInterner cpdImages) {
+    this.cpdImages = cpdImages;
   }
 
-  private static boolean isRuntimeApiCompatible(SensorContext context) {
+  static boolean isRuntimeApiCompatible(SensorContext context) {
     var isVersionValid = context.runtime().getApiVersion().isGreaterThanOrEqual(Version.create(9, 4));
     var isProductValid = context.runtime().getProduct() != SonarProduct.SONARLINT;
     return isVersionValid && isProductValid;
@@ -58,72 +70,121 @@ public class CacheStrategies {
     return logBuilder.toString();
   }
 
-  public static CacheStrategy getStrategyFor(SensorContext context, InputFile inputFile) throws IOException {
+  public CacheStrategy getStrategyFor(SensorContext context, InputFile inputFile) throws IOException {
     return getStrategyFor(context, inputFile, PluginInfo.getVersion());
   }
 
-  static CacheStrategy getStrategyFor(SensorContext context, InputFile inputFile, @Nullable String pluginVersion) throws IOException {
+  CacheStrategy getStrategyFor(SensorContext context, InputFile inputFile, @Nullable String pluginVersion) throws IOException {
+    return getStrategyFor(context, inputFile, pluginVersion, true);
+  }
+
+  /**
+   * Resolves the strategy without touching the next cache, so that it can run outside of the sensor thread.
+   * Entries are copied from the previous cache once the cached analysis is actually consumed.
+   */
+  CacheStrategy getDeferredStrategyFor(SensorContext context, InputFile inputFile) throws IOException {
+    return getStrategyFor(context, inputFile, PluginInfo.getVersion(), false);
+  }
+
+  private CacheStrategy getStrategyFor(SensorContext context, InputFile inputFile, @Nullable String pluginVersion,
+    boolean copyFromPrevious) throws IOException {
+    var event = new CacheEvents.StrategyResolution();
+    event.begin();
+    var strategy = resolveStrategy(context, inputFile, pluginVersion, copyFromPrevious);
+    if (event.shouldCommit()) {
+      event.filePath = inputFile.toString();
+      event.strategy = strategy.getName();
+      event.commit();
+    }
+    return strategy;
+  }
+
+  private CacheStrategy resolveStrategy(SensorContext context, InputFile inputFile, @Nullable String pluginVersion,
+    boolean copyFromPrevious) throws IOException {
     if (!isRuntimeApiCompatible(context)) {
       var strategy = noCache();
-      REPORTER.logAndIncrement(strategy, inputFile, MissReason.RUNTIME_API_INCOMPATIBLE);
+      reporter.logAndIncrement(strategy, inputFile, MissReason.RUNTIME_API_INCOMPATIBLE);
       return strategy;
     }
 
     var cacheKey = CacheKey.forFile(inputFile, pluginVersion);
-    var serialization = new CacheAnalysisSerialization(context, cacheKey);
+    var serialization = new CacheAnalysisSerialization(context, reporter, cacheKey, cpdImages);
 
     if (!AnalysisMode.isRuntimeApiCompatible(context) || !context.canSkipUnchangedFiles()) {
       var strategy = writeOnly(serialization);
-      REPORTER.logAndIncrement(strategy, inputFile, MissReason.ANALYSIS_MODE_INELIGIBLE);
+      reporter.logAndIncrement(strategy, inputFile, MissReason.ANALYSIS_MODE_INELIGIBLE);
       return strategy;
     }
 
     var fileMetadata = serialization.fileMetadata();
-    if (fileMetadata.isEmpty() || !isSameFile(fileMetadata.get(), inputFile)) {
+    if (fileMetadata.isEmpty()) {
       var strategy = writeOnly(serialization);
-      REPORTER.logAndIncrement(strategy, inputFile, MissReason.FILE_CHANGED);
+      reporter.logAndIncrement(strategy, inputFile, MissReason.FILE_NOT_IN_CACHE);
+      return strategy;
+    }
+
+    if (!isSameFile(fileMetadata.get(), inputFile)) {
+      var strategy = writeOnly(serialization).previouslyAnalyzed();
+      reporter.logAndIncrement(strategy, inputFile, MissReason.FILE_CHANGED);
       return strategy;
     }
 
     if (!serialization.isInCache()) {
-      var strategy = writeOnly(serialization);
-      REPORTER.logAndIncrement(strategy, inputFile, MissReason.FILE_NOT_IN_CACHE);
+      var strategy = writeOnly(serialization).previouslyAnalyzed();
+      reporter.logAndIncrement(strategy, inputFile, MissReason.FILE_NOT_IN_CACHE);
       return strategy;
     }
 
     var cacheAnalysis = readFromCache(serialization);
     if (cacheAnalysis == null) {
-      var strategy = writeOnly(serialization);
-      REPORTER.logAndIncrement(strategy, inputFile, MissReason.CACHE_CORRUPTED);
+      var strategy = writeOnly(serialization).previouslyAnalyzed();
+      reporter.logAndIncrement(strategy, inputFile, MissReason.CACHE_CORRUPTED);
       return strategy;
     }
 
-    var strategy = readAndWrite(cacheAnalysis, serialization);
-    REPORTER.logAndIncrement(strategy, inputFile, null);
+    var strategy = readAndWrite(cacheAnalysis, serialization, copyNowOrDefer(copyFromPrevious, serialization::copyFromPrevious))
+      .previouslyAnalyzed();
+    reporter.logAndIncrement(strategy, inputFile, null);
     return strategy;
   }
 
-  private static boolean isSameFile(FileMetadata fileMetadata, InputFile inputFile) throws IOException {
-    return fileMetadata.compareTo(inputFile);
+  @CheckForNull
+  private static Runnable copyNowOrDefer(boolean copyNow, Runnable cacheCopy) {
+    if (copyNow) {
+      cacheCopy.run();
+      return null;
+    }
+    return cacheCopy;
+  }
+
+  private boolean isSameFile(FileMetadata fileMetadata, InputFile inputFile) throws IOException {
+    var start = System.nanoTime();
+    try {
+      return fileMetadata.compareTo(inputFile);
+    } finally {
+      reporter.recordStage(CacheReporter.Stage.HASH, start);
+    }
   }
 
   static CacheAnalysis readFromCache(CacheAnalysisSerialization serialization) {
     try {
-      var cacheAnalysis = serialization.readFromCache();
-      serialization.copyFromPrevious();
-      return cacheAnalysis;
+      return serialization.readFromCache();
     } catch (IOException e) {
       LOG.error("Failure when reading cache entry", e);
       return null;
     }
   }
 
-  public static void reset() {
-    REPORTER.reset();
+  public void logReport() {
+    reporter.logReport();
+  }
+
+  public CacheStatistics statistics() {
+    return reporter.statistics();
   }
 
-  public static void logReport() {
-    REPORTER.logReport();
+  CacheReporter reporter() {
+    return reporter;
   }
 
   enum MissReason {
@@ -33,6 +33,8 @@ public class CacheStrategy {
   private final String name;
   private final CacheAnalysis cacheAnalysis;
   private final CacheAnalysisSerialization serialization;
+  private Runnable pendingCacheCopy;
+  private boolean previouslyAnalyzed;
 
   private CacheStrategy(String name, @Nullable CacheAnalysis cacheAnalysis, @Nullable CacheAnalysisSerialization serialization) {
     this.name = name;
@@ -49,7 +51,24 @@ public class CacheStrategy {
   }
 
   static CacheStrategy readAndWrite(CacheAnalysis cacheAnalysis, CacheAnalysisSerialization serialization) {
-    return new CacheStrategy(READ_AND_WRITE, cacheAnalysis, serialization);
+    return readAndWrite(cacheAnalysis, serialization, null);
+  }
+
+  /**
+   * @param pendingCacheCopy update of the next cache, deferred until the cached analysis is consumed
+   */
+  static CacheStrategy readAndWrite(CacheAnalysis cacheAnalysis, CacheAnalysisSerialization serialization, @Nullable Runnable pendingCacheCopy) {
+    var strategy = new CacheStrategy(READ_AND_WRITE, cacheAnalysis, serialization);
+    strategy.pendingCacheCopy = pendingCacheCopy;
+    return strategy;
+  }
+
+  /**
+   * Marks the strategy of a file that has entries of its own in the previous cache.
+   */
+  CacheStrategy previouslyAnalyzed() {
+    this.previouslyAnalyzed = true;
+    return this;
   }
 
   String getName() {
@@ -60,6 +79,13 @@ public class CacheStrategy {
     return cacheAnalysis == null;
   }
 
+  /**
+   * Returns true if the file was analyzed by the previous analysis, even if it changed since then.
+   */
+  public boolean isPreviouslyAnalyzed() {
+    return previouslyAnalyzed;
+  }
+
   public void writeAnalysisToCache(CacheAnalysis analysis, InputFile file) throws IOException {
     if (serialization != null) {
       serialization.writeToCache(analysis, file);
@@ -67,7 +93,12 @@ public class CacheStrategy {
   }
 
   public CacheAnalysis readAnalysisFromCache() {
-    return Objects.requireNonNull(cacheAnalysis);
+    var analysis = Objects.requireNonNull(cacheAnalysis);
+    if (pendingCacheCopy != null) {
+      pendingCacheCopy.run();
+      pendingCacheCopy = null;
+    }
+    return analysis;
   }
 
 }
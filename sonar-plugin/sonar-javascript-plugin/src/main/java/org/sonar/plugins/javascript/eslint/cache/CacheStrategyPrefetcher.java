@@ -0,0 +1,159 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.CancellationException;
+
+/**
+ * Resolves the cache strategies of the upcoming files on a background thread, while the current file is being analyzed.
+ * <p>
+ * Strategies are expected in the order of the files given at creation. A single worker resolves them in that same
+ * order, so the outcome is the same as resolving them synchronously. Files that are skipped, i.e. whose strategy is not
+ * requested before the one of a later file, have their prefetch discarded. A strategy that is not prefetched, e.g. one
+ * requested again or out of order, is resolved synchronously instead. Writes to the next cache are left to the sensor thread: see
+ * {@link CacheStrategy#readAnalysisFromCache()}, which sensors call for every unchanged file, even when they have nothing to
+ * process from its cached analysis.
+ * <p>
+ * The worker reads the previous cache while the sensor thread may read it too, e.g. to resolve a strategy synchronously.
+ * This assumes that {@link org.sonar.api.batch.sensor.cache.ReadCache} supports concurrent reads, which its API does
+ * not document. Prefetching can be turned off by setting {@value #PREFETCH_SIZE_PROPERTY} to 0.
+ */
+public class CacheStrategyPrefetcher implements AutoCloseable {
+
+  private static final Logger LOG = Loggers.get(CacheStrategyPrefetcher.class);
+
+  static final String PREFETCH_SIZE_PROPERTY = "sonar.javascript.cache.prefetchSize";
+  static final int DEFAULT_PREFETCH_SIZE = 16;
+
+  private final SensorContext context;
+  private final CacheStrategies cacheStrategies;
+  private final Iterator<InputFile> filesToSchedule;
+  private final Deque<Prefetch> scheduled = new ArrayDeque<>();
+  private final int prefetchSize;
+  @Nullable
+  private final ExecutorService executor;
+
+  private CacheStrategyPrefetcher(SensorContext context, CacheStrategies cacheStrategies, List<InputFile> files, int prefetchSize) {
+    this.context = context;
+    this.cacheStrategies = cacheStrategies;
+    this.filesToSchedule = files.iterator();
+    this.prefetchSize = prefetchSize;
+    this.executor = prefetchSize > 0 ? Executors.newSingleThreadExecutor(CacheStrategyPrefetcher::newThread) : null;
+  }
+
+  public static CacheStrategyPrefetcher create(SensorContext context, CacheStrategies cacheStrategies, List<InputFile> files) {
+    var prefetchSize = 0;
+    if (CacheStrategies.isRuntimeApiCompatible(context)) {
+      prefetchSize = Math.max(0, context.config().getInt(PREFETCH_SIZE_PROPERTY).orElse(DEFAULT_PREFETCH_SIZE));
+    }
+    return new CacheStrategyPrefetcher(context, cacheStrategies, files, prefetchSize);
+  }
+
+  private static Thread newThread(Runnable runnable) {
+    var thread = new Thread(runnable, "sonarjs-cache-prefetch");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  public CacheStrategy strategyFor(InputFile inputFile) throws IOException {
+    if (executor == null) {
+      return cacheStrategies.getStrategyFor(context, inputFile);
+    }
+    schedule();
+    if (scheduled.stream().noneMatch(prefetch -> prefetch.inputFile.equals(inputFile))) {
+      LOG.debug("Cache strategy of file {} was not prefetched, resolving it synchronously", inputFile);
+      return cacheStrategies.getStrategyFor(context, inputFile);
+    }
+    var prefetch = scheduled.poll();
+    while (!prefetch.inputFile.equals(inputFile)) {
+      prefetch.future.cancel(true);
+      prefetch = scheduled.poll();
+    }
+    schedule();
+    return prefetch.get();
+  }
+
+  private void schedule() {
+    while (scheduled.size() < prefetchSize && filesToSchedule.hasNext()) {
+      var inputFile = filesToSchedule.next();
+      scheduled.add(new Prefetch(inputFile, executor.submit(() -> resolve(inputFile))));
+    }
+  }
+
+  private CacheStrategy resolve(InputFile inputFile) throws IOException {
+    if (context.isCancelled()) {
+      throw new CancellationException("Analysis interrupted because the SensorContext is in cancelled state");
+    }
+    return cacheStrategies.getDeferredStrategyFor(context, inputFile);
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      scheduled.forEach(prefetch -> prefetch.future.cancel(true));
+      scheduled.clear();
+      executor.shutdownNow();
+    }
+  }
+
+  private static class Prefetch {
+
+    private final InputFile inputFile;
+    private final Future<CacheStrategy> future;
+
+    Prefetch(InputFile inputFile, Future<CacheStrategy> future) {
+      this.inputFile = inputFile;
+      this.future = future;
+    }
+
+    CacheStrategy get() throws IOException {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while resolving cache strategy for file " + inputFile, e);
+      } catch (ExecutionException e) {
+        var cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IllegalStateException("Failure when resolving cache strategy for file " + inputFile, cause);
+      }
+    }
+  }
+
+}
@@ -19,18 +19,17 @@
  */
 package org.sonar.plugins.javascript.eslint.cache;
 
-import java.util.List;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
 
 class CpdData {
 
-  private final List<EslintBridgeServer.CpdToken> cpdTokens;
+  private final CpdTokens cpdTokens;
 
-  CpdData(List<EslintBridgeServer.CpdToken> cpdTokens) {
-    this.cpdTokens = List.copyOf(cpdTokens);
+  CpdData(CpdTokens cpdTokens) {
+    this.cpdTokens = cpdTokens;
   }
 
-  List<EslintBridgeServer.CpdToken> getCpdTokens() {
+  CpdTokens getCpdTokens() {
     return cpdTokens;
   }
 
@@ -19,59 +19,132 @@
  */
 package org.sonar.plugins.javascript.eslint.cache;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
-
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
+import org.sonar.plugins.javascript.eslint.StringInterner;
+
+import static org.sonar.plugins.javascript.eslint.cache.CpdSerializer.FLAG_DEFLATED;
+import static org.sonar.plugins.javascript.eslint.cache.CpdSerializer.HEADER_SIZE;
+import static org.sonar.plugins.javascript.eslint.cache.CpdSerializer.VERSION;
+import static org.sonar.plugins.javascript.eslint.cache.CpdSerializer.VERSION_MARKER;
+
+/**
+ * Reads CPD tokens written either in the version 2 format of {@link CpdSerializer} or in the legacy version 1 format,
+ * where every location is stored with absolute values.
+ */
 public class CpdDeserializer {
 
-  private final VarLengthInputStream in;
-  private final VarLengthInputStream stringTableIn;
+  private static final int LEGACY_VERSION = 1;
+
+  private final byte[] data;
+  private final byte[] stringTableData;
+  private final StringInterner cpdImages;
 
+  private VarLengthInputStream in;
   private StringTable stringTable;
 
-  private CpdDeserializer(byte[] data, byte[] stringTable) {
-    in = new VarLengthInputStream(data);
-    stringTableIn = new VarLengthInputStream(stringTable);
+  private CpdDeserializer(byte[] data, byte[] stringTable, StringInterner cpdImages) {
+    this.data = data;
+    this.stringTableData = stringTable;
+    this.cpdImages = cpdImages;
   }
 
-  public static CpdData fromBinary(byte[] data, byte[] stringTable) throws IOException {
-    var deserializer = new CpdDeserializer(data, stringTable);
+  public static CpdData fromBinary(byte[] data, byte[] stringTable, StringInterner cpdImages) throws IOException {
+    var deserializer = new CpdDeserializer(data, stringTable, cpdImages);
     return deserializer.convert();
   }
 
   private CpdData convert() throws IOException {
-    try (in; stringTableIn) {
-      stringTable = readStringTable();
+    try {
+      var version = readVersion(data);
+      var dataIn = new VarLengthInputStream(readPayload(data));
+      var stringTableIn = new VarLengthInputStream(readPayload(stringTableData));
+      try (dataIn; stringTableIn) {
+        in = dataIn;
+        stringTable = readStringTable(stringTableIn);
+
+        var sizeOfCpdTokens = readInt();
+        var cpdTokens = new CpdTokens(sizeOfCpdTokens);
+
+        if (version == LEGACY_VERSION) {
+          for (int i = 0; i < sizeOfCpdTokens; i++) {
+            readCpdToken(cpdTokens);
+          }
+        } else {
+          readCpdTokens(cpdTokens, sizeOfCpdTokens);
+        }
+
+        if (!"END".equals(in.readUTF())) {
+          throw new IOException("Can't read data from cache, format corrupted");
+        }
+
+        return new CpdData(cpdTokens);
+      }
+    } catch (IOException e) {
+      throw new IOException("Can't deserialize data from the cache", e);
+    }
+  }
 
-      var sizeOfCpdTokens = readInt();
-      var cpdTokens = new ArrayList<EslintBridgeServer.CpdToken>(sizeOfCpdTokens);
+  private static boolean hasHeader(byte[] bytes) {
+    return bytes.length >= HEADER_SIZE && bytes[0] == VERSION_MARKER[0] && bytes[1] == VERSION_MARKER[1];
+  }
 
-      for (int i = 0; i < sizeOfCpdTokens; i++) {
-        readCpdToken(cpdTokens);
-      }
+  private static int readVersion(byte[] bytes) throws IOException {
+    if (!hasHeader(bytes)) {
+      return LEGACY_VERSION;
+    }
+    var version = bytes[VERSION_MARKER.length];
+    if (version != VERSION) {
+      throw new IOException("Unsupported CPD cache format version " + version);
+    }
+    return version;
+  }
 
-      if (!"END".equals(in.readUTF())) {
+  private static byte[] readPayload(byte[] bytes) throws IOException {
+    if (!hasHeader(bytes)) {
+      return bytes;
+    }
+    var flags = bytes[VERSION_MARKER.length + 1];
+    if ((flags & FLAG_DEFLATED) == 0) {
+      return Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length);
+    }
+    try (var inflater = new InflaterInputStream(new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE))) {
+      return inflater.readAllBytes();
+    }
+  }
+
+  private void readCpdTokens(CpdTokens cpdTokens, int sizeOfCpdTokens) throws IOException {
+    var line = 0;
+    while (cpdTokens.size() < sizeOfCpdTokens) {
+      line += in.readSignedInt();
+      var runLength = readInt();
+      if (runLength <= 0 || cpdTokens.size() + runLength > sizeOfCpdTokens) {
         throw new IOException("Can't read data from cache, format corrupted");
       }
 
-      return new CpdData(cpdTokens);
-    } catch (IOException e) {
-      throw new IOException("Can't deserialize data from the cache", e);
+      var previousEndCol = 0;
+      for (int i = 0; i < runLength; i++) {
+        var startCol = previousEndCol + in.readSignedInt();
+        var endLine = line + in.readSignedInt();
+        var endColOrigin = endLine == line ? startCol : 0;
+        var endCol = endColOrigin + in.readSignedInt();
+        previousEndCol = endCol;
+
+        cpdTokens.add(line, startCol, endLine, endCol, readString());
+      }
     }
   }
 
-  private void readCpdToken(List<EslintBridgeServer.CpdToken> cpdTokens) throws IOException {
-    var cpdToken = new EslintBridgeServer.CpdToken();
-    var location = new EslintBridgeServer.Location();
-    location.setStartLine(readInt());
-    location.setStartCol(readInt());
-    location.setEndLine(readInt());
-    location.setEndCol(readInt());
-    cpdToken.setLocation(location);
-    cpdToken.setImage(readString());
-    cpdTokens.add(cpdToken);
+  private void readCpdToken(CpdTokens cpdTokens) throws IOException {
+    var startLine = readInt();
+    var startCol = readInt();
+    var endLine = readInt();
+    var endCol = readInt();
+    cpdTokens.add(startLine, startCol, endLine, endCol, readString());
   }
 
   private int readInt() throws IOException {
@@ -82,11 +155,11 @@ public class CpdDeserializer {
     return stringTable.getString(in.readInt());
   }
 
-  private StringTable readStringTable() throws IOException {
+  private StringTable readStringTable(VarLengthInputStream stringTableIn) throws IOException {
     var size = stringTableIn.readInt();
     var byIndex = new ArrayList<String>(size);
     for (int i = 0; i < size; i++) {
-      byIndex.add(stringTableIn.readUTF());
+      byIndex.add(cpdImages.intern(stringTableIn.readUTF()));
     }
     if (!"END".equals(stringTableIn.readUTF())) {
       throw new IOException("Can't read data from cache, format corrupted");
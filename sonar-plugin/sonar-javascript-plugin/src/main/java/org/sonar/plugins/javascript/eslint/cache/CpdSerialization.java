@@ -21,6 +21,7 @@ package org.sonar.plugins.javascript.eslint.cache;
 
 import java.io.IOException;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.plugins.javascript.eslint.StringInterner;
 
 class CpdSerialization extends CacheSerialization {
 
@@ -29,11 +30,13 @@ class CpdSerialization extends CacheSerialization {
 
   private final CacheSerialization cpdDataSerialization;
   private final CacheSerialization cpdStringTableSerialization;
+  private final StringInterner cpdImages;
 
-  CpdSerialization(SensorContext context, CacheKey cacheKey) {
-    super(context, cacheKey);
-    cpdDataSerialization = new CacheSerialization(context, cacheKey.withPrefix(DATA_PREFIX));
-    cpdStringTableSerialization = new CacheSerialization(context, cacheKey.withPrefix(STRING_TABLE_PREFIX));
+  CpdSerialization(SensorContext context, CacheReporter reporter, CacheKey cacheKey, StringInterner cpdImages) {
+    super(context, reporter, cacheKey);
+    this.cpdImages = cpdImages;
+    cpdDataSerialization = new CacheSerialization(context, reporter, cacheKey.withPrefix(DATA_PREFIX));
+    cpdStringTableSerialization = new CacheSerialization(context, reporter, cacheKey.withPrefix(STRING_TABLE_PREFIX));
   }
 
   @Override
@@ -48,9 +51,12 @@ class CpdSerialization extends CacheSerialization {
   }
 
   CpdData readFromCache() throws IOException {
+    var start = System.nanoTime();
     var data = cpdDataSerialization.readBytesFromCache();
     var stringTable = cpdStringTableSerialization.readBytesFromCache();
-    return CpdDeserializer.fromBinary(data, stringTable);
+    var cpdData = CpdDeserializer.fromBinary(data, stringTable, cpdImages);
+    getReporter().recordStage(CacheReporter.Stage.CPD_DECODE, start);
+    return cpdData;
   }
 
   void writeToCache(CpdData cpdData) throws IOException {
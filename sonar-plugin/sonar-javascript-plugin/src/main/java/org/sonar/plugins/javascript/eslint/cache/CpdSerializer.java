@@ -22,11 +22,27 @@ package org.sonar.plugins.javascript.eslint.cache;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.zip.DeflaterOutputStream;
 import javax.annotation.Nullable;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
-
+import org.sonar.plugins.javascript.eslint.CpdTokens;
+
+/**
+ * Writes CPD tokens in the version 2 format.
+ * <p>
+ * Both blobs start with a header made of {@link #VERSION_MARKER}, the format version and a flags byte. The marker is a
+ * non-canonical encoding of 0, which version 1 never wrote, so both formats can be told apart when reading.
+ * Tokens are grouped by start line: each group holds the line delta and the number of tokens, then for each token
+ * the column delta from the previous token, the line span, the end column relative to the start column and the image.
+ * Payloads are deflated when it makes them smaller.
+ */
 class CpdSerializer {
 
+  static final byte[] VERSION_MARKER = {(byte) 0x80, 0x00};
+  static final int VERSION = 2;
+  static final int FLAG_DEFLATED = 1;
+  static final int HEADER_SIZE = VERSION_MARKER.length + 2;
+  private static final int MIN_DEFLATE_SIZE = 64;
+
   private final ByteArrayOutputStream stream;
   private final VarLengthOutputStream out;
   private final StringTable stringTable;
@@ -47,25 +63,47 @@ class CpdSerializer {
     try (out; stream) {
       var cpdTokens = cpdData.getCpdTokens();
       writeInt(cpdTokens.size());
-      for (var cpdToken : cpdTokens) {
-        write(cpdToken);
-      }
+      writeTokens(cpdTokens);
 
       out.writeUTF("END");
 
-      return new SerializationResult(stream.toByteArray(), writeStringTable());
+      return new SerializationResult(encode(stream.toByteArray()), encode(writeStringTable()));
     } catch (IOException e) {
       throw new IOException("Can't store data in cache", e);
     }
   }
 
-  private void write(EslintBridgeServer.CpdToken cpdToken) throws IOException {
-    var location = cpdToken.getLocation();
-    writeInt(location.getStartLine());
-    writeInt(location.getStartCol());
-    writeInt(location.getEndLine());
-    writeInt(location.getEndCol());
-    writeText(cpdToken.getImage());
+  private void writeTokens(CpdTokens cpdTokens) throws IOException {
+    var previousLine = 0;
+    var index = 0;
+    while (index < cpdTokens.size()) {
+      var line = cpdTokens.startLine(index);
+      var runEnd = index + 1;
+      while (runEnd < cpdTokens.size() && cpdTokens.startLine(runEnd) == line) {
+        runEnd++;
+      }
+
+      out.writeSignedInt(line - previousLine);
+      writeInt(runEnd - index);
+      var previousEndCol = 0;
+      for (; index < runEnd; index++) {
+        previousEndCol = write(cpdTokens, index, previousEndCol);
+      }
+      previousLine = line;
+    }
+  }
+
+  private int write(CpdTokens cpdTokens, int index, int previousEndCol) throws IOException {
+    var startLine = cpdTokens.startLine(index);
+    var startCol = cpdTokens.startCol(index);
+    var endLine = cpdTokens.endLine(index);
+    var endCol = cpdTokens.endCol(index);
+    out.writeSignedInt(startCol - previousEndCol);
+    out.writeSignedInt(endLine - startLine);
+    var endColOrigin = endLine == startLine ? startCol : 0;
+    out.writeSignedInt(endCol - endColOrigin);
+    writeText(cpdTokens.image(index));
+    return endCol;
   }
 
   private void writeText(@Nullable String text) throws IOException {
@@ -89,6 +127,33 @@ class CpdSerializer {
     return stringTableStream.toByteArray();
   }
 
+  private static byte[] encode(byte[] payload) throws IOException {
+    var flags = 0;
+    var body = payload;
+    if (payload.length >= MIN_DEFLATE_SIZE) {
+      var deflated = deflate(payload);
+      if (deflated.length < payload.length) {
+        flags |= FLAG_DEFLATED;
+        body = deflated;
+      }
+    }
+
+    var output = new ByteArrayOutputStream(HEADER_SIZE + body.length);
+    output.write(VERSION_MARKER);
+    output.write(VERSION);
+    output.write(flags);
+    output.write(body);
+    return output.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] payload) throws IOException {
+    var output = new ByteArrayOutputStream(payload.length);
+    try (var deflater = new DeflaterOutputStream(output)) {
+      deflater.write(payload);
+    }
+    return output.toByteArray();
+  }
+
   static class SerializationResult {
 
     private final byte[] data;
@@ -48,7 +48,7 @@ public class FileMetadata {
     return file.contents().getBytes(file.charset()).length;
   }
 
-  static byte[] computeHash(InputFile file) throws IOException {
+  public static byte[] computeHash(InputFile file) throws IOException {
     try {
       var digest = MessageDigest.getInstance("SHA-256");
       var bytes = file.contents().getBytes(file.charset());
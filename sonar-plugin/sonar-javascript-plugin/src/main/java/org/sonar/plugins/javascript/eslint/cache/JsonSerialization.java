@@ -35,8 +35,8 @@ class JsonSerialization<P> extends CacheSerialization {
   private final Class<P> jsonClass;
   private final Gson gson = new Gson();
 
-  JsonSerialization(Class<P> jsonClass, SensorContext context, CacheKey cacheKey) {
-    super(context, cacheKey);
+  JsonSerialization(Class<P> jsonClass, SensorContext context, CacheReporter reporter, CacheKey cacheKey) {
+    super(context, reporter, cacheKey);
     this.jsonClass = jsonClass;
   }
 
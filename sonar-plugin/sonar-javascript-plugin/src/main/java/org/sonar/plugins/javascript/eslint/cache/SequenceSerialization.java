@@ -26,6 +26,7 @@ import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
@@ -44,8 +45,8 @@ class SequenceSerialization extends CacheSerialization {
   private static final String ENTRY_SEPARATOR = "/";
   private static final int DEFAULT_BUFFER_SIZE = 8192;
 
-  SequenceSerialization(SensorContext context, CacheKey cacheKey) {
-    super(context, cacheKey);
+  SequenceSerialization(SensorContext context, CacheReporter reporter, CacheKey cacheKey) {
+    super(context, reporter, cacheKey);
   }
 
   private static String convertToEntryName(Path baseAbsolutePath, Path fileAbsolutePath) {
@@ -66,8 +67,6 @@ class SequenceSerialization extends CacheSerialization {
   }
 
   private static void writeFile(InputStream input, Path file, long limit, boolean shouldFinish) throws IOException {
-    Files.createDirectories(file.getParent());
-
     try (var output = new BufferedOutputStream(Files.newOutputStream(file))) {
       var buffer = new byte[DEFAULT_BUFFER_SIZE];
       var read = 0;
@@ -88,6 +87,19 @@ class SequenceSerialization extends CacheSerialization {
     }
   }
 
+  /**
+   * Creates each distinct parent directory once, as files of an entry usually share the same few directories.
+   */
+  private static void createDirectories(List<Path> files) throws IOException {
+    var directories = new LinkedHashSet<Path>();
+    for (var file : files) {
+      directories.add(file.getParent());
+    }
+    for (var directory : directories) {
+      Files.createDirectories(directory);
+    }
+  }
+
   private static FilesManifest createManifest(Path directory, FileIterator enumeration) {
     var fileSizes = new ArrayList<FilesManifest.FileSize>();
 
@@ -115,22 +127,19 @@ class SequenceSerialization extends CacheSerialization {
   }
 
   void readFromCache(@Nullable FilesManifest manifest) throws IOException {
-    try (var input = getInputStream()) {
-      var iterator = requireNonNull(manifest).getFileSizes().iterator();
-      var fileSize = iterator.hasNext() ? iterator.next() : null;
-      var counter = 0;
-
-      while (fileSize != null) {
-        var file = convertFromEntryName(getWorkingDirectoryAbsolutePath(), fileSize.getName());
-        var isLastFile = !iterator.hasNext();
-
-        writeFile(input, file, fileSize.getSize(), isLastFile);
+    var fileSizes = requireNonNull(manifest).getFileSizes();
+    var files = new ArrayList<Path>(fileSizes.size());
+    for (var fileSize : fileSizes) {
+      files.add(convertFromEntryName(getWorkingDirectoryAbsolutePath(), fileSize.getName()));
+    }
+    createDirectories(files);
 
-        fileSize = isLastFile ? null : iterator.next();
-        counter++;
+    try (var input = getInputStream()) {
+      for (var i = 0; i < files.size(); i++) {
+        writeFile(input, files.get(i), fileSizes.get(i).getSize(), i == files.size() - 1);
       }
 
-      LOG.debug("Cache entry extracted for key '{}' containing {} file(s)", getCacheKey(), counter);
+      LOG.debug("Cache entry extracted for key '{}' containing {} file(s)", getCacheKey(), files.size());
     }
   }
 
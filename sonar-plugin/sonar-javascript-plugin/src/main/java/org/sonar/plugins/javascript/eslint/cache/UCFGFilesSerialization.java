@@ -31,15 +31,16 @@ class UCFGFilesSerialization extends CacheSerialization {
   private final JsonSerialization<FilesManifest> json;
   private final SequenceSerialization sequence;
 
-  UCFGFilesSerialization(SensorContext context, CacheKey cacheKey) {
-    super(context, cacheKey);
-    json = new JsonSerialization<>(FilesManifest.class, context, cacheKey.withPrefix(JSON_PREFIX));
-    sequence = new SequenceSerialization(context, cacheKey.withPrefix(SEQ_PREFIX));
+  UCFGFilesSerialization(SensorContext context, CacheReporter reporter, CacheKey cacheKey) {
+    super(context, reporter, cacheKey);
+    json = new JsonSerialization<>(FilesManifest.class, context, reporter, cacheKey.withPrefix(JSON_PREFIX));
+    sequence = new SequenceSerialization(context, reporter, cacheKey.withPrefix(SEQ_PREFIX));
   }
 
   void writeToCache(List<String> files) throws IOException {
     var manifest = sequence.writeToCache(files);
     json.writeToCache(manifest);
+    getReporter().recordBytesWritten(totalSize(manifest));
   }
 
   @Override
@@ -52,12 +53,32 @@ class UCFGFilesSerialization extends CacheSerialization {
   }
 
   void readFromCache() throws IOException {
+    var event = new CacheEvents.UcfgRestore();
+    event.begin();
+    var start = System.nanoTime();
+    var manifest = readManifest();
+    sequence.readFromCache(manifest);
+    var size = totalSize(manifest);
+    getReporter().recordBytesRead(size);
+    getReporter().recordStage(CacheReporter.Stage.UCFG_EXTRACT, start);
+    if (event.shouldCommit()) {
+      event.cacheKey = getCacheKey().toString();
+      event.files = manifest.getFileSizes().size();
+      event.size = size;
+      event.commit();
+    }
+  }
+
+  private static long totalSize(FilesManifest manifest) {
+    return manifest.getFileSizes().stream().mapToLong(FilesManifest.FileSize::getSize).sum();
+  }
+
+  private FilesManifest readManifest() throws IOException {
     var manifest = json.readFromCache();
     if (manifest == null) {
       throw new IOException("The manifest is null for key " + getCacheKey());
     }
-
-    sequence.readFromCache(manifest);
+    return manifest;
   }
 
   @Override
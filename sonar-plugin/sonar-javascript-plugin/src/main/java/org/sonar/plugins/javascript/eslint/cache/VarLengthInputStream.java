@@ -57,6 +57,11 @@ public class VarLengthInputStream implements Closeable {
     return result;
   }
 
+  public int readSignedInt() throws IOException {
+    var value = readInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
   public byte readByte() throws IOException {
     return in.readByte();
   }
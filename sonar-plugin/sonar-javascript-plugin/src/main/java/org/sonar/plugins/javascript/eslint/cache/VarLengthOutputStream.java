@@ -51,6 +51,11 @@ public class VarLengthOutputStream implements Closeable {
     } while (value != 0);
   }
 
+  public void writeSignedInt(int value) throws IOException {
+    // zigzag encoding keeps small negative values on a single byte
+    writeInt((value << 1) ^ (value >> 31));
+  }
+
   public void writeUTF(@Nullable String string) throws IOException {
     var bytes = Objects.requireNonNullElse(string, "").getBytes(StandardCharsets.UTF_8);
     writeInt(bytes.length);
@@ -20,8 +20,30 @@
 package org.sonar.plugins.javascript.external;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.io.ByteOrderMark;
+import org.apache.commons.io.input.BOMInputStream;
+import org.sonar.api.batch.fs.FilePredicate;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.rule.Severity;
@@ -30,16 +52,40 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.CancellationException;
 import org.sonarsource.analyzer.commons.ExternalReportProvider;
 
-abstract class AbstractExternalIssuesSensor implements Sensor {
+/**
+ * Imports the issues of external linters from JSON reports made of an array of entries, each of them bound to a file.
+ * <p>
+ * Entries are streamed one at a time, so that the memory used does not depend on the size of the reports. The path of
+ * every entry is resolved through an {@link InputFileResolver}, which looks each path up once, whatever the number of
+ * issues reported on it. Reports can be read on worker threads, while issues are always saved on the sensor thread.
+ * <p>
+ * Fingerprints of the reports and of the entries of every file are kept in the sensor cache. When unchanged files can
+ * be skipped, the issues of files whose entries did not change since the previous analysis are not imported again. If
+ * the reports changed, this is only known once all of them are read, so they are read a second time for the issues of
+ * the unchanged files whose entries changed.
+ *
+ * @param <T> the type of the entries of the reports
+ */
+public abstract class AbstractExternalIssuesSensor<T> implements Sensor {
 
   private static final Logger LOG = Loggers.get(AbstractExternalIssuesSensor.class);
-  static final Gson gson = new Gson();
+  private static final Gson GSON = new Gson();
+  private static final ByteOrderMark[] BYTE_ORDER_MARKS = {ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE};
+  private static final int QUEUE_CAPACITY = 256;
+  private static final Runnable END_OF_REPORT = () -> {};
+
+  protected static final long DEFAULT_REMEDIATION_COST = 5L;
+  protected static final Severity DEFAULT_SEVERITY = Severity.MAJOR;
+  protected static final String FILE_EXCEPTION_MESSAGE = "No issues information will be saved as the report file can't be read.";
 
-  static final long DEFAULT_REMEDIATION_COST = 5L;
-  static final Severity DEFAULT_SEVERITY = Severity.MAJOR;
-  static final String FILE_EXCEPTION_MESSAGE = "No issues information will be saved as the report file can't be read.";
+  private final Class<T> entryType;
+
+  protected AbstractExternalIssuesSensor(Class<T> entryType) {
+    this.entryType = entryType;
+  }
 
   @Override
   public void describe(SensorDescriptor sensorDescriptor) {
@@ -51,20 +97,244 @@ abstract class AbstractExternalIssuesSensor implements Sensor {
   @Override
   public void execute(SensorContext context) {
     List<File> reportFiles = ExternalReportProvider.getReportFiles(context, reportsPropertyName());
-    reportFiles.forEach(report -> importReport(report, context));
+    var resolver = new InputFileResolver(context, linterName(), this::filePredicate);
+    var cache = ExternalIssuesCache.create(context, linterName(), reportFiles);
+    if (!cache.isEnabled()) {
+      importReports(reportFiles, context, entry -> saveEntry(context, resolveFile(resolver, entry), entry));
+      return;
+    }
+    if (cache.canSkipUnchangedFiles() && cache.areReportsUnchanged()) {
+      importUnchangedReports(reportFiles, context, resolver, cache);
+    } else if (cache.canSkipUnchangedFiles()) {
+      importChangedReports(reportFiles, context, resolver, cache);
+    } else {
+      importAllReports(reportFiles, context, resolver, cache);
+    }
+    cache.writeReportsFingerprint();
+  }
+
+  /**
+   * The entries of the reports are the same as in the previous analysis: only the issues of the files which changed
+   * since then are imported, along with their fingerprints which are carried over.
+   */
+  private void importUnchangedReports(List<File> reportFiles, SensorContext context, InputFileResolver resolver, ExternalIssuesCache cache) {
+    var files = new HashSet<InputFile>();
+    var skippedFiles = new HashSet<InputFile>();
+    importReports(reportFiles, context, entry -> {
+      var inputFile = resolveFile(resolver, entry);
+      if (inputFile == null) {
+        return;
+      }
+      if (files.add(inputFile)) {
+        cache.copyFingerprint(inputFile);
+      }
+      if (inputFile.status() == InputFile.Status.SAME) {
+        skippedFiles.add(inputFile);
+      } else {
+        saveIssues(context, inputFile, entry);
+      }
+    });
+    logSkippedFiles(skippedFiles.size());
+  }
+
+  /**
+   * The issues of the changed files are imported while the fingerprints of all files are computed. The fingerprints of
+   * the unchanged files are only complete once all reports are read, which are then read again to import the issues of
+   * the unchanged files whose entries changed since the previous analysis, if any.
+   */
+  private void importChangedReports(List<File> reportFiles, SensorContext context, InputFileResolver resolver, ExternalIssuesCache cache) {
+    var fingerprints = new ExternalIssuesCache.FileFingerprints();
+    var unchangedFiles = new HashSet<InputFile>();
+    importFingerprintedReports(reportFiles, context, (entry, fingerprint) -> {
+      var inputFile = resolveFile(resolver, entry);
+      if (inputFile == null) {
+        return;
+      }
+      fingerprints.add(inputFile, fingerprint);
+      if (inputFile.status() == InputFile.Status.SAME) {
+        unchangedFiles.add(inputFile);
+      } else {
+        saveIssues(context, inputFile, entry);
+      }
+    });
+    var filesToImport = new HashSet<InputFile>();
+    for (var inputFile : unchangedFiles) {
+      if (!cache.isUnchanged(inputFile, fingerprints.get(inputFile))) {
+        filesToImport.add(inputFile);
+      }
+    }
+    if (!filesToImport.isEmpty()) {
+      LOG.debug("Reading the {} reports again to import the issues of {} unchanged file(s) whose entries changed", linterName(), filesToImport.size());
+      importReports(reportFiles, context, entry -> {
+        var inputFile = resolveFile(resolver, entry);
+        if (filesToImport.contains(inputFile)) {
+          saveIssues(context, inputFile, entry);
+        }
+      });
+    }
+    fingerprints.forEach(cache::writeFingerprint);
+    logSkippedFiles(unchangedFiles.size() - filesToImport.size());
+  }
+
+  private void importAllReports(List<File> reportFiles, SensorContext context, InputFileResolver resolver, ExternalIssuesCache cache) {
+    var fingerprints = new ExternalIssuesCache.FileFingerprints();
+    importFingerprintedReports(reportFiles, context, (entry, fingerprint) -> {
+      var inputFile = resolveFile(resolver, entry);
+      if (inputFile != null) {
+        fingerprints.add(inputFile, fingerprint);
+        saveIssues(context, inputFile, entry);
+      }
+    });
+    fingerprints.forEach(cache::writeFingerprint);
+  }
+
+  private void logSkippedFiles(int count) {
+    LOG.debug("Issues of {} unchanged file(s) were not imported again from the {} reports", count, linterName());
+  }
+
+  /**
+   * Streams the entries of the reports to the consumer, which is always called on the sensor thread.
+   */
+  private void importReports(List<File> reportFiles, SensorContext context, Consumer<T> consumer) {
+    importReports(reportFiles, context, false, (entry, fingerprint) -> consumer.accept(entry));
+  }
+
+  /**
+   * Same as {@link #importReports(List, SensorContext, Consumer)}, along with the fingerprint of every entry, which is
+   * computed while the entry is read.
+   */
+  private void importFingerprintedReports(List<File> reportFiles, SensorContext context, BiConsumer<T, byte[]> consumer) {
+    importReports(reportFiles, context, true, consumer);
+  }
+
+  private void importReports(List<File> reportFiles, SensorContext context, boolean fingerprinted, BiConsumer<T, byte[]> consumer) {
+    var threads = Math.min(reportFiles.size(), importThreads(context));
+    if (threads <= 1) {
+      reportFiles.forEach(report -> readReport(report, fingerprinted, consumer));
+    } else {
+      importReportsInParallel(reportFiles, fingerprinted, consumer, threads);
+    }
   }
 
-  InputFile getInputFile(SensorContext context, String fileName) {
-    FilePredicates predicates = context.fileSystem().predicates();
-    InputFile inputFile = context.fileSystem().inputFile(predicates.hasPath(fileName));
-    if (inputFile == null) {
-      LOG.warn("No input file found for {}. No {} issues will be imported on this file.", fileName, linterName());
-      return null;
+  private void importReportsInParallel(List<File> reportFiles, boolean fingerprinted, BiConsumer<T, byte[]> consumer, int threads) {
+    BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    ExecutorService executor = Executors.newFixedThreadPool(threads, this::newThread);
+    try {
+      for (File report : reportFiles) {
+        executor.submit(() -> {
+          try {
+            readReport(report, fingerprinted, (entry, fingerprint) -> put(queue, () -> consumer.accept(entry, fingerprint)));
+          } finally {
+            put(queue, END_OF_REPORT);
+          }
+        });
+      }
+      var remainingReports = reportFiles.size();
+      while (remainingReports > 0) {
+        var task = take(queue);
+        if (task == END_OF_REPORT) {
+          remainingReports--;
+        } else {
+          task.run();
+        }
+      }
+    } finally {
+      executor.shutdownNow();
     }
-    return inputFile;
   }
 
-  abstract String linterName();
-  abstract String reportsPropertyName();
-  abstract void importReport(File report, SensorContext context);
+  private Thread newThread(Runnable runnable) {
+    var thread = new Thread(runnable, "sonarjs-" + linterName().toLowerCase(Locale.ROOT) + "-report-import");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private void readReport(File report, boolean fingerprinted, BiConsumer<T, byte[]> consumer) {
+    LOG.info("Importing {}", report.getAbsoluteFile());
+
+    try (BOMInputStream bomInputStream = new BOMInputStream(Files.newInputStream(report.toPath()), BYTE_ORDER_MARKS)) {
+      String charsetName = bomInputStream.getBOMCharsetName();
+      if (charsetName == null) {
+        charsetName = StandardCharsets.UTF_8.name();
+      }
+      JsonReader reader = new JsonReader(new InputStreamReader(bomInputStream, charsetName));
+      if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+        throw new JsonSyntaxException("Expected an array of entries but was " + reader.peek() + " at " + reader.getPath());
+      }
+      reader.beginArray();
+      while (reader.hasNext()) {
+        T entry;
+        byte[] fingerprint = null;
+        if (fingerprinted) {
+          var element = JsonParser.parseReader(reader);
+          entry = GSON.fromJson(element, entryType);
+          fingerprint = ExternalIssuesCache.fingerprint(element);
+        } else {
+          entry = GSON.fromJson(reader, entryType);
+        }
+        if (entry != null) {
+          consumer.accept(entry, fingerprint);
+        }
+      }
+      reader.endArray();
+    } catch (IOException | JsonParseException e) {
+      LOG.error(FILE_EXCEPTION_MESSAGE, e);
+    }
+  }
+
+  @CheckForNull
+  private InputFile resolveFile(InputFileResolver resolver, T entry) {
+    var filePath = filePath(entry);
+    return filePath == null ? null : resolver.resolve(filePath);
+  }
+
+  private void saveEntry(SensorContext context, @Nullable InputFile inputFile, T entry) {
+    if (inputFile != null) {
+      saveIssues(context, inputFile, entry);
+    }
+  }
+
+  private static void put(BlockingQueue<Runnable> queue, Runnable save) {
+    try {
+      queue.put(save);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while importing external issues");
+    }
+  }
+
+  private static Runnable take(BlockingQueue<Runnable> queue) {
+    try {
+      return queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while importing external issues", e);
+    }
+  }
+
+  /**
+   * Number of reports read at the same time, reports are read one after the other by default.
+   */
+  protected int importThreads(SensorContext context) {
+    return 1;
+  }
+
+  /**
+   * Predicate matching the input file of a path found in a report.
+   */
+  protected FilePredicate filePredicate(FilePredicates predicates, String filePath) {
+    return predicates.hasPath(filePath);
+  }
+
+  protected abstract String linterName();
+
+  protected abstract String reportsPropertyName();
+
+  /**
+   * Path of the file an entry of a report is bound to.
+   */
+  @CheckForNull
+  protected abstract String filePath(T entry);
+
+  protected abstract void saveIssues(SensorContext context, InputFile inputFile, T entry);
 }
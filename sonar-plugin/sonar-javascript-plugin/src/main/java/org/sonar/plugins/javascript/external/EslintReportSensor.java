@@ -19,12 +19,6 @@
  */
 package org.sonar.plugins.javascript.external;
 
-import com.google.gson.JsonSyntaxException;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextPointer;
 import org.sonar.api.batch.fs.TextRange;
@@ -40,41 +34,47 @@ import org.sonarsource.analyzer.commons.ExternalRuleLoader;
 
 import static org.sonar.plugins.javascript.JavaScriptPlugin.ESLINT_REPORT_PATHS;
 
-public class EslintReportSensor extends AbstractExternalIssuesSensor {
+public class EslintReportSensor extends AbstractExternalIssuesSensor<EslintReportSensor.FileWithMessages> {
 
   private static final Logger LOG = Loggers.get(EslintReportSensor.class);
 
+  // internal property for the number of reports read at the same time
+  static final String IMPORT_THREADS_PROPERTY = "sonar.eslint.importThreads";
+  static final int DEFAULT_IMPORT_THREADS = 4;
+
+  public EslintReportSensor() {
+    super(FileWithMessages.class);
+  }
+
   @Override
-  String linterName() {
+  protected String linterName() {
     return EslintRulesDefinition.LINTER_NAME;
   }
 
   @Override
-  String reportsPropertyName() {
+  protected String reportsPropertyName() {
     return ESLINT_REPORT_PATHS;
   }
 
   @Override
-  void importReport(File report, SensorContext context) {
-    LOG.info("Importing {}", report.getAbsoluteFile());
-
-    try (InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(report), StandardCharsets.UTF_8)) {
-      FileWithMessages[] filesWithMessages = gson.fromJson(inputStreamReader, FileWithMessages[].class);
-
-      for (FileWithMessages fileWithMessages : filesWithMessages) {
-        InputFile inputFile = getInputFile(context, fileWithMessages.filePath);
-        if (inputFile != null) {
-          for (EslintError eslintError : fileWithMessages.messages) {
-            saveEslintError(context, eslintError, inputFile, fileWithMessages.filePath);
-          }
-        }
+  protected int importThreads(SensorContext context) {
+    return context.config().getInt(IMPORT_THREADS_PROPERTY).orElse(DEFAULT_IMPORT_THREADS);
+  }
+
+  @Override
+  protected String filePath(FileWithMessages fileWithMessages) {
+    return fileWithMessages.filePath;
+  }
+
+  @Override
+  protected void saveIssues(SensorContext context, InputFile inputFile, FileWithMessages fileWithMessages) {
+    if (fileWithMessages.messages != null) {
+      for (EslintError eslintError : fileWithMessages.messages) {
+        saveEslintError(context, eslintError, inputFile, fileWithMessages.filePath);
       }
-    } catch (IOException|JsonSyntaxException e) {
-      LOG.error(FILE_EXCEPTION_MESSAGE, e);
     }
   }
 
-
   private static void saveEslintError(SensorContext context, EslintError eslintError, InputFile inputFile, String originalFilePath) {
     String eslintKey = eslintError.ruleId;
     if (eslintKey == null) {
@@ -122,7 +122,7 @@ public class EslintReportSensor extends AbstractExternalIssuesSensor {
     }
   }
 
-  private static class FileWithMessages {
+  static class FileWithMessages {
     String filePath;
     EslintError[] messages;
   }
@@ -0,0 +1,210 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.external;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.SonarProduct;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.Version;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.javascript.eslint.PluginInfo;
+
+/**
+ * Fingerprints of the reports of an external linter, and of the report entries of every file, kept in the sensor cache.
+ * When unchanged files can be skipped, they tell which files have the same entries as in the previous analysis, so
+ * that their issues are not imported again, the same way unchanged files are not analyzed again.
+ */
+class ExternalIssuesCache {
+
+  private static final Logger LOG = Loggers.get(ExternalIssuesCache.class);
+  private static final String REPORTS_KEY = "reports";
+  private static final Gson GSON = new Gson();
+
+  private final SensorContext context;
+  private final String keyPrefix;
+  private final boolean enabled;
+  @Nullable
+  private final byte[] reportsFingerprint;
+
+  private ExternalIssuesCache(SensorContext context, String keyPrefix, boolean enabled, @Nullable byte[] reportsFingerprint) {
+    this.context = context;
+    this.keyPrefix = keyPrefix;
+    this.enabled = enabled;
+    this.reportsFingerprint = reportsFingerprint;
+  }
+
+  static ExternalIssuesCache create(SensorContext context, String linterName, List<File> reportFiles) {
+    var keyPrefix = Stream.of("js", "external", linterName.toLowerCase(Locale.ROOT), PluginInfo.getVersion())
+      .filter(Objects::nonNull)
+      .collect(Collectors.joining(":"));
+    if (!isRuntimeApiCompatible(context) || !context.isCacheEnabled()) {
+      return new ExternalIssuesCache(context, keyPrefix, false, null);
+    }
+    return new ExternalIssuesCache(context, keyPrefix, true, fingerprint(reportFiles));
+  }
+
+  private static boolean isRuntimeApiCompatible(SensorContext context) {
+    var isVersionValid = context.runtime().getApiVersion().isGreaterThanOrEqual(Version.create(9, 4));
+    var isProductValid = context.runtime().getProduct() != SonarProduct.SONARLINT;
+    return isVersionValid && isProductValid;
+  }
+
+  @CheckForNull
+  private static byte[] fingerprint(List<File> reportFiles) {
+    var digest = sha256();
+    for (File report : reportFiles) {
+      try (InputStream input = new DigestInputStream(Files.newInputStream(report.toPath()), digest)) {
+        input.transferTo(OutputStream.nullOutputStream());
+      } catch (IOException e) {
+        LOG.debug("Failed to compute the fingerprint of report " + report, e);
+        return null;
+      }
+    }
+    return digest.digest();
+  }
+
+  /**
+   * Fingerprint of an entry as read from a report, the entry is streamed to the digest without being kept as a string.
+   */
+  static byte[] fingerprint(JsonElement entry) {
+    var digest = sha256();
+    var output = new OutputStreamWriter(new DigestOutputStream(OutputStream.nullOutputStream(), digest), StandardCharsets.UTF_8);
+    try (var writer = new JsonWriter(output)) {
+      GSON.toJson(entry, writer);
+    } catch (IOException e) {
+      // never thrown as nothing is actually written
+      throw new IllegalStateException(e);
+    }
+    return digest.digest();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  boolean canSkipUnchangedFiles() {
+    return enabled && context.canSkipUnchangedFiles();
+  }
+
+  boolean areReportsUnchanged() {
+    return reportsFingerprint != null && Arrays.equals(reportsFingerprint, readFromPrevious(REPORTS_KEY));
+  }
+
+  void writeReportsFingerprint() {
+    if (reportsFingerprint != null) {
+      context.nextCache().write(key(REPORTS_KEY), reportsFingerprint);
+    }
+  }
+
+  boolean isUnchanged(InputFile inputFile, @Nullable byte[] fingerprint) {
+    return fingerprint != null && inputFile.status() == InputFile.Status.SAME && Arrays.equals(fingerprint, readFromPrevious(inputFile.key()));
+  }
+
+  void copyFingerprint(InputFile inputFile) {
+    var key = key(inputFile.key());
+    if (context.previousCache().contains(key)) {
+      context.nextCache().copyFromPrevious(key);
+    }
+  }
+
+  void writeFingerprint(InputFile inputFile, byte[] fingerprint) {
+    context.nextCache().write(key(inputFile.key()), fingerprint);
+  }
+
+  @CheckForNull
+  private byte[] readFromPrevious(String name) {
+    var key = key(name);
+    if (!context.previousCache().contains(key)) {
+      return null;
+    }
+    try (var input = context.previousCache().read(key)) {
+      return input.readAllBytes();
+    } catch (IOException e) {
+      LOG.debug("Failure when reading cache entry " + key, e);
+      return null;
+    }
+  }
+
+  private String key(String name) {
+    return keyPrefix + ":" + name;
+  }
+
+  /**
+   * Fingerprints of the entries of every file. Entries of a same file can be spread over several reports, which are
+   * read concurrently, so the fingerprint of a file is the sum of the fingerprints of its entries, whatever their order.
+   */
+  static class FileFingerprints {
+
+    private final Map<InputFile, byte[]> fingerprints = new HashMap<>();
+
+    void add(InputFile inputFile, byte[] entryFingerprint) {
+      var sum = fingerprints.computeIfAbsent(inputFile, file -> new byte[entryFingerprint.length]);
+      var carry = 0;
+      for (int i = sum.length - 1; i >= 0; i--) {
+        var value = (sum[i] & 0xFF) + (entryFingerprint[i] & 0xFF) + carry;
+        sum[i] = (byte) value;
+        carry = value >>> 8;
+      }
+    }
+
+    @CheckForNull
+    byte[] get(InputFile inputFile) {
+      return fingerprints.get(inputFile);
+    }
+
+    void forEach(BiConsumer<InputFile, byte[]> consumer) {
+      fingerprints.forEach(consumer);
+    }
+  }
+}
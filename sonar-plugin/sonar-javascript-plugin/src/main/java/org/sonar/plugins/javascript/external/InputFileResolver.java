@@ -0,0 +1,67 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.external;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Resolves the paths found in the reports of an external linter to input files. Each path is looked up once in the file
+ * system, paths without input file included, as reports list the issues of a same file over and over.
+ * Not thread-safe: it is only used on the sensor thread.
+ */
+class InputFileResolver {
+
+  private static final Logger LOG = Loggers.get(InputFileResolver.class);
+
+  private final FileSystem fileSystem;
+  private final String linterName;
+  private final BiFunction<FilePredicates, String, FilePredicate> predicate;
+  private final Map<String, Optional<InputFile>> inputFiles = new HashMap<>();
+
+  InputFileResolver(SensorContext context, String linterName, BiFunction<FilePredicates, String, FilePredicate> predicate) {
+    this.fileSystem = context.fileSystem();
+    this.linterName = linterName;
+    this.predicate = predicate;
+  }
+
+  @CheckForNull
+  InputFile resolve(String filePath) {
+    return inputFiles.computeIfAbsent(filePath, this::lookup).orElse(null);
+  }
+
+  private Optional<InputFile> lookup(String filePath) {
+    InputFile inputFile = fileSystem.inputFile(predicate.apply(fileSystem.predicates(), filePath));
+    if (inputFile == null) {
+      LOG.warn("No input file found for {}. No {} issues will be imported on this file.", filePath, linterName);
+    }
+    return Optional.ofNullable(inputFile);
+  }
+}
@@ -19,11 +19,6 @@
  */
 package org.sonar.plugins.javascript.external;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextPointer;
@@ -38,41 +33,33 @@ import org.sonar.plugins.javascript.rules.TslintRulesDefinition;
 
 import static org.sonar.plugins.javascript.JavaScriptPlugin.TSLINT_REPORT_PATHS;
 
-public class TslintReportSensor extends AbstractExternalIssuesSensor {
+public class TslintReportSensor extends AbstractExternalIssuesSensor<TslintReportSensor.TslintError> {
 
   private static final Logger LOG = Loggers.get(TslintReportSensor.class);
 
+  public TslintReportSensor() {
+    super(TslintError.class);
+  }
+
   @Override
-  String linterName() {
+  protected String linterName() {
     return TslintRulesDefinition.LINTER_NAME;
   }
 
   @Override
-  String reportsPropertyName() {
+  protected String reportsPropertyName() {
     return TSLINT_REPORT_PATHS;
   }
 
   @Override
-  void importReport(File report, SensorContext context) {
-    LOG.info("Importing {}", report.getAbsoluteFile());
-    try (InputStreamReader inputStreamReader = new InputStreamReader(new FileInputStream(report), StandardCharsets.UTF_8)) {
-      TslintError[] tslintErrors = gson.fromJson(inputStreamReader, TslintError[].class);
-      for (TslintError tslintError : tslintErrors) {
-        saveTslintError(context, tslintError);
-      }
-    } catch (IOException e) {
-      LOG.error(FILE_EXCEPTION_MESSAGE, e);
-    }
+  protected String filePath(TslintError tslintError) {
+    return tslintError.name;
   }
 
-  private void saveTslintError(SensorContext context, TslintError tslintError) {
+  @Override
+  protected void saveIssues(SensorContext context, InputFile inputFile, TslintError tslintError) {
     String tslintKey = tslintError.ruleName;
 
-    InputFile inputFile = getInputFile(context, tslintError.name);
-    if (inputFile == null) {
-      return;
-    }
-
     TextRange location = getLocation(tslintError, inputFile);
     TextPointer start = location.start();
     RuleType ruleType = TslintRulesDefinition.ruleType(tslintKey);
@@ -110,7 +97,7 @@ public class TslintReportSensor extends AbstractExternalIssuesSensor {
     }
   }
 
-  private static class TslintError {
+  static class TslintError {
     TslintPosition startPosition;
     TslintPosition endPosition;
     String failure;
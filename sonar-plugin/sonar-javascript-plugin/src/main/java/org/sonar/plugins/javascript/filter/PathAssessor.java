@@ -29,7 +29,7 @@ import org.sonar.plugins.javascript.JavaScriptPlugin;
 import static java.util.Arrays.stream;
 import static java.util.stream.Stream.concat;
 
-class PathAssessor implements Assessor {
+public class PathAssessor implements Assessor {
 
   private static final Logger LOG = Loggers.get(PathAssessor.class);
   private static final String[] EXCLUSIONS_DEFAULT_VALUE = new String[]{
@@ -39,10 +39,12 @@ class PathAssessor implements Assessor {
     "**/vendor/**",
     "**/external/**",
     "**/*.d.ts"};
+  // name of a file which cannot match specific patterns, to check whether a pattern excludes a whole directory
+  private static final String ANY_FILE = "sonarjs-any-file";
 
   private final WildcardPattern[] excludedPatterns;
 
-  PathAssessor(Configuration configuration) {
+  public PathAssessor(Configuration configuration) {
     if (!isExclusionOverridden(configuration)) {
       excludedPatterns = WildcardPattern.create(EXCLUSIONS_DEFAULT_VALUE);
     } else {
@@ -65,4 +67,13 @@ class PathAssessor implements Assessor {
     }
     return false;
   }
+
+  /**
+   * Whether all the files below a directory, at any depth, are excluded.
+   */
+  public boolean isExcludedDirectory(String relativePath) {
+    var directory = relativePath.isEmpty() ? "" : (relativePath + "/");
+    return WildcardPattern.match(excludedPatterns, directory + ANY_FILE)
+      && WildcardPattern.match(excludedPatterns, directory + ANY_FILE + "/" + ANY_FILE);
+  }
 }
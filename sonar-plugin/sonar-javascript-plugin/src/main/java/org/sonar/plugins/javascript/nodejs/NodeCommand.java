@@ -114,6 +114,14 @@ public class NodeCommand {
     }
   }
 
+  /**
+   * Kill external process and wait for it to terminate
+   */
+  public void destroy() {
+    processWrapper.destroyForcibly(process);
+    waitFor();
+  }
+
   @Override
   public String toString() {
     return String.join(" ", command);
@@ -0,0 +1,40 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.utils;
+
+/**
+ * Lowercase hexadecimal encoding of hashes, as {@code java.util.HexFormat} is not available before Java 17.
+ */
+public final class Hex {
+
+  private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+  private Hex() {
+  }
+
+  public static String encode(byte[] bytes) {
+    var chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0xF];
+      chars[2 * i + 1] = DIGITS[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+}
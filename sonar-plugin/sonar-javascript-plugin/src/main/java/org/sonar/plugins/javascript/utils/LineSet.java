@@ -0,0 +1,113 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.utils;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of line numbers backed by a {@link BitSet}, for metrics collected on every line of a file. Lines are not boxed
+ * when they are added, but only when the set is read through the {@link java.util.Set} API, e.g. by the
+ * {@link org.sonar.api.issue.NoSonarFilter}.
+ */
+public final class LineSet extends AbstractSet<Integer> {
+
+  private final BitSet lines = new BitSet();
+  private int size;
+
+  public static LineSet of(int[] lines) {
+    var lineSet = new LineSet();
+    for (int line : lines) {
+      lineSet.add(line);
+    }
+    return lineSet;
+  }
+
+  public boolean add(int line) {
+    if (lines.get(line)) {
+      return false;
+    }
+    lines.set(line);
+    size++;
+    return true;
+  }
+
+  @Override
+  public boolean add(Integer line) {
+    return add(line.intValue());
+  }
+
+  /**
+   * Adds all the lines from {@code fromLine} to {@code toLine}, both inclusive.
+   */
+  public void addRange(int fromLine, int toLine) {
+    for (var line = fromLine; line <= toLine; line++) {
+      add(line);
+    }
+  }
+
+  public boolean contains(int line) {
+    return line >= 0 && lines.get(line);
+  }
+
+  @Override
+  public boolean contains(Object line) {
+    return line instanceof Integer && contains(((Integer) line).intValue());
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Iterates over the lines in ascending order, without boxing them.
+   */
+  public void forEachLine(IntConsumer consumer) {
+    for (var line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+      consumer.accept(line);
+    }
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<>() {
+      private int next = lines.nextSetBit(0);
+
+      @Override
+      public boolean hasNext() {
+        return next >= 0;
+      }
+
+      @Override
+      public Integer next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        var line = next;
+        next = lines.nextSetBit(line + 1);
+        return line;
+      }
+    };
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.plugins.javascript.TestUtils;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisDeduplicationTest {
+
+  private static final String CONTENT = "foo();";
+
+  @TempDir
+  Path baseDir;
+
+  private SensorContextTester context;
+
+  @BeforeEach
+  void setUp() {
+    context = SensorContextTester.create(baseDir);
+  }
+
+  @Test
+  void should_reuse_analysis_of_identical_file_without_performance_data() throws Exception {
+    var first = TestUtils.createInputFile(context, CONTENT, "dir/file.js");
+    var second = TestUtils.createInputFile(context, CONTENT, "other/file.js");
+    var deduplication = AnalysisDeduplication.create(List.of(first, second), file -> "default", List.of());
+    var response = new AnalysisResponse();
+    response.perf = new EslintBridgeServer.Perf();
+
+    assertThat(deduplication.previousAnalysis(first)).isNull();
+    deduplication.register(first, response);
+    var reused = deduplication.previousAnalysis(second);
+
+    assertThat(reused).isNotNull();
+    assertThat(reused.issues).isSameAs(response.issues);
+    assertThat(reused.perf).isNull();
+  }
+
+  @Test
+  void should_not_reuse_analysis_of_file_with_other_name() throws Exception {
+    var first = TestUtils.createInputFile(context, CONTENT, "dir/file.js");
+    var second = TestUtils.createInputFile(context, CONTENT, "dir/other.js");
+    var deduplication = AnalysisDeduplication.create(List.of(first, second), file -> "default", List.of());
+
+    deduplication.register(first, new AnalysisResponse());
+
+    assertThat(deduplication.previousAnalysis(second)).isNull();
+  }
+
+  @Test
+  void should_not_retain_response_of_released_files() throws Exception {
+    var first = TestUtils.createInputFile(context, CONTENT, "a/file.js");
+    var second = TestUtils.createInputFile(context, CONTENT, "b/file.js");
+    var third = TestUtils.createInputFile(context, CONTENT, "c/file.js");
+    var deduplication = AnalysisDeduplication.create(List.of(first, second, third), file -> "default", List.of());
+
+    deduplication.release(first);
+    deduplication.register(second, new AnalysisResponse());
+    deduplication.release(third);
+
+    assertThat(deduplication.previousAnalysis(third)).isNull();
+  }
+
+}
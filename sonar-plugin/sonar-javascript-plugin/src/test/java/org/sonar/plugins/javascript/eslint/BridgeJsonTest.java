@@ -0,0 +1,93 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.ParsingErrorCode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BridgeJsonTest {
+
+  private static final Gson REFLECTIVE_GSON = new Gson();
+
+  private static final String RESPONSE = "{"
+    + "\"parsingError\":{\"message\":\"Unexpected token\",\"line\":3,\"code\":\"PARSING\"},"
+    + "\"issues\":[{\"line\":1,\"column\":2,\"endLine\":1,\"endColumn\":5,\"message\":\"Remove this <script>\",\"ruleId\":\"no-foo\","
+    + "\"secondaryLocations\":[{\"line\":2,\"column\":0,\"endLine\":2,\"endColumn\":3,\"message\":\"here\"}],\"cost\":2.5,"
+    + "\"quickFixes\":[{\"message\":\"Fix it\",\"edits\":[{\"text\":\"bar\",\"loc\":{\"line\":1,\"column\":2,\"endLine\":1,\"endColumn\":5}}]}]},"
+    + "{\"line\":4,\"message\":\"File issue\",\"ruleId\":\"no-bar\",\"secondaryLocations\":[],\"unknown\":{\"nested\":[1,2]}}],"
+    + "\"highlights\":[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":5},\"textType\":\"KEYWORD\"}],"
+    + "\"highlightedSymbols\":[{\"declaration\":{\"startLine\":1,\"startCol\":6,\"endLine\":1,\"endCol\":7},"
+    + "\"references\":[{\"startLine\":2,\"startCol\":2,\"endLine\":2,\"endCol\":3}]}],"
+    + "\"metrics\":{\"ncloc\":[1,2,4],\"commentLines\":[3],\"nosonarLines\":[],\"executableLines\":[2,4],\"functions\":1,"
+    + "\"statements\":2,\"classes\":0,\"complexity\":3,\"cognitiveComplexity\":4},"
+    + "\"cpdTokens\":[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":5},\"image\":\"const\"}],"
+    + "\"perf\":{\"parseTime\":12,\"analysisTime\":34,\"ruleTimes\":{\"no-foo\":56}},"
+    + "\"ucfgPaths\":[\"ucfg/file.ucfg\"]"
+    + "}";
+
+  @Test
+  void should_read_response() {
+    var response = BridgeJson.GSON.fromJson(RESPONSE, AnalysisResponse.class);
+
+    assertThat(response.parsingError.code).isEqualTo(ParsingErrorCode.PARSING);
+    assertThat(response.parsingError.line).isEqualTo(3);
+    assertThat(response.issues).hasSize(2);
+    var issue = response.issues.get(0);
+    assertThat(issue.endColumn).isEqualTo(5);
+    assertThat(issue.cost).isEqualTo(2.5);
+    assertThat(issue.secondaryLocations.get(0).message).isEqualTo("here");
+    assertThat(issue.quickFixes.get(0).edits.get(0).loc.endColumn).isEqualTo(5);
+    assertThat(response.issues.get(1).column).isNull();
+    assertThat(response.issues.get(1).quickFixes).isNull();
+    assertThat(response.highlights.size()).isEqualTo(1);
+    assertThat(response.highlightedSymbols.referencesEnd(0)).isEqualTo(1);
+    assertThat(response.metrics.ncloc).containsExactly(1, 2, 4);
+    assertThat(response.metrics.cognitiveComplexity).isEqualTo(4);
+    assertThat(response.cpdTokens.image(0)).isEqualTo("const");
+    assertThat(response.perf.ruleTimes).containsExactly(Map.entry("no-foo", 56));
+    assertThat(response.ucfgPaths).containsExactly("ucfg/file.ucfg");
+  }
+
+  @Test
+  void should_map_response_like_reflection() {
+    var response = BridgeJson.GSON.fromJson(RESPONSE, AnalysisResponse.class);
+    var reflectiveResponse = REFLECTIVE_GSON.fromJson(RESPONSE, AnalysisResponse.class);
+
+    assertThat(JsonParser.parseString(BridgeJson.GSON.toJson(response)))
+      .isEqualTo(JsonParser.parseString(REFLECTIVE_GSON.toJson(reflectiveResponse)));
+  }
+
+  @Test
+  void should_keep_defaults_of_missing_fields() {
+    var response = BridgeJson.GSON.fromJson("{\"issues\":null,\"unknown\":true}", AnalysisResponse.class);
+    assertThat(response.parsingError).isNull();
+    assertThat(response.issues).isEmpty();
+    assertThat(response.metrics.ncloc).isEmpty();
+    assertThat(response.cpdTokens.size()).isZero();
+    assertThat(response.ucfgPaths).isEmpty();
+    assertThat(BridgeJson.GSON.fromJson("{\"parsingError\":{\"code\":\"NEW_CODE\"}}", AnalysisResponse.class).parsingError.code).isNull();
+  }
+}
@@ -25,8 +25,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +66,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -202,6 +204,18 @@ class CssRuleSensorTest {
       .containsOnly(fileCss, fileHtml, filePhp, fileVue);
   }
 
+  @Test
+  void should_init_css_linter_once() throws IOException {
+    addInputFile("file1.css");
+    addInputFile("file2.css");
+    sensor.execute(context);
+
+    verify(eslintBridgeServerMock, times(1)).initCssLinter(any());
+    ArgumentCaptor<CssAnalysisRequest> capturedRequest = ArgumentCaptor.forClass(CssAnalysisRequest.class);
+    verify(eslintBridgeServerMock, times(2)).analyzeCss(capturedRequest.capture());
+    assertThat(capturedRequest.getAllValues()).extracting(request -> request.linterId).containsOnly(AnalysisMode.DEFAULT_LINTER_ID);
+  }
+
   @Test
   void test_no_file_to_analyze() {
     sensor.execute(context);
@@ -240,7 +254,7 @@ class CssRuleSensorTest {
     InputFile httpFile = mock(InputFile.class);
     when(httpFile.filename()).thenReturn("file.css");
     when(httpFile.uri()).thenReturn(new URI("http://lost-on-earth.com/file.css"));
-    sensor.analyzeFile(httpFile, context, Collections.emptyList());
+    sensor.analyzeFile(httpFile, context);
     assertThat(String.join("\n", logTester.logs(LoggerLevel.DEBUG)))
       .matches("(?s).*Skipping \\S*file.css as it has not 'file' scheme.*")
       .doesNotMatch("(?s).*\nAnalyzing \\S*file.css.*");
@@ -306,7 +320,8 @@ class CssRuleSensorTest {
   }
 
   @Test
-  void should_send_file_content_if_encoding_is_not_utf8() throws IOException {
+  void should_hand_file_content_over_if_encoding_is_not_utf8() throws IOException {
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.contentHandoff", true));
     String filePath = "copy-file-content-into-issue-message.css";
     DefaultInputFile inputFile = new TestInputFileBuilder("moduleKey", filePath)
       .setLanguage(CssLanguage.KEY)
@@ -314,11 +329,20 @@ class CssRuleSensorTest {
       .setContents("css content")
       .build();
     context.fileSystem().add(inputFile);
+    var handedOver = new AtomicReference<String>();
+    when(eslintBridgeServerMock.analyzeCss(any())).thenAnswer(invocation -> {
+      CssAnalysisRequest request = invocation.getArgument(0);
+      handedOver.set(Files.readString(Path.of(request.fileContentPath), StandardCharsets.UTF_8));
+      return new AnalysisResponse();
+    });
     sensor.execute(context);
     ArgumentCaptor<CssAnalysisRequest> capturedRequest = ArgumentCaptor.forClass(CssAnalysisRequest.class);
     verify(eslintBridgeServerMock).analyzeCss(capturedRequest.capture());
 
-    assertThat(capturedRequest.getValue().fileContent).isEqualTo("css content");
+    assertThat(capturedRequest.getValue().fileContent).isNull();
+    assertThat(capturedRequest.getValue().fileContentPath).startsWith(workDir.resolve("eslint-bridge-content").toString());
+    assertThat(capturedRequest.getValue().fileContentHash).hasSize(64);
+    assertThat(handedOver.get()).isEqualTo("css content");
   }
 
   @Test
@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.javascript.eslint;
 
+import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -30,6 +31,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -62,7 +65,9 @@ import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.api.utils.log.LoggerLevel.DEBUG;
 import static org.sonar.api.utils.log.LoggerLevel.ERROR;
@@ -171,6 +176,40 @@ class EslintBridgeServerImplTest {
     assertThat(eslintBridgeServer.analyzeJavaScript(request).issues).isEmpty();
   }
 
+  @Test
+  void should_record_flight_recorder_events() throws Exception {
+    var recordingFile = workDir.resolve("recording.jfr");
+    try (var recording = new Recording()) {
+      recording.enable(AnalysisEvents.BridgeStart.class).withoutThreshold();
+      recording.enable(AnalysisEvents.InitLinter.class).withoutThreshold();
+      recording.enable(AnalysisEvents.FileRequest.class).withoutThreshold();
+      recording.start();
+
+      eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+      eslintBridgeServer.deploy();
+      eslintBridgeServer.startServer(context, emptyList());
+      eslintBridgeServer.initLinter(emptyList(), emptyList(), emptyList(), AnalysisMode.DEFAULT);
+      JsAnalysisRequest request = new JsAnalysisRequest("/foo.js", "MAIN", "alert(1)", true, null, "program-1", DEFAULT_LINTER_ID);
+      eslintBridgeServer.analyzeJavaScript(request);
+
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+
+    var events = RecordingFile.readAllEvents(recordingFile);
+    assertThat(events).extracting(e -> e.getEventType().getName()).containsExactly(
+      "org.sonarsource.javascript.BridgeStart",
+      "org.sonarsource.javascript.InitLinter",
+      "org.sonarsource.javascript.FileRequest");
+    var fileRequest = events.get(2);
+    assertThat(fileRequest.getString("endpoint")).isEqualTo("analyze-js");
+    assertThat(fileRequest.getString("filePath")).isEqualTo("/foo.js");
+    assertThat(fileRequest.getString("linterId")).isEqualTo(DEFAULT_LINTER_ID);
+    assertThat(fileRequest.getString("programId")).isEqualTo("program-1");
+    assertThat(fileRequest.getLong("requestSize")).isPositive();
+    assertThat(events.get(1).getInt("rules")).isZero();
+  }
+
   @Test
   void test_init() throws Exception {
     eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
@@ -183,6 +222,18 @@ class EslintBridgeServerImplTest {
     assertThat(logTester.logs()).contains("{\"linterId\":\"default\",\"rules\":[{\"key\":\"key\",\"fileTypeTarget\":[\"MAIN\"],\"configurations\":[\"config\"]}],\"environments\":[],\"globals\":[]}");
   }
 
+  @Test
+  void test_init_css() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    List<StylelintRule> rules = Collections.singletonList(new StylelintRule("block-no-empty", emptyList()));
+    eslintBridgeServer.initCssLinter(rules);
+    eslintBridgeServer.stop();
+    assertThat(logTester.logs()).contains("{\"linterId\":\"default\",\"rules\":[{\"key\":\"block-no-empty\",\"configurations\":[]}]}");
+  }
+
   @Test
   void should_get_answer_from_server_for_ts_request() throws Exception {
     eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
@@ -264,7 +315,7 @@ class EslintBridgeServerImplTest {
     DefaultInputFile inputFile = TestInputFileBuilder.create("foo", "foo.css")
       .setContents("a { }")
       .build();
-    CssAnalysisRequest request = new CssAnalysisRequest(inputFile.absolutePath(), inputFile.type().toString(), Collections.emptyList());
+    CssAnalysisRequest request = new CssAnalysisRequest(inputFile.absolutePath(), null, DEFAULT_LINTER_ID);
     assertThat(eslintBridgeServer.analyzeCss(request).issues).isEmpty();
   }
 
@@ -476,6 +527,142 @@ class EslintBridgeServerImplTest {
       " (e.g. 4096).");
   }
 
+  @Test
+  void should_skip_file_exceeding_deadline() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer("timeout.js");
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    JsAnalysisRequest request = new JsAnalysisRequest("/slow.js", "MAIN", "alert(1)", true, null, null, DEFAULT_LINTER_ID);
+    assertThatThrownBy(() -> eslintBridgeServer.analyzeJavaScript(request))
+      .isInstanceOf(FileAnalysisTimeoutException.class)
+      .hasMessage("Analysis of file /slow.js exceeded the deadline of 1 seconds")
+      .satisfies(e -> assertThat(((FileAnalysisTimeoutException) e).isServerRestarted()).isFalse());
+    assertThat(eslintBridgeServer.isAlive()).isTrue();
+
+    eslintBridgeServer.clean();
+    assertThat(logTester.logs(INFO)).contains("Slowest files analyzed by eslint-bridge:");
+    assertThat(logTester.logs(INFO)).anyMatch(log -> log.startsWith("  1. /slow.js: ") && log.endsWith(" ms (skipped)"));
+    assertThat(logTester.logs(WARN)).contains("1 file(s) skipped as their analysis exceeded the deadline of 1 seconds: /slow.js");
+  }
+
+  @Test
+  void should_restart_server_busy_with_file_exceeding_deadline() throws Exception {
+    var nodeDeprecationWarning = mock(NodeDeprecationWarning.class);
+    eslintBridgeServer = new EslintBridgeServerImpl(NodeCommand.builder(), TEST_TIMEOUT_SECONDS, new TestBundle("busyFile.js"), emptyRulesBundles,
+      nodeDeprecationWarning, tempFolder, monitoring);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+    eslintBridgeServer.initLinter(emptyList(), emptyList(), emptyList(), AnalysisMode.SKIP_UNCHANGED);
+
+    JsAnalysisRequest busyRequest = new JsAnalysisRequest("/busy.js", "MAIN", "alert(1)", true, null, null, DEFAULT_LINTER_ID);
+    assertThatThrownBy(() -> eslintBridgeServer.analyzeJavaScript(busyRequest))
+      .isInstanceOf(FileAnalysisTimeoutException.class)
+      .satisfies(e -> assertThat(((FileAnalysisTimeoutException) e).isServerRestarted()).isTrue());
+    assertThat(logTester.logs(WARN)).contains("eslint-bridge Node.js process is still busy with file /busy.js, restarting it");
+    // linters are initialized again on the new process
+    assertThat(logTester.logs(INFO).stream().filter(log -> log.startsWith("init-linter")))
+      .containsExactly("init-linter default", "init-linter unchanged", "init-linter default", "init-linter unchanged");
+
+    JsAnalysisRequest request = new JsAnalysisRequest("/foo.js", "MAIN", "alert(1)", true, null, null, DEFAULT_LINTER_ID);
+    assertThat(eslintBridgeServer.analyzeJavaScript(request).issues).isEmpty();
+    // the deprecation of Node.js is only logged at the first start
+    verify(nodeDeprecationWarning).logNodeDeprecation(anyInt());
+  }
+
+  @Test
+  void should_use_file_timeout_property() throws Exception {
+    eslintBridgeServer = new EslintBridgeServerImpl(NodeCommand.builder(), 10, new TestBundle(START_SERVER_SCRIPT), emptyRulesBundles,
+      deprecationWarning, tempFolder, monitoring);
+    assertThat(eslintBridgeServer.getFileTimeoutSeconds()).isEqualTo(10);
+
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.analysis.fileTimeout", "3"));
+    eslintBridgeServer.startServerLazily(context);
+    assertThat(eslintBridgeServer.getFileTimeoutSeconds()).isEqualTo(3);
+  }
+
+  @Test
+  void should_record_process_status_on_heartbeat() throws Exception {
+    var settings = new MapSettings();
+    settings.setProperty("sonar.javascript.monitoring", "true");
+    var monitoringPath = workDir.resolve("monitoring");
+    settings.setProperty("sonar.javascript.monitoring.path", monitoringPath.toString());
+    var monitoring = new Monitoring(settings.asConfig());
+    monitoring.startSensor(context, new Sensor() {
+      @Override
+      public void describe(SensorDescriptor descriptor) {
+
+      }
+
+      @Override
+      public void execute(SensorContext context) {
+
+      }
+    });
+    eslintBridgeServer = new EslintBridgeServerImpl(NodeCommand.builder(), TEST_TIMEOUT_SECONDS,
+      new TestBundle(START_SERVER_SCRIPT), emptyRulesBundles, deprecationWarning, tempFolder, monitoring);
+    assertThat(eslintBridgeServer.processStatus()).isEmpty();
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    var processStatus = eslintBridgeServer.processStatus();
+    assertThat(processStatus).isPresent();
+    assertThat(processStatus.get().heapUsed).isEqualTo(100L * 1024 * 1024);
+    assertThat(processStatus.get().programs).isEqualTo(2);
+
+    eslintBridgeServer.heartbeat();
+    eslintBridgeServer.stop();
+    monitoring.stop();
+
+    var metric = new Gson().fromJson(Files.readAllLines(monitoringPath.resolve("metrics.json")).get(0), Monitoring.ProcessMetric.class);
+    assertThat(metric.metricType).isEqualTo(Monitoring.MetricType.PROCESS);
+    assertThat(metric.heapLimit).isEqualTo(1024L * 1024 * 1024);
+    assertThat(metric.rss).isEqualTo(300L * 1024 * 1024);
+    assertThat(metric.eventLoopLag).isEqualTo(1.5);
+    assertThat(metric.eventLoopLagMax).isEqualTo(3);
+    assertThat(memoryWarnings()).isEmpty();
+  }
+
+  @Test
+  void should_warn_when_heap_is_close_to_limit() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+
+    var processStatus = new EslintBridgeServer.ProcessStatus();
+    processStatus.heapLimit = 1000L * 1024 * 1024;
+    processStatus.heapUsed = 850L * 1024 * 1024;
+    eslintBridgeServer.checkMemory(processStatus);
+    assertThat(memoryWarnings()).isEmpty();
+
+    processStatus.heapUsed = 950L * 1024 * 1024;
+    eslintBridgeServer.checkMemory(processStatus);
+    eslintBridgeServer.checkMemory(processStatus);
+    assertThat(memoryWarnings()).containsExactly("eslint-bridge Node.js process uses 950 MB of heap out of 1000 MB. " +
+      "Consider setting sonar.javascript.node.maxspace to a higher value (e.g. 4096).");
+  }
+
+  @Test
+  void should_warn_relatively_to_maxspace() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.node.maxspace", 512));
+    eslintBridgeServer.startServer(context, emptyList());
+
+    var processStatus = new EslintBridgeServer.ProcessStatus();
+    processStatus.heapLimit = 4096L * 1024 * 1024;
+    processStatus.heapUsed = 500L * 1024 * 1024;
+    eslintBridgeServer.checkMemory(processStatus);
+    assertThat(memoryWarnings()).containsExactly("eslint-bridge Node.js process uses 500 MB of heap out of 512 MB. " +
+      "Consider setting sonar.javascript.node.maxspace to a higher value (e.g. 4096).");
+  }
+
+  private List<String> memoryWarnings() {
+    return logTester.logs(WARN).stream()
+      .filter(log -> log.startsWith("eslint-bridge Node.js process uses"))
+      .collect(Collectors.toList());
+  }
+
   @Test
   void test_rule_tostring() {
     EslintRule rule = new EslintRule("key", emptyList(), Collections.singletonList(InputFile.Type.MAIN));
@@ -507,6 +694,7 @@ class EslintBridgeServerImplTest {
   void should_use_default_timeout() {
     eslintBridgeServer = new EslintBridgeServerImpl(NodeCommand.builder(), mock(Bundle.class), mock(RulesBundles.class), deprecationWarning, tempFolder, monitoring);
     assertThat(eslintBridgeServer.getTimeoutSeconds()).isEqualTo(300);
+    assertThat(eslintBridgeServer.getFileTimeoutSeconds()).isEqualTo(300);
   }
 
   @Test
@@ -556,12 +744,20 @@ class EslintBridgeServerImplTest {
       new TestBundle(START_SERVER_SCRIPT), emptyRulesBundles, deprecationWarning, tempFolder, monitoring);
     eslintBridgeServer.deploy();
     eslintBridgeServer.startServerLazily(context);
+    JsAnalysisRequest request = new JsAnalysisRequest("/foo.js", "MAIN", "alert(1)", true, null, null, DEFAULT_LINTER_ID);
+    var perf = eslintBridgeServer.analyzeJavaScript(request).perf;
     eslintBridgeServer.stop();
-    var rules = monitoring.metrics().stream()
-      .filter(m -> m.metricType == Monitoring.MetricType.RULE)
-      .map(m -> ((Monitoring.RuleMetric) m).ruleKey)
-      .collect(Collectors.toList());
-    assertThat(rules).containsExactly("no-commented-code", "arguments-order", "deprecation");
+    assertThat(perf.ruleTimes).containsOnlyKeys("no-commented-code", "arguments-order", "deprecation");
+    assertThat(perf.ruleTimes).containsEntry("no-commented-code", 633);
+  }
+
+  @Test
+  void disabled_monitoring_has_no_rule_times() throws Exception {
+    eslintBridgeServer = createEslintBridgeServer(START_SERVER_SCRIPT);
+    eslintBridgeServer.deploy();
+    eslintBridgeServer.startServer(context, emptyList());
+    JsAnalysisRequest request = new JsAnalysisRequest("/foo.js", "MAIN", "alert(1)", true, null, null, DEFAULT_LINTER_ID);
+    assertThat(eslintBridgeServer.analyzeJavaScript(request).perf).isNull();
   }
 
   @Test
@@ -0,0 +1,125 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.plugins.javascript.utils.Hex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileContentHandoffTest {
+
+  @TempDir
+  Path baseDir;
+
+  @TempDir
+  Path workDir;
+
+  private SensorContextTester context;
+
+  @BeforeEach
+  void setUp() {
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    context.setSettings(new MapSettings().setProperty(FileContentHandoff.CONTENT_HANDOFF, true));
+  }
+
+  @Test
+  void should_not_send_utf8_content() throws Exception {
+    var file = inputFile("foo();", StandardCharsets.UTF_8);
+    try (var content = handoff().prepare(file)) {
+      assertThat(content.text).isNull();
+      assertThat(content.path).isNull();
+      assertThat(content.hash).isNull();
+    }
+  }
+
+  @Test
+  void should_copy_content_as_utf8() throws Exception {
+    var file = inputFile("foo(\"é\");", StandardCharsets.ISO_8859_1);
+    Path copy;
+    try (var content = handoff().prepare(file)) {
+      assertThat(content.text).isNull();
+      copy = Path.of(content.path);
+      assertThat(copy).startsWith(workDir.resolve("eslint-bridge-content"));
+      var bytes = Files.readAllBytes(copy);
+      assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("foo(\"é\");");
+      assertThat(content.hash).isEqualTo(Hex.encode(MessageDigest.getInstance("SHA-256").digest(bytes)));
+    }
+    assertThat(copy).doesNotExist();
+  }
+
+  @Test
+  void should_send_content_by_default() throws Exception {
+    context.setSettings(new MapSettings());
+    var handoff = handoff();
+    assertThat(handoff.isEnabled()).isFalse();
+    try (var content = handoff.prepare(inputFile("foo(\"é\");", StandardCharsets.ISO_8859_1))) {
+      assertThat(content.text).isEqualTo("foo(\"é\");");
+      assertThat(content.path).isNull();
+    }
+    assertThat(workDir.resolve("eslint-bridge-content")).doesNotExist();
+  }
+
+  @Test
+  void should_send_small_buffers_in_sonarlint() throws Exception {
+    context.setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(7, 9)));
+    try (var content = handoff().prepare(inputFile("foo();", StandardCharsets.UTF_8))) {
+      assertThat(content.text).isEqualTo("foo();");
+      assertThat(content.path).isNull();
+    }
+  }
+
+  @Test
+  void should_copy_large_buffers_in_sonarlint() throws Exception {
+    context.setRuntime(SonarRuntimeImpl.forSonarLint(Version.create(7, 9)));
+    var text = "a".repeat(FileContentHandoff.SONARLINT_INLINE_MAX_LENGTH + 1);
+    try (var content = handoff().prepare(inputFile(text, StandardCharsets.UTF_8))) {
+      assertThat(content.text).isNull();
+      assertThat(Files.readString(Path.of(content.path))).isEqualTo(text);
+    }
+  }
+
+  private FileContentHandoff handoff() {
+    return FileContentHandoff.create(context, new ContextUtils(context));
+  }
+
+  private DefaultInputFile inputFile(String contents, Charset charset) {
+    return new TestInputFileBuilder("moduleKey", "file.js")
+      .setModuleBaseDir(baseDir)
+      .setLanguage("js")
+      .setCharset(charset)
+      .setContents(contents)
+      .build();
+  }
+}
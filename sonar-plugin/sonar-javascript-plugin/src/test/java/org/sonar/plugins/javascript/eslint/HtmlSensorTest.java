@@ -258,6 +258,20 @@ class HtmlSensorTest {
       .doesNotContain("Processing cache analysis of file: " + file.uri());
   }
 
+  @Test
+  void should_keep_cached_entries_of_unchanged_file() throws IOException {
+    var path = "dir/file.html";
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, path);
+    var file = TestUtils.createInputFile(context, getInputFileContent(), path, HtmlSensor.LANGUAGE).setStatus(InputFile.Status.SAME);
+    CacheTestUtils.addCachedFileMetadata(context, file, path);
+
+    createSensor().execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).doesNotContain("Analyzing file: " + file.uri());
+    verify(context.nextCache()).copyFromPrevious("js:cpd:DATA:moduleKey:" + path);
+    verify(context.nextCache()).copyFromPrevious("jssecurity:ucfgs:SEQ:moduleKey:" + path);
+  }
+
   private static JavaScriptChecks checks(String... ruleKeys) {
     ActiveRulesBuilder builder = new ActiveRulesBuilder();
     for (String ruleKey : ruleKeys) {
@@ -23,11 +23,13 @@ import com.google.gson.Gson;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -78,6 +80,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -366,6 +369,7 @@ class JavaScriptEslintBasedSensorTest {
     sensor.execute(context);
 
     assertThat(context.cpdTokens(inputFile.key())).hasSize(2);
+    assertThat(sensor.cpdImages.size()).isEqualTo(2);
   }
 
   @Test
@@ -391,6 +395,42 @@ class JavaScriptEslintBasedSensorTest {
     assertThat(context.allIssues()).isEmpty();
   }
 
+  @Test
+  void should_skip_file_exceeding_deadline() throws Exception {
+    var analysisResponse = response("{ issues: [{\"line\":1,\"column\":0,\"ruleId\":\"no-all-duplicated-branches\",\"message\":\"Issue message\", \"secondaryLocations\": []}]}");
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenAnswer(invocation -> {
+      JsAnalysisRequest request = invocation.getArgument(0);
+      if (request.filePath.endsWith("file.js")) {
+        throw new FileAnalysisTimeoutException("dir/file.js", 120, false, new IOException("timeout"));
+      }
+      return analysisResponse;
+    });
+    TestAnalysisWarnings analysisWarnings = new TestAnalysisWarnings();
+    var monitoringSpy = spy(monitoring);
+    JavaScriptEslintBasedSensor sensor = new JavaScriptEslintBasedSensor(checks(ESLINT_BASED_RULE),
+      eslintBridgeServerMock,
+      analysisWarnings,
+      tempFolder,
+      monitoringSpy,
+      analysisProcessor
+    );
+    DefaultInputFile inputFile = createInputFile(context);
+    DefaultInputFile otherFile = new TestInputFileBuilder("moduleKey", "dir/other.js")
+      .setLanguage("js")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("foo();")
+      .build();
+    context.fileSystem().add(otherFile);
+    sensor.execute(context);
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains("Analysis of file dir/file.js exceeded the deadline of 120 seconds, skipping file " +
+      inputFile + ". Consider excluding it from the analysis or setting sonar.javascript.analysis.fileTimeout to a higher value.");
+    assertThat(analysisWarnings.warnings).containsExactly("The analysis of some files exceeded the deadline and these files were skipped. " +
+      "Check the analysis logs for more details.");
+    assertThat(context.allIssues()).extracting(issue -> issue.primaryLocation().inputComponent()).containsExactly(otherFile);
+    verify(monitoringSpy).stopFile(inputFile, 0, null);
+  }
+
   @Test
   void should_have_descriptor() throws Exception {
     DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
@@ -531,7 +571,37 @@ class JavaScriptEslintBasedSensorTest {
   }
 
   @Test
-  void should_send_content_when_not_utf8() throws Exception {
+  void should_hand_content_over_when_not_utf8() throws Exception {
+    SensorContextTester ctx = SensorContextTester.create(baseDir);
+    ctx.fileSystem().setWorkDir(workDir);
+    ctx.setSettings(new MapSettings().setProperty("sonar.javascript.contentHandoff", true));
+    String content = "if (cond)\ndoFoo(\"é\"); \nelse \ndoFoo();";
+    DefaultInputFile inputFile = new TestInputFileBuilder("moduleKey", "dir/file.js")
+      .setLanguage("js")
+      .setCharset(StandardCharsets.ISO_8859_1)
+      .setContents(content)
+      .build();
+    ctx.fileSystem().add(inputFile);
+    var handedOver = new AtomicReference<String>();
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenAnswer(invocation -> {
+      JsAnalysisRequest request = invocation.getArgument(0);
+      handedOver.set(Files.readString(Path.of(request.fileContentPath), StandardCharsets.UTF_8));
+      return new AnalysisResponse();
+    });
+
+    ArgumentCaptor<JsAnalysisRequest> captor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
+    createSensor().execute(ctx);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    JsAnalysisRequest request = captor.getValue();
+    assertThat(request.fileContent).isNull();
+    assertThat(request.fileContentPath).startsWith(workDir.resolve("eslint-bridge-content").toString());
+    assertThat(request.fileContentHash).hasSize(64);
+    assertThat(handedOver.get()).isEqualTo(content);
+    assertThat(Path.of(request.fileContentPath)).doesNotExist();
+  }
+
+  @Test
+  void should_send_content_when_not_utf8_by_default() throws Exception {
     SensorContextTester ctx = SensorContextTester.create(baseDir);
     ctx.fileSystem().setWorkDir(workDir);
     String content = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
@@ -546,6 +616,7 @@ class JavaScriptEslintBasedSensorTest {
     createSensor().execute(ctx);
     verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
     assertThat(captor.getValue().fileContent).isEqualTo(content);
+    assertThat(captor.getValue().fileContentPath).isNull();
   }
 
   @Test
@@ -595,6 +666,56 @@ class JavaScriptEslintBasedSensorTest {
     assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Processing cache analysis of file: " + file.uri());
   }
 
+  @Test
+  void should_reuse_analysis_of_identical_files_with_type_information() throws Exception {
+    when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(new AnalysisResponse());
+    context.setSettings(new MapSettings().setProperty("sonar.javascript.deduplicateFiles", true));
+    var content = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
+    TestUtils.createInputFile(context, content, "dir/file.js");
+    TestUtils.createInputFile(context, content, "other/file.js");
+    TestUtils.createInputFile(context, content, "other/different-name.js");
+
+    createSensor().execute(context);
+
+    ArgumentCaptor<JsAnalysisRequest> captor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
+    verify(eslintBridgeServerMock, times(2)).analyzeJavaScript(captor.capture());
+    assertThat(captor.getAllValues()).allSatisfy(request -> assertThat(request.tsConfigs).hasSize(1));
+    assertThat(captor.getAllValues()).extracting(request -> Path.of(request.filePath).getFileName().toString())
+      .containsExactlyInAnyOrder("file.js", "different-name.js");
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Reused analysis results for 1 duplicated file(s)");
+  }
+
+  @Test
+  void should_read_local_cache_with_type_information() throws Exception {
+    var settings = new MapSettings().setProperty("sonar.javascript.localCache", true);
+    context.setSettings(settings);
+    var file = TestUtils.createInputFile(context, "foo();", "dir/file.js");
+    createSensor().execute(context);
+
+    var nextContext = SensorContextTester.create(baseDir);
+    nextContext.fileSystem().setWorkDir(workDir);
+    nextContext.setRuntime(context.runtime());
+    nextContext.setSettings(settings);
+    TestUtils.createInputFile(nextContext, "foo();", "dir/file.js");
+    createSensor().execute(nextContext);
+
+    ArgumentCaptor<JsAnalysisRequest> captor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeJavaScript(captor.capture());
+    assertThat(captor.getValue().tsConfigs).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Local analysis cache hit for file: " + file.uri());
+  }
+
+  @Test
+  void should_not_reuse_analysis_of_identical_files_by_default() throws Exception {
+    var content = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
+    TestUtils.createInputFile(context, content, "dir/first.js");
+    TestUtils.createInputFile(context, content, "other/second.js");
+
+    createSensor().execute(context);
+
+    verify(eslintBridgeServerMock, times(2)).analyzeJavaScript(any());
+  }
+
   @Test
   void log_debug_analyzed_filename() throws Exception {
     when(eslintBridgeServerMock.analyzeJavaScript(any())).thenReturn(new AnalysisResponse());
@@ -0,0 +1,90 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+  @Test
+  void should_be_empty() {
+    var histogram = new LatencyHistogram();
+    assertThat(histogram.count()).isZero();
+    assertThat(histogram.max()).isZero();
+    assertThat(histogram.percentile(50)).isZero();
+  }
+
+  @Test
+  void should_record_small_values_exactly() {
+    var histogram = new LatencyHistogram();
+    for (var i = 1; i <= 10; i++) {
+      histogram.record(i);
+    }
+    assertThat(histogram.count()).isEqualTo(10);
+    assertThat(histogram.percentile(50)).isEqualTo(5);
+    assertThat(histogram.percentile(95)).isEqualTo(10);
+    assertThat(histogram.max()).isEqualTo(10);
+  }
+
+  @Test
+  void should_compute_percentiles() {
+    var histogram = new LatencyHistogram();
+    for (var i = 1; i <= 100_000; i++) {
+      histogram.record(i);
+    }
+    assertThat((double) histogram.percentile(50)).isCloseTo(50_000, within(50_000 / 16.0));
+    assertThat((double) histogram.percentile(95)).isCloseTo(95_000, within(95_000 / 16.0));
+    assertThat((double) histogram.percentile(99)).isCloseTo(99_000, within(99_000 / 16.0));
+    assertThat(histogram.percentile(100)).isEqualTo(100_000);
+    assertThat(histogram.max()).isEqualTo(100_000);
+  }
+
+  @Test
+  void should_cap_percentile_to_max() {
+    var histogram = new LatencyHistogram();
+    histogram.record(1_000);
+    assertThat(histogram.percentile(99)).isEqualTo(1_000);
+  }
+
+  @Test
+  void should_map_values_to_buckets() {
+    assertThat(LatencyHistogram.indexOf(0)).isZero();
+    assertThat(LatencyHistogram.indexOf(15)).isEqualTo(15);
+    assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(16))).isEqualTo(16);
+    assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(32))).isEqualTo(33);
+    assertThat(LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    for (long value = 1; value < 1_000_000; value = value * 3 + 1) {
+      var upperBound = LatencyHistogram.upperBoundOf(LatencyHistogram.indexOf(value));
+      assertThat(upperBound).isGreaterThanOrEqualTo(value).isLessThanOrEqualTo(value + value / 16);
+    }
+  }
+
+  @Test
+  void should_ignore_negative_values() {
+    var histogram = new LatencyHistogram();
+    histogram.record(-5);
+    assertThat(histogram.count()).isEqualTo(1);
+    assertThat(histogram.max()).isZero();
+  }
+
+}
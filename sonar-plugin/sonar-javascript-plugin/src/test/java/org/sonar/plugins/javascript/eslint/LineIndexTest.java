@@ -0,0 +1,109 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultTextPointer;
+import org.sonar.api.batch.fs.internal.DefaultTextRange;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class LineIndexTest {
+
+  private static final String CONTENT = "function foo() {\n\n  return 42;\n}";
+
+  @Test
+  void should_create_same_ranges_as_input_file() {
+    var file = inputFile(CONTENT);
+    var lineIndex = new LineIndex(file, true);
+
+    var range = lineIndex.newRange(1, 9, 3, 11);
+    assertThat(range).isEqualTo(file.newRange(1, 9, 3, 11));
+    assertThat(range).hasToString(file.newRange(1, 9, 3, 11).toString());
+    assertThat(range.start()).isEqualTo(new DefaultTextPointer(1, 9));
+    assertThat(range.start().compareTo(range.end())).isNegative();
+
+    assertThat(lineIndex.selectLine(2)).isEqualTo(file.selectLine(2));
+    assertThat(lineIndex.selectLine(3)).isEqualTo(new DefaultTextRange(new DefaultTextPointer(3, 0), new DefaultTextPointer(3, 12)));
+  }
+
+  @Test
+  void should_detect_overlaps() {
+    var lineIndex = new LineIndex(inputFile(CONTENT), true);
+    var range = lineIndex.newRange(1, 0, 1, 8);
+    assertThat(range.overlap(lineIndex.newRange(1, 4, 1, 12))).isTrue();
+    assertThat(range.overlap(lineIndex.newRange(1, 8, 1, 12))).isFalse();
+    assertThat(range.overlap(new DefaultTextRange(new DefaultTextPointer(1, 7), new DefaultTextPointer(3, 1)))).isTrue();
+  }
+
+  @Test
+  void should_fail_like_input_file() {
+    var lineIndex = new LineIndex(inputFile(CONTENT), true);
+    assertThatThrownBy(() -> lineIndex.newRange(5, 0, 5, 1))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("is not a valid line for pointer");
+    assertThatThrownBy(() -> lineIndex.newRange(1, 0, 1, 100))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("is not a valid line offset for pointer");
+    assertThatThrownBy(() -> lineIndex.newRange(1, 4, 1, 4))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("should be before end pointer");
+    assertThatThrownBy(() -> lineIndex.selectLine(0))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void should_read_line_length_once() {
+    // minified file with 10k tokens on a single line
+    var content = "a;".repeat(5_000);
+    var file = spy(inputFile(content));
+    var lineIndex = new LineIndex(file, true);
+    for (var i = 0; i < 10_000; i++) {
+      assertThat(lineIndex.newRange(1, i, 1, i + 1).end().lineOffset()).isEqualTo(i + 1);
+    }
+    verify(file, times(1)).selectLine(1);
+    verify(file, times(0)).newRange(1, 0, 1, 1);
+  }
+
+  @Test
+  void should_delegate_when_disabled() {
+    var file = spy(inputFile(CONTENT));
+    var lineIndex = new LineIndex(file, false);
+    lineIndex.newRange(1, 0, 1, 8);
+    lineIndex.selectLine(3);
+    verify(file).newRange(1, 0, 1, 8);
+    verify(file).selectLine(3);
+    verify(file, times(0)).lines();
+  }
+
+  private static InputFile inputFile(String content) {
+    return new TestInputFileBuilder("moduleKey", "dir/file.js")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(content)
+      .build();
+  }
+}
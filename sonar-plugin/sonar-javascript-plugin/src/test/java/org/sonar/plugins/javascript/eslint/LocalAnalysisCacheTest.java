@@ -0,0 +1,177 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.plugins.javascript.TestUtils;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalAnalysisCacheTest {
+
+  @TempDir
+  Path baseDir;
+
+  @TempDir
+  Path workDir;
+
+  private SensorContextTester context;
+
+  @BeforeEach
+  void setUp() {
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    context.setSettings(new MapSettings().setProperty(LocalAnalysisCache.LOCAL_CACHE_ENABLED, true));
+  }
+
+  @Test
+  void should_be_disabled_by_default() {
+    context.setSettings(new MapSettings());
+    var cache = LocalAnalysisCache.create(context, List.of(), "rules");
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+
+    cache.write(file, "default", response());
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.read(file, "default")).isEmpty();
+  }
+
+  @Test
+  void should_read_written_response_across_runs() {
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+    LocalAnalysisCache.create(context, List.of(), "rules").write(file, "default", response());
+
+    var cache = LocalAnalysisCache.create(context, List.of(), "rules");
+    var cached = cache.read(file, "default");
+
+    assertThat(cached).isPresent();
+    assertThat(cached.get().issues).extracting(issue -> issue.ruleId).containsExactly("no-foo");
+    assertThat(workDir.resolve("js-analysis-cache")).isDirectory();
+  }
+
+  @Test
+  void should_miss_when_content_or_configuration_changes() {
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+    LocalAnalysisCache.create(context, List.of(), "rules").write(file, "default", response());
+
+    assertThat(LocalAnalysisCache.create(context, List.of(), "other rules").read(file, "default")).isEmpty();
+    assertThat(LocalAnalysisCache.create(context, List.of(), "rules").read(file, "unchanged")).isEmpty();
+
+    var changed = TestUtils.createInputFile(SensorContextTester.create(baseDir), "bar();", "file.js");
+    assertThat(LocalAnalysisCache.create(context, List.of(), "rules").read(changed, "default")).isEmpty();
+  }
+
+  @Test
+  void should_miss_for_same_content_in_other_directory() {
+    var file = TestUtils.createInputFile(context, "foo();", "dir/file.js");
+    LocalAnalysisCache.create(context, List.of(), "rules").write(file, "default", response());
+
+    var other = TestUtils.createInputFile(context, "foo();", "other/file.js");
+    assertThat(LocalAnalysisCache.create(context, List.of(), "rules").read(other, "default")).isEmpty();
+  }
+
+  @Test
+  void should_miss_when_program_changes() throws Exception {
+    var tsConfig = Files.writeString(baseDir.resolve("tsconfig.json"), "{}").toString();
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+    TestUtils.createInputFile(context, "export const x = 1;", "lib.ts");
+    LocalAnalysisCache.create(context, List.of(tsConfig), "rules").write(file, "default", response());
+
+    assertThat(LocalAnalysisCache.create(context, List.of(tsConfig), "rules").read(file, "default")).isPresent();
+    assertThat(LocalAnalysisCache.create(context, List.of(), "rules").read(file, "default")).isEmpty();
+
+    Files.writeString(baseDir.resolve("package-lock.json"), "{}");
+    assertThat(LocalAnalysisCache.create(context, List.of(tsConfig), "rules").read(file, "default")).isEmpty();
+    Files.delete(baseDir.resolve("package-lock.json"));
+
+    var changedContext = SensorContextTester.create(baseDir);
+    changedContext.fileSystem().setWorkDir(workDir);
+    changedContext.setSettings(new MapSettings().setProperty(LocalAnalysisCache.LOCAL_CACHE_ENABLED, true));
+    var sameFile = TestUtils.createInputFile(changedContext, "foo();", "file.js");
+    TestUtils.createInputFile(changedContext, "export const x = 2;", "lib.ts");
+    assertThat(LocalAnalysisCache.create(changedContext, List.of(tsConfig), "rules").read(sameFile, "default")).isEmpty();
+  }
+
+  @Test
+  void should_be_disabled_when_tsconfig_cannot_be_read() {
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+
+    var cache = LocalAnalysisCache.create(context, List.of(baseDir.resolve("missing.json").toString()), "rules");
+
+    assertThat(cache.isEnabled()).isFalse();
+    assertThat(cache.read(file, "default")).isEmpty();
+  }
+
+  @Test
+  void should_drop_performance_data_of_cached_response() {
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+    var response = response();
+    response.perf = new EslintBridgeServer.Perf();
+    response.perf.parseTime = 42;
+    LocalAnalysisCache.create(context, List.of(), "rules").write(file, "default", response);
+
+    var cached = LocalAnalysisCache.create(context, List.of(), "rules").read(file, "default");
+
+    assertThat(cached).isPresent();
+    assertThat(cached.get().perf).isNull();
+  }
+
+  @Test
+  void should_not_store_responses_with_ucfg_files() {
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+    var response = response();
+    response.ucfgPaths = List.of("ucfg/file.ucfg");
+    var cache = LocalAnalysisCache.create(context, List.of(), "rules");
+
+    cache.write(file, "default", response);
+
+    assertThat(cache.read(file, "default")).isEmpty();
+  }
+
+  @Test
+  void should_evict_least_recently_used_entries() throws Exception {
+    context.setSettings(new MapSettings()
+      .setProperty(LocalAnalysisCache.LOCAL_CACHE_ENABLED, true)
+      .setProperty(LocalAnalysisCache.LOCAL_CACHE_MAX_SIZE, 0));
+    var cache = LocalAnalysisCache.create(context, List.of(), "rules");
+    var file = TestUtils.createInputFile(context, "foo();", "file.js");
+
+    cache.write(file, "default", response());
+
+    assertThat(cache.size()).isZero();
+    try (var entries = Files.list(workDir.resolve("js-analysis-cache"))) {
+      assertThat(entries).isEmpty();
+    }
+  }
+
+  private static AnalysisResponse response() {
+    return new Gson().fromJson("{ issues: [{\"line\":1,\"column\":0,\"ruleId\":\"no-foo\",\"message\":\"msg\", \"secondaryLocations\": []}]}",
+      AnalysisResponse.class);
+  }
+}
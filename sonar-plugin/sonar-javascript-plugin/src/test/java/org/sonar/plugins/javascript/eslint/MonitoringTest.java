@@ -21,12 +21,19 @@ package org.sonar.plugins.javascript.eslint;
 
 import com.google.gson.Gson;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
 import org.sonar.api.SonarEdition;
 import org.sonar.api.SonarQubeSide;
@@ -39,12 +46,20 @@ import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.utils.Version;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.plugins.javascript.eslint.cache.CacheStrategies;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.within;
 
 class MonitoringTest {
 
+  @RegisterExtension
+  LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
   @TempDir
   Path baseDir;
 
@@ -138,42 +153,251 @@ class MonitoringTest {
   }
 
   @Test
-  void test_program_metric() {
+  void test_program_metric() throws Exception {
     monitoring.startSensor(sensorContextTester, new TestSensor());
     monitoring.startProgram("tsconfig.json");
     monitoring.stopProgram();
     monitoring.startProgram("tsconfig2.json");
     monitoring.stopProgram();
-    assertThat(monitoring.metrics()).extracting(m -> ((Monitoring.ProgramMetric) m).tsConfig)
+    var metrics = readMetrics(Monitoring.ProgramMetric.class);
+    assertThat(metrics).extracting(m -> m.tsConfig)
       .containsExactly("tsconfig.json", "tsconfig2.json");
-    var metric = monitoring.metrics().get(0);
+    var metric = metrics.get(0);
+    assertThat(metric.metricType).isEqualTo(Monitoring.MetricType.PROGRAM);
     assertThat(metric.timestamp).startsWith(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH")));
     assertThat(metric.executionId).isNotEmpty();
     assertThat(metric.canSkipUnchangedFiles).isFalse();
   }
 
   @Test
-  void test_can_skip_unchanged_files() {
+  void test_cache_metric() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    monitoring.cacheStatistics(new CacheStrategies().statistics());
+    monitoring.stopSensor();
+    var metrics = readMetrics(Monitoring.CacheMetric.class);
+    assertThat(metrics).hasSize(2);
+    var metric = metrics.get(0);
+    assertThat(metric.metricType).isEqualTo(Monitoring.MetricType.CACHE);
+    assertThat(metric.component).isEqualTo(TestSensor.class.getCanonicalName());
+    assertThat(metric.hits).isZero();
+    assertThat(metric.misses).isEmpty();
+    assertThat(metric.stages).containsOnlyKeys("HASH", "METADATA_READ", "CPD_DECODE", "UCFG_EXTRACT");
+    assertThat(Files.readAllLines(monitoringPath.resolve("metrics.json")).get(0)).contains("\"bytesRead\":0", "\"HASH\":{\"count\":0");
+  }
+
+  @Test
+  void test_can_skip_unchanged_files() throws Exception {
     SensorContextTester sensorContextTester = SensorContextTester.create(baseDir);
     sensorContextTester.setCanSkipUnchangedFiles(true);
     monitoring.startSensor(sensorContextTester, new TestSensor());
     monitoring.stopSensor();
-    var metric = monitoring.metrics().get(0);
+    var metric = readMetrics(Monitoring.SensorMetric.class).get(0);
     assertThat(metric.canSkipUnchangedFiles).isTrue();
   }
 
   @Test
-  void test_can_not_skip_unchanged_files() {
+  void test_can_not_skip_unchanged_files() throws Exception {
     SensorContextTester sensorContextTester = SensorContextTester.create(baseDir);
     sensorContextTester.setRuntime(
       SonarRuntimeImpl.forSonarQube(Version.create(9, 3), SonarQubeSide.SCANNER, SonarEdition.COMMUNITY));
     sensorContextTester.setCanSkipUnchangedFiles(true);
     monitoring.startSensor(sensorContextTester, new TestSensor());
     monitoring.stopSensor();
-    var metric = monitoring.metrics().get(0);
+    var metric = readMetrics(Monitoring.SensorMetric.class).get(0);
     assertThat(metric.canSkipUnchangedFiles).isFalse();
   }
 
+  @Test
+  void test_file_without_performance_data() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    DefaultInputFile inputFile = TestInputFileBuilder.create("module", "path").build();
+    monitoring.startFile(inputFile);
+    monitoring.stopFile(inputFile, 1, null);
+    monitoring.stopSensor();
+
+    var fileMetric = readMetrics(Monitoring.FileMetric.class).get(0);
+    assertThat(fileMetric.ncloc).isEqualTo(1);
+    assertThat(fileMetric.parseTime).isZero();
+    assertThat(Files.readAllLines(monitoringPath.resolve("metrics.json"))).noneMatch(line -> line.contains("\"LATENCY\""));
+  }
+
+  @Test
+  void test_latency_metrics() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    DefaultInputFile inputFile = TestInputFileBuilder.create("module", "path").build();
+    monitoring.startFile(inputFile);
+    monitoring.recordPhase(Monitoring.Phase.BRIDGE_REQUEST, System.nanoTime() - 10_000_000);
+    monitoring.recordPhase(Monitoring.Phase.SAVE_CPD, System.nanoTime() - 2_000_000);
+    EslintBridgeServer.Perf perf = new EslintBridgeServer.Perf();
+    perf.parseTime = 3_000;
+    perf.analysisTime = 4_000;
+    monitoring.stopFile(inputFile, 1, perf);
+    monitoring.stopSensor();
+
+    var fileMetric = readMetrics(Monitoring.FileMetric.class).get(0);
+    assertThat(fileMetric.requestTime).isGreaterThanOrEqualTo(10_000);
+    var latencies = new ArrayList<Monitoring.LatencyMetric>();
+    for (var line : Files.readAllLines(monitoringPath.resolve("metrics.json"))) {
+      var metric = gson.fromJson(line, Monitoring.LatencyMetric.class);
+      if (metric.metricType == Monitoring.MetricType.LATENCY) {
+        latencies.add(metric);
+      }
+    }
+    assertThat(latencies).extracting(m -> m.phase).containsExactly(
+      Monitoring.Phase.BRIDGE_REQUEST,
+      Monitoring.Phase.HTTP_TRANSFER,
+      Monitoring.Phase.NODE_PARSE,
+      Monitoring.Phase.NODE_ANALYSIS,
+      Monitoring.Phase.SAVE_CPD);
+    var nodeParse = latencies.get(2);
+    assertThat(nodeParse.component).isEqualTo(TestSensor.class.getCanonicalName());
+    assertThat(nodeParse.count).isEqualTo(1);
+    assertThat(nodeParse.p50).isEqualTo(3_000);
+    assertThat(nodeParse.p99).isEqualTo(3_000);
+    assertThat(nodeParse.max).isEqualTo(3_000);
+    assertThat(latencies.get(1).max).isGreaterThanOrEqualTo(3_000);
+  }
+
+  @Test
+  void test_request_outside_of_file() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    DefaultInputFile inputFile = TestInputFileBuilder.create("module", "path").build();
+    monitoring.startFile(inputFile);
+    monitoring.stopFile(inputFile, 1, null);
+    monitoring.recordPhase(Monitoring.Phase.BRIDGE_REQUEST, System.nanoTime() - 10_000_000);
+    monitoring.stopSensor();
+
+    var fileMetric = readMetrics(Monitoring.FileMetric.class).get(0);
+    assertThat(fileMetric.requestTime).isZero();
+    assertThat(Files.readAllLines(monitoringPath.resolve("metrics.json"))).anyMatch(line -> line.contains("\"BRIDGE_REQUEST\""));
+  }
+
+  @Test
+  void test_file_not_stopped_in_previous_sensor() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    DefaultInputFile inputFile = TestInputFileBuilder.create("module", "path").build();
+    monitoring.startFile(inputFile);
+    monitoring.stopSensor();
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    assertThatThrownBy(() -> monitoring.stopFile(inputFile, 1, null))
+      .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void test_rule_times() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    for (var i = 0; i < Monitoring.SLOWEST_RULE_FILES; i++) {
+      DefaultInputFile inputFile = TestInputFileBuilder.create("module", "file" + i + ".js").build();
+      monitoring.startFile(inputFile);
+      EslintBridgeServer.Perf perf = new EslintBridgeServer.Perf();
+      perf.ruleTimes = Map.of("slow-rule", 1_000 * (i + 1), "fast-rule", i);
+      monitoring.stopFile(inputFile, 1, perf);
+    }
+    monitoring.stopSensor();
+
+    var fileMetric = readMetrics(Monitoring.FileMetric.class).get(1);
+    assertThat(fileMetric.ruleTimes).containsOnly(entry("slow-rule", 2_000), entry("fast-rule", 1));
+
+    var lines = Files.readAllLines(monitoringPath.resolve("metrics.json"));
+    var rules = new ArrayList<Monitoring.RuleMetric>();
+    var slowest = new ArrayList<Monitoring.RuleFileMetric>();
+    for (var line : lines) {
+      var metric = gson.fromJson(line, Monitoring.Metric.class);
+      if (metric.metricType == Monitoring.MetricType.RULE) {
+        rules.add(gson.fromJson(line, Monitoring.RuleMetric.class));
+      } else if (metric.metricType == Monitoring.MetricType.RULE_FILE) {
+        slowest.add(gson.fromJson(line, Monitoring.RuleFileMetric.class));
+      }
+    }
+    assertThat(rules).extracting(m -> m.ruleKey).containsExactly("slow-rule", "fast-rule");
+    assertThat(rules.get(0).timeMs).isEqualTo(210.0);
+    assertThat(rules.get(0).timeRelative + rules.get(1).timeRelative).isCloseTo(100.0, within(0.001));
+
+    assertThat(slowest).hasSize(Monitoring.SLOWEST_RULE_FILES);
+    assertThat(slowest.get(0).ruleKey).isEqualTo("slow-rule");
+    assertThat(slowest.get(0).component).isEqualTo("file19.js");
+    assertThat(slowest.get(0).time).isEqualTo(20_000);
+    assertThat(slowest.get(0).rank).isEqualTo(1);
+    assertThat(slowest).extracting(m -> m.ruleKey).containsOnly("slow-rule");
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Slowest rules on a single file:", "  slow-rule on file19.js: 20.000 ms");
+  }
+
+  @Test
+  void test_rule_times_without_time() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    DefaultInputFile inputFile = TestInputFileBuilder.create("module", "file.js").build();
+    monitoring.startFile(inputFile);
+    EslintBridgeServer.Perf perf = new EslintBridgeServer.Perf();
+    perf.ruleTimes = new HashMap<>();
+    perf.ruleTimes.put("timed-rule", 1_000);
+    perf.ruleTimes.put("untimed-rule", null);
+    monitoring.stopFile(inputFile, 1, perf);
+    monitoring.stopSensor();
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("  timed-rule on file.js: 1.000 ms");
+    assertThat(logTester.logs(LoggerLevel.INFO)).noneMatch(log -> log.contains("untimed-rule"));
+  }
+
+  @Test
+  void test_metrics_beyond_queue_capacity() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    var count = MetricsWriter.QUEUE_CAPACITY * 3;
+    for (var i = 0; i < count; i++) {
+      monitoring.startProgram("tsconfig-" + i + ".json");
+      monitoring.stopProgram();
+    }
+    var metrics = readMetrics(Monitoring.ProgramMetric.class);
+    assertThat(metrics).hasSize(count);
+    assertThat(metrics.get(count - 1).tsConfig).isEqualTo("tsconfig-" + (count - 1) + ".json");
+  }
+
+  @Test
+  void test_append_after_stop() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    monitoring.stopSensor();
+    monitoring.stop();
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    monitoring.stopSensor();
+    assertThat(readMetrics(Monitoring.SensorMetric.class)).hasSize(2);
+  }
+
+  @Test
+  void test_process_status_after_stop() throws Exception {
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    monitoring.stopSensor();
+    monitoring.stop();
+    monitoring.recordProcessStatus(new EslintBridgeServer.ProcessStatus());
+    assertThat(readMetrics(Monitoring.Metric.class)).extracting(metric -> metric.metricType).containsExactly(Monitoring.MetricType.SENSOR);
+  }
+
+  @Test
+  void test_missing_path() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty("sonar.javascript.monitoring", true);
+    Monitoring monitoring = new Monitoring(settings.asConfig());
+    monitoring.startSensor(sensorContextTester, new TestSensor());
+    monitoring.stopSensor();
+    assertThatThrownBy(monitoring::stop)
+      .isInstanceOf(IllegalStateException.class)
+      .hasMessage("Failed to write metrics")
+      .hasRootCauseMessage("Monitoring path sonar.javascript.monitoring.path not configured");
+  }
+
+  @Test
+  void test_timestamp() {
+    var millis = LocalDateTime.of(2023, 1, 2, 3, 4, 5, 6_000_000).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    assertThat(MetricsWriter.formatTimestamp(millis)).isEqualTo("2023-01-02 03:04:05.006");
+  }
+
+  private <T extends Monitoring.Metric> List<T> readMetrics(Class<T> metricClass) throws IOException {
+    monitoring.stop();
+    var metrics = new ArrayList<T>();
+    for (var line : Files.readAllLines(monitoringPath.resolve("metrics.json"))) {
+      metrics.add(gson.fromJson(line, metricClass));
+    }
+    return metrics;
+  }
+
   static class TestSensor implements Sensor {
 
     @Override
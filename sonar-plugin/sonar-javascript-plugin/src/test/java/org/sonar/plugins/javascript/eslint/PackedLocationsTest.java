@@ -0,0 +1,101 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.plugins.javascript.eslint.EslintBridgeServer.AnalysisResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedLocationsTest {
+
+  private static final Gson GSON = new Gson();
+
+  private static final String RESPONSE = "{"
+    + "\"highlights\":[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":5},\"textType\":\"KEYWORD\"},"
+    + "{\"location\":{\"startLine\":2,\"startCol\":9,\"endLine\":2,\"endCol\":11},\"textType\":\"CONSTANT\"}],"
+    + "\"highlightedSymbols\":[{\"declaration\":{\"startLine\":1,\"startCol\":6,\"endLine\":1,\"endCol\":7},"
+    + "\"references\":[{\"startLine\":2,\"startCol\":2,\"endLine\":2,\"endCol\":3},{\"startLine\":2,\"startCol\":6,\"endLine\":2,\"endCol\":7}]},"
+    + "{\"declaration\":{\"startLine\":2,\"startCol\":0,\"endLine\":2,\"endCol\":1},\"references\":[]}],"
+    + "\"cpdTokens\":[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":5},\"image\":\"const\"},"
+    + "{\"location\":{\"startLine\":2,\"startCol\":9,\"endLine\":2,\"endCol\":11},\"image\":\"LITERAL\"},"
+    + "{\"image\":\"LITERAL\",\"location\":{\"startLine\":2,\"startCol\":12,\"endLine\":2,\"endCol\":14}}]"
+    + "}";
+
+  @Test
+  void should_read_packed_response() {
+    var lineIndex = new LineIndex(TestInputFileBuilder.create("moduleKey", "file.js")
+      .setContents("const x = 1;\ny(x, x, 42, 43);").build(), true);
+    var response = GSON.fromJson(RESPONSE, AnalysisResponse.class);
+
+    var highlights = response.highlights;
+    assertThat(highlights.size()).isEqualTo(2);
+    assertThat(highlights.type(0)).isEqualTo(TypeOfText.KEYWORD);
+    assertThat(highlights.type(1)).isEqualTo(TypeOfText.CONSTANT);
+    assertThat(highlights.toTextRange(1, lineIndex)).isEqualTo(lineIndex.newRange(2, 9, 2, 11));
+
+    var symbols = response.highlightedSymbols;
+    assertThat(symbols.size()).isEqualTo(2);
+    assertThat(symbols.declaration(0, lineIndex)).isEqualTo(lineIndex.newRange(1, 6, 1, 7));
+    assertThat(symbols.referencesStart(0)).isZero();
+    assertThat(symbols.referencesEnd(0)).isEqualTo(2);
+    assertThat(symbols.reference(1, lineIndex)).isEqualTo(lineIndex.newRange(2, 6, 2, 7));
+    assertThat(symbols.referencesStart(1)).isEqualTo(symbols.referencesEnd(1));
+
+    var cpdTokens = response.cpdTokens;
+    assertThat(cpdTokens.size()).isEqualTo(3);
+    assertThat(cpdTokens.image(0)).isEqualTo("const");
+    assertThat(cpdTokens.toTextRange(2, lineIndex)).isEqualTo(lineIndex.newRange(2, 12, 2, 14));
+    cpdTokens.intern(StringInterner.forCpdImages());
+    assertThat(cpdTokens.image(2)).isSameAs(cpdTokens.image(1));
+  }
+
+  @Test
+  void should_write_same_json() {
+    var response = GSON.fromJson(RESPONSE, AnalysisResponse.class);
+    var copy = GSON.fromJson(GSON.toJson(response), AnalysisResponse.class);
+
+    assertThat(GSON.toJson(copy)).isEqualTo(GSON.toJson(response));
+    assertThat(copy.cpdTokens).isEqualTo(response.cpdTokens);
+    assertThat(copy.highlightedSymbols.referencesEnd(0)).isEqualTo(2);
+  }
+
+  @Test
+  void should_read_missing_arrays_as_empty() {
+    var response = GSON.fromJson("{\"highlights\":null,\"cpdTokens\":null}", AnalysisResponse.class);
+    assertThat(response.highlights.size()).isZero();
+    assertThat(response.highlightedSymbols.size()).isZero();
+    assertThat(response.cpdTokens.size()).isZero();
+  }
+
+  @Test
+  void should_grow_beyond_initial_capacity() {
+    var cpdTokens = new CpdTokens(1);
+    for (var i = 1; i <= 100; i++) {
+      cpdTokens.add(i, 0, i, 1, "x" + i);
+    }
+    assertThat(cpdTokens.size()).isEqualTo(100);
+    assertThat(cpdTokens.startLine(99)).isEqualTo(100);
+    assertThat(cpdTokens.image(99)).isEqualTo("x100");
+  }
+}
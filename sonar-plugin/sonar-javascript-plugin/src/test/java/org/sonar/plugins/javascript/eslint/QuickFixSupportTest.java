@@ -87,7 +87,7 @@ class QuickFixSupportTest {
 
     var issueCaptor = ArgumentCaptor.forClass(DefaultSonarLintIssue.class);
     doNothing().when(sensorStorage).store(issueCaptor.capture());
-    analysisProcessor.processResponse(context, checks, inputFile, response);
+    analysisProcessor.processResponse(context, checks, inputFile, response, StringInterner.forCpdImages());
 
     var sonarLintIssue = issueCaptor.getValue();
 
@@ -131,7 +131,7 @@ class QuickFixSupportTest {
 
     var issueCaptor = ArgumentCaptor.forClass(DefaultSonarLintIssue.class);
     doNothing().when(sensorStorage).store(issueCaptor.capture());
-    analysisProcessor.processResponse(context, checks, inputFile, response);
+    analysisProcessor.processResponse(context, checks, inputFile, response, StringInterner.forCpdImages());
 
     assertThat(issueCaptor.getValue().quickFixes()).isEmpty();
   }
@@ -146,7 +146,7 @@ class QuickFixSupportTest {
 
     var issueCaptor = ArgumentCaptor.forClass(DefaultSonarLintIssue.class);
     doNothing().when(sensorStorage).store(issueCaptor.capture());
-    analysisProcessor.processResponse(context, checks, inputFile, response);
+    analysisProcessor.processResponse(context, checks, inputFile, response, StringInterner.forCpdImages());
 
     assertThat(issueCaptor.getValue().quickFixes()).isEmpty();
   }
@@ -0,0 +1,65 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowestFilesTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @Test
+  void should_keep_slowest_files() {
+    var slowestFiles = new SlowestFiles();
+    for (var i = 1; i <= 2 * SlowestFiles.SLOWEST_FILES; i++) {
+      slowestFiles.record("file" + i + ".js", i * 1_000_000L, false);
+    }
+    var ranked = slowestFiles.ranked();
+    assertThat(ranked).hasSize(SlowestFiles.SLOWEST_FILES);
+    assertThat(ranked.get(0).filePath).isEqualTo("file20.js");
+    assertThat(ranked.get(SlowestFiles.SLOWEST_FILES - 1).filePath).isEqualTo("file11.js");
+    assertThat(slowestFiles.skipped()).isEmpty();
+  }
+
+  @Test
+  void should_log_report() {
+    var slowestFiles = new SlowestFiles();
+    slowestFiles.record("fast.js", 1_000_000L, false);
+    slowestFiles.record("slow.js", 120_000_000_000L, true);
+    slowestFiles.logReport(120);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).containsExactly(
+      "Slowest files analyzed by eslint-bridge:",
+      "  1. slow.js: 120000.000 ms (skipped)",
+      "  2. fast.js: 1.000 ms");
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("1 file(s) skipped as their analysis exceeded the deadline of 120 seconds: slow.js");
+
+    slowestFiles.reset();
+    logTester.clear();
+    slowestFiles.logReport(120);
+    assertThat(logTester.logs()).isEmpty();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringInternerTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5().setLevel(LoggerLevel.DEBUG);
+
+  @Test
+  void should_intern_strings() {
+    var interner = new StringInterner("images", 10);
+    var first = new String("const");
+    var second = new String("const");
+
+    assertThat(interner.intern(first)).isSameAs(first);
+    assertThat(interner.intern(second)).isSameAs(first);
+    assertThat(interner.intern(null)).isNull();
+    assertThat(interner.size()).isEqualTo(1);
+    assertThat(interner.hits()).isEqualTo(1);
+    assertThat(interner.misses()).isEqualTo(1);
+    assertThat(interner.hitRatio()).isEqualTo(0.5);
+    assertThat(interner.savedBytes()).isEqualTo(45);
+  }
+
+  @Test
+  void should_be_bounded() {
+    var interner = new StringInterner("images", 2);
+    interner.intern("a");
+    interner.intern("b");
+    var c = new String("c");
+
+    assertThat(interner.intern(c)).isSameAs(c);
+    assertThat(interner.intern(new String("c"))).isNotSameAs(c);
+    assertThat(interner.size()).isEqualTo(2);
+    assertThat(interner.intern(new String("a"))).isSameAs("a");
+    assertThat(interner.misses()).isEqualTo(4);
+  }
+
+  @Test
+  void should_log_report() {
+    var interner = new StringInterner("images", 10);
+    interner.logReport();
+    assertThat(logTester.logs()).isEmpty();
+
+    interner.intern("if");
+    interner.intern(new String("if"));
+    interner.logReport();
+    assertThat(logTester.logs(LoggerLevel.DEBUG))
+      .containsExactly(String.format("Interned images: 1 distinct out of 2 (max 10), hit ratio %.1f%%, saved about 0 KB of heap", 50.0));
+  }
+
+  @Test
+  void should_share_cpd_images_between_files_of_a_sensor() throws Exception {
+    var json = "[{\"location\":{\"startLine\":1,\"startCol\":0,\"endLine\":1,\"endCol\":2},\"image\":\"if\"}]";
+    var cpdImages = StringInterner.forCpdImages();
+    var first = new CpdTokens.Adapter().fromJson(json);
+    var second = new CpdTokens.Adapter().fromJson(json);
+    var otherSensor = new CpdTokens.Adapter().fromJson(json);
+    first.intern(cpdImages);
+    second.intern(cpdImages);
+    otherSensor.intern(StringInterner.forCpdImages());
+
+    assertThat(second.image(0)).isSameAs(first.image(0));
+    assertThat(otherSensor.image(0)).isNotSameAs(first.image(0));
+  }
+}
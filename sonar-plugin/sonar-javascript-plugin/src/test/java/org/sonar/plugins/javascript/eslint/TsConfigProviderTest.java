@@ -30,6 +30,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
@@ -85,6 +86,55 @@ class TsConfigProviderTest {
     assertThat(tsconfigs).containsExactlyInAnyOrder(tsconfig1.toAbsolutePath().toString(), tsconfig2.toAbsolutePath().toString());
   }
 
+  @Test
+  void should_not_look_tsconfig_files_up_in_ignored_directories() throws Exception {
+    Path tsconfig = Files.createFile(baseDir.resolve("tsconfig.json"));
+    for (String ignored : List.of(".git", "dist", "lib/vendor", "excluded", ".scannerwork", "work")) {
+      Path directory = Files.createDirectories(baseDir.resolve(ignored));
+      Files.createFile(directory.resolve("tsconfig.json"));
+    }
+
+    SensorContextTester ctx = SensorContextTester.create(baseDir);
+    ctx.setSettings(new MapSettings().setProperty(CoreProperties.WORKING_DIRECTORY, "work"));
+    List<String> tsconfigs = new TsConfigProvider.LookupTsConfigProvider().tsconfigs(ctx);
+    assertThat(tsconfigs).containsExactly(tsconfig.toAbsolutePath().toString(), baseDir.resolve("excluded/tsconfig.json").toAbsolutePath().toString());
+
+    ctx.setSettings(new MapSettings()
+      .setProperty(CoreProperties.WORKING_DIRECTORY, "work")
+      .setProperty(JavaScriptPlugin.TS_EXCLUSIONS_KEY, "excluded/**"));
+    tsconfigs = new TsConfigProvider.LookupTsConfigProvider().tsconfigs(ctx);
+    assertThat(tsconfigs).containsExactlyInAnyOrder(
+      tsconfig.toAbsolutePath().toString(),
+      baseDir.resolve("dist/tsconfig.json").toAbsolutePath().toString(),
+      baseDir.resolve("lib/vendor/tsconfig.json").toAbsolutePath().toString());
+  }
+
+  @Test
+  void should_limit_depth_of_tsconfig_lookup() throws Exception {
+    Path tsconfig1 = Files.createFile(baseDir.resolve("tsconfig.json"));
+    Path tsconfig2 = Files.createFile(Files.createDirectories(baseDir.resolve("a")).resolve("tsconfig.json"));
+    Files.createFile(Files.createDirectories(baseDir.resolve("a/b")).resolve("tsconfig.json"));
+
+    SensorContextTester ctx = SensorContextTester.create(baseDir);
+    ctx.setSettings(new MapSettings().setProperty(TsConfigProvider.LookupTsConfigProvider.MAX_DEPTH_PROPERTY, 2));
+    List<String> tsconfigs = new TsConfigProvider.LookupTsConfigProvider().tsconfigs(ctx);
+    assertThat(tsconfigs).containsExactly(tsconfig1.toAbsolutePath().toString(), tsconfig2.toAbsolutePath().toString());
+  }
+
+  @Test
+  void should_follow_symbolic_links_once_in_tsconfig_lookup(@TempDir Path outsideDir) throws Exception {
+    Path target = Files.createDirectories(outsideDir.resolve("packages/app"));
+    Files.createFile(target.resolve("tsconfig.json"));
+    Path link = Files.createSymbolicLink(baseDir.resolve("app"), target);
+    // cycle back to the base directory
+    Files.createSymbolicLink(target.resolve("root"), baseDir);
+    Path tsconfig = Files.createFile(baseDir.resolve("tsconfig.json"));
+
+    SensorContextTester ctx = SensorContextTester.create(baseDir);
+    List<String> tsconfigs = new TsConfigProvider.LookupTsConfigProvider().tsconfigs(ctx);
+    assertThat(tsconfigs).containsExactly(tsconfig.toAbsolutePath().toString(), link.resolve("tsconfig.json").toAbsolutePath().toString());
+  }
+
   @Test
   void should_use_tsconfig_from_property() throws Exception {
     Path baseDir = tempFolder.newDir().toPath();
@@ -20,6 +20,7 @@
 package org.sonar.plugins.javascript.eslint;
 
 import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -30,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.junit.jupiter.api.BeforeEach;
@@ -86,6 +88,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -310,8 +313,9 @@ class TypeScriptSensorTest {
   }
 
   @Test
-  void should_send_content_when_not_utf8() throws Exception {
+  void should_hand_content_over_when_not_utf8() throws Exception {
     SensorContextTester ctx = createSensorContext(baseDir);
+    ctx.settings().setProperty("sonar.javascript.contentHandoff", true);
     createVueInputFile(ctx);
     String content = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
     DefaultInputFile inputFile = new TestInputFileBuilder("moduleKey", "dir/file.ts")
@@ -323,10 +327,20 @@ class TypeScriptSensorTest {
     Files.write(baseDir.resolve("tsconfig.json"), singleton("{}"));
     when(eslintBridgeServerMock.loadTsConfig(any())).thenReturn(new TsConfigFile("tsconfig.json", singletonList(inputFile.absolutePath()), emptyList()));
 
+    var handedOver = new AtomicReference<String>();
+    when(eslintBridgeServerMock.analyzeTypeScript(any())).thenAnswer(invocation -> {
+      JsAnalysisRequest request = invocation.getArgument(0);
+      handedOver.set(Files.readString(Path.of(request.fileContentPath), StandardCharsets.UTF_8));
+      return new AnalysisResponse();
+    });
+
     ArgumentCaptor<JsAnalysisRequest> captor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
     createSensor().execute(ctx);
     verify(eslintBridgeServerMock).analyzeTypeScript(captor.capture());
-    assertThat(captor.getValue().fileContent).isEqualTo(content);
+    assertThat(captor.getValue().fileContent).isNull();
+    assertThat(captor.getValue().fileContentHash).hasSize(64);
+    assertThat(handedOver.get()).isEqualTo(content);
+    assertThat(Path.of(captor.getValue().fileContentPath)).doesNotExist();
   }
 
   @Test
@@ -648,6 +662,133 @@ class TypeScriptSensorTest {
     assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Processing cache analysis of file: " + file.uri());
   }
 
+  @Test
+  void should_not_create_program_when_no_file_needs_analysis() throws IOException {
+    var path = "dir/file.ts";
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, path);
+    var file = TestUtils.createInputFile(context, "if (cond)\ndoFoo(); \nelse \ndoFoo();", path).setStatus(InputFile.Status.SAME);
+    var sensor = createSensor();
+
+    createTsConfigFile();
+    when(eslintBridgeServerMock.loadTsConfig(any())).thenAnswer(invocation ->
+      new TsConfigFile(invocation.getArgument(0), List.of(file.absolutePath()), emptyList()));
+
+    sensor.execute(context);
+
+    verify(eslintBridgeServerMock, never()).createProgram(any());
+    assertThat(context.cpdTokens(file.key())).hasSize(2);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Skipping creation of TypeScript program as none of its files needs to be analyzed");
+  }
+
+  @Test
+  void should_create_program_with_changed_files_only() throws IOException {
+    var path = "dir/file.ts";
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, path);
+    var file = TestUtils.createInputFile(context, "if (cond)\ndoFoo(); \nelse \ndoFoo();", path).setStatus(InputFile.Status.SAME);
+    var changedFile = TestUtils.createInputFile(context, "foo();", "dir/changed.ts").setStatus(InputFile.Status.CHANGED);
+    var sensor = createSensor();
+
+    createTsConfigFile();
+    when(eslintBridgeServerMock.loadTsConfig(any())).thenAnswer(invocation ->
+      new TsConfigFile(invocation.getArgument(0), List.of(file.absolutePath(), changedFile.absolutePath()), emptyList()));
+    when(eslintBridgeServerMock.createProgram(any())).thenReturn(new TsProgram("1", List.of(changedFile.absolutePath()), List.of()));
+    when(eslintBridgeServerMock.analyzeWithProgram(any())).thenReturn(new AnalysisResponse());
+
+    sensor.execute(context);
+
+    ArgumentCaptor<TsProgramRequest> captor = ArgumentCaptor.forClass(TsProgramRequest.class);
+    verify(eslintBridgeServerMock).createProgram(captor.capture());
+    assertThat(captor.getValue().rootFiles).containsExactly(changedFile.absolutePath());
+    verify(eslintBridgeServerMock).analyzeWithProgram(any());
+    assertThat(context.cpdTokens(file.key())).hasSize(2);
+  }
+
+  @Test
+  void should_not_create_program_for_changed_files_outside_of_tsconfig() throws IOException {
+    var path = "dir/file.ts";
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, path);
+    var file = TestUtils.createInputFile(context, "if (cond)\ndoFoo(); \nelse \ndoFoo();", path).setStatus(InputFile.Status.SAME);
+    TestUtils.createInputFile(context, "foo();", "dir/stray.ts").setStatus(InputFile.Status.ADDED);
+    var sensor = createSensor();
+
+    createTsConfigFile();
+    when(eslintBridgeServerMock.loadTsConfig(any())).thenAnswer(invocation ->
+      new TsConfigFile(invocation.getArgument(0), List.of(file.absolutePath()), emptyList()));
+
+    sensor.execute(context);
+
+    verify(eslintBridgeServerMock, never()).createProgram(any());
+    assertThat(context.cpdTokens(file.key())).hasSize(2);
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Skipped 1 file(s) because they were not part of any tsconfig.json (enable debug logs to see the full list)");
+  }
+
+  @Test
+  void should_create_program_with_all_files_when_dependency_changed() throws IOException {
+    var path = "dir/file.ts";
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, path);
+    var file = TestUtils.createInputFile(context, "if (cond)\ndoFoo(); \nelse \ndoFoo();", path).setStatus(InputFile.Status.SAME);
+    var dependency = TestUtils.createInputFile(context, "foo();", "dir/dependency.ts").setStatus(InputFile.Status.CHANGED);
+    var previousCache = context.previousCache();
+    when(previousCache.contains("js:filemetadata:moduleKey:dir/dependency.ts")).thenReturn(true);
+    when(previousCache.read("js:filemetadata:moduleKey:dir/dependency.ts"))
+      .thenReturn(new ByteArrayInputStream("{\"size\":42,\"hash\":[]}".getBytes(StandardCharsets.UTF_8)));
+    var sensor = createSensor();
+
+    createTsConfigFile();
+    when(eslintBridgeServerMock.loadTsConfig(any())).thenAnswer(invocation ->
+      new TsConfigFile(invocation.getArgument(0), List.of(file.absolutePath()), emptyList()));
+    when(eslintBridgeServerMock.createProgram(any())).thenReturn(new TsProgram("1", List.of(file.absolutePath(), dependency.absolutePath()), List.of()));
+    when(eslintBridgeServerMock.analyzeWithProgram(any())).thenReturn(new AnalysisResponse());
+
+    sensor.execute(context);
+
+    ArgumentCaptor<TsProgramRequest> captor = ArgumentCaptor.forClass(TsProgramRequest.class);
+    verify(eslintBridgeServerMock).createProgram(captor.capture());
+    assertThat(captor.getValue().rootFiles).isNull();
+    ArgumentCaptor<JsAnalysisRequest> analysisCaptor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeWithProgram(analysisCaptor.capture());
+    assertThat(analysisCaptor.getValue().filePath).isEqualTo(dependency.absolutePath());
+    assertThat(context.cpdTokens(file.key())).hasSize(2);
+  }
+
+  @Test
+  void should_only_create_programs_that_may_depend_on_changed_files() throws IOException {
+    var context = CacheTestUtils.createContextWithCache(baseDir, workDir, "a/file.ts");
+    CacheTestUtils.addCachedFile(context, "b/file.ts");
+    var content = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
+    var fileA = TestUtils.createInputFile(context, content, "a/file.ts").setStatus(InputFile.Status.SAME);
+    var fileB = TestUtils.createInputFile(context, content, "b/file.ts").setStatus(InputFile.Status.SAME);
+    var dependency = TestUtils.createInputFile(context, "foo();", "b/dependency.ts").setStatus(InputFile.Status.CHANGED);
+    var previousCache = context.previousCache();
+    when(previousCache.contains("js:filemetadata:moduleKey:b/dependency.ts")).thenReturn(true);
+    when(previousCache.read("js:filemetadata:moduleKey:b/dependency.ts"))
+      .thenReturn(new ByteArrayInputStream("{\"size\":42,\"hash\":[]}".getBytes(StandardCharsets.UTF_8)));
+    var sensor = createSensor();
+
+    var contextBaseDir = context.fileSystem().baseDir().toPath();
+    var tsConfigA = Files.writeString(Files.createDirectories(contextBaseDir.resolve("a")).resolve("tsconfig.json"), "{}").toString();
+    var tsConfigB = Files.writeString(Files.createDirectories(contextBaseDir.resolve("b")).resolve("tsconfig.json"), "{}").toString();
+    when(eslintBridgeServerMock.loadTsConfig(any())).thenAnswer(invocation -> {
+      String tsConfig = invocation.getArgument(0);
+      var rootFile = tsConfig.equals(tsConfigA) ? fileA : fileB;
+      return new TsConfigFile(tsConfig, List.of(rootFile.absolutePath()), emptyList());
+    });
+    when(eslintBridgeServerMock.createProgram(any())).thenReturn(new TsProgram("1", List.of(fileB.absolutePath(), dependency.absolutePath()), List.of()));
+    when(eslintBridgeServerMock.analyzeWithProgram(any())).thenReturn(new AnalysisResponse());
+
+    sensor.execute(context);
+
+    ArgumentCaptor<TsProgramRequest> captor = ArgumentCaptor.forClass(TsProgramRequest.class);
+    verify(eslintBridgeServerMock).createProgram(captor.capture());
+    assertThat(captor.getValue().tsConfig).isEqualTo(tsConfigB);
+    assertThat(captor.getValue().rootFiles).isNull();
+    ArgumentCaptor<JsAnalysisRequest> analysisCaptor = ArgumentCaptor.forClass(JsAnalysisRequest.class);
+    verify(eslintBridgeServerMock).analyzeWithProgram(analysisCaptor.capture());
+    assertThat(analysisCaptor.getValue().filePath).isEqualTo(dependency.absolutePath());
+    assertThat(context.cpdTokens(fileA.key())).hasSize(2);
+    assertThat(context.cpdTokens(fileB.key())).hasSize(2);
+  }
+
   private TypeScriptSensor createSensor() {
     return new TypeScriptSensor(
       checks(ESLINT_BASED_RULE, "S2260"),
@@ -19,6 +19,9 @@
  */
 package org.sonar.plugins.javascript.eslint.cache;
 
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,9 +30,11 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
+import org.sonar.plugins.javascript.eslint.StringInterner;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonar.plugins.javascript.eslint.cache.CacheStrategy.noCache;
@@ -81,12 +86,68 @@ class CacheReporterTest {
         "FILE_NOT_IN_CACHE [1/7], RUNTIME_API_INCOMPATIBLE [1/7]");
   }
 
+  @Test
+  void should_collect_statistics() {
+    cacheReporter.reset();
+    cacheReporter.logAndIncrement(createReadAndWrite(), inputFile, null);
+    cacheReporter.logAndIncrement(writeOnly(createSerialization()), inputFile, CacheStrategies.MissReason.FILE_CHANGED);
+    cacheReporter.logAndIncrement(writeOnly(createSerialization()), inputFile, CacheStrategies.MissReason.FILE_CHANGED);
+    cacheReporter.recordBytesRead(10);
+    cacheReporter.recordBytesRead(5);
+    cacheReporter.recordBytesWritten(7);
+    cacheReporter.recordStage(CacheReporter.Stage.HASH, System.nanoTime() - 3_000_000);
+    cacheReporter.recordStage(CacheReporter.Stage.HASH, System.nanoTime() - 1_000_000);
+
+    var statistics = cacheReporter.statistics();
+    assertThat(statistics.getHits()).isEqualTo(1);
+    assertThat(statistics.getMisses()).containsOnly(entry("FILE_CHANGED", 2L));
+    assertThat(statistics.getBytesRead()).isEqualTo(15);
+    assertThat(statistics.getBytesWritten()).isEqualTo(7);
+    assertThat(statistics.getStages()).containsOnlyKeys("HASH", "METADATA_READ", "CPD_DECODE", "UCFG_EXTRACT");
+    var hash = statistics.getStages().get("HASH");
+    assertThat(hash.getCount()).isEqualTo(2);
+    assertThat(hash.getTotalTime()).isGreaterThanOrEqualTo(4_000);
+    assertThat(hash.getMaxTime()).isGreaterThanOrEqualTo(3_000).isLessThanOrEqualTo(hash.getTotalTime());
+    assertThat(statistics.getStages().get("CPD_DECODE").getCount()).isZero();
+
+    cacheReporter.reset();
+    statistics = cacheReporter.statistics();
+    assertThat(statistics.getHits()).isZero();
+    assertThat(statistics.getMisses()).isEmpty();
+    assertThat(statistics.getBytesRead()).isZero();
+    assertThat(statistics.getStages().get("HASH").getMaxTime()).isZero();
+  }
+
+  @Test
+  void should_count_concurrently() throws Exception {
+    cacheReporter.reset();
+    var strategy = writeOnly(createSerialization());
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      var tasks = new ArrayList<Callable<Void>>();
+      for (var i = 0; i < 100; i++) {
+        tasks.add(() -> {
+          cacheReporter.logAndIncrement(strategy, inputFile, CacheStrategies.MissReason.FILE_NOT_IN_CACHE);
+          cacheReporter.recordBytesWritten(1);
+          return null;
+        });
+      }
+      executor.invokeAll(tasks);
+    } finally {
+      executor.shutdown();
+    }
+
+    var statistics = cacheReporter.statistics();
+    assertThat(statistics.getMisses()).containsOnly(entry("FILE_NOT_IN_CACHE", 100L));
+    assertThat(statistics.getBytesWritten()).isEqualTo(100);
+  }
+
   private CacheStrategy createReadAndWrite() {
-    return CacheStrategy.readAndWrite(CacheAnalysis.fromCache(new EslintBridgeServer.CpdToken[0]), createSerialization());
+    return CacheStrategy.readAndWrite(CacheAnalysis.fromCache(new CpdTokens()), createSerialization());
   }
 
   private CacheAnalysisSerialization createSerialization() {
-    return new CacheAnalysisSerialization(context, CacheKey.forFile(inputFile, null));
+    return new CacheAnalysisSerialization(context, cacheReporter, CacheKey.forFile(inputFile, null), StringInterner.forCpdImages());
   }
 
 }
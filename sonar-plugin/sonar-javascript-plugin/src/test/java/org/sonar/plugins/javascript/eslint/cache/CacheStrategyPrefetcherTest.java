@@ -0,0 +1,115 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.plugins.javascript.CancellationException;
+import org.sonar.plugins.javascript.TestUtils;
+import org.sonar.plugins.javascript.eslint.PluginInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class CacheStrategyPrefetcherTest {
+
+  static final String PATH = "dir/file.js";
+  static final String CONTENT = "if (cond)\ndoFoo(); \nelse \ndoFoo();";
+
+  @TempDir
+  Path baseDir;
+  @TempDir
+  Path workDir;
+  SensorContextTester context;
+  DefaultInputFile cachedFile;
+  DefaultInputFile changedFile;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    PluginInfo.setUcfgPluginVersion(null);
+    context = CacheTestUtils.createContextWithCache(baseDir, workDir, PATH);
+    cachedFile = TestUtils.createInputFile(context, CONTENT, PATH).setStatus(InputFile.Status.SAME);
+    changedFile = TestUtils.createInputFile(context, "foo();", "dir/other.js").setStatus(InputFile.Status.CHANGED);
+  }
+
+  @Test
+  void should_prefetch_strategies_in_order() throws Exception {
+    try (var prefetcher = CacheStrategyPrefetcher.create(context, new CacheStrategies(), List.of(cachedFile, changedFile))) {
+      var cachedStrategy = prefetcher.strategyFor(cachedFile);
+      assertThat(cachedStrategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+      assertThat(prefetcher.strategyFor(changedFile).getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+
+      verify(context.nextCache(), never()).copyFromPrevious(anyString());
+      assertThat(cachedStrategy.readAnalysisFromCache().getCpdTokens().size()).isEqualTo(2);
+      verify(context.nextCache()).copyFromPrevious("js:cpd:DATA:moduleKey:" + PATH);
+    }
+  }
+
+  @Test
+  void should_resolve_synchronously_when_disabled() throws Exception {
+    context.setSettings(new MapSettings().setProperty(CacheStrategyPrefetcher.PREFETCH_SIZE_PROPERTY, 0));
+    try (var prefetcher = CacheStrategyPrefetcher.create(context, new CacheStrategies(), List.of(cachedFile))) {
+      assertThat(prefetcher.strategyFor(cachedFile).isAnalysisRequired()).isFalse();
+      verify(context.nextCache()).copyFromPrevious("js:cpd:DATA:moduleKey:" + PATH);
+    }
+  }
+
+  @Test
+  void should_resolve_synchronously_when_requested_out_of_order() throws Exception {
+    try (var prefetcher = CacheStrategyPrefetcher.create(context, new CacheStrategies(), List.of(cachedFile, changedFile))) {
+      assertThat(prefetcher.strategyFor(changedFile).getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+      assertThat(prefetcher.strategyFor(cachedFile).getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+    }
+  }
+
+  @Test
+  void should_prefetch_strategies_after_skipped_file() throws Exception {
+    var otherFile = TestUtils.createInputFile(context, "bar();", "dir/another.js").setStatus(InputFile.Status.ADDED);
+    try (var prefetcher = CacheStrategyPrefetcher.create(context, new CacheStrategies(), List.of(changedFile, cachedFile, otherFile))) {
+      var cachedStrategy = prefetcher.strategyFor(cachedFile);
+      assertThat(cachedStrategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
+      assertThat(prefetcher.strategyFor(otherFile).getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
+
+      verify(context.nextCache(), never()).copyFromPrevious(anyString());
+      assertThat(cachedStrategy.readAnalysisFromCache().getCpdTokens().size()).isEqualTo(2);
+      verify(context.nextCache()).copyFromPrevious("js:cpd:DATA:moduleKey:" + PATH);
+    }
+  }
+
+  @Test
+  void should_stop_when_cancelled() {
+    context.setCancelled(true);
+    try (var prefetcher = CacheStrategyPrefetcher.create(context, new CacheStrategies(), List.of(cachedFile))) {
+      assertThatThrownBy(() -> prefetcher.strategyFor(cachedFile))
+        .isInstanceOf(CancellationException.class);
+    }
+  }
+
+}
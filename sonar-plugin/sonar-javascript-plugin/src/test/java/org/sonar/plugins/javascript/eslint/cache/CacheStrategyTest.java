@@ -50,13 +50,14 @@ import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTesterJUnit5;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
 import org.sonar.plugins.javascript.eslint.PluginInfo;
+import org.sonar.plugins.javascript.eslint.StringInterner;
 
-import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -74,9 +75,10 @@ import static org.sonar.plugins.javascript.eslint.cache.CacheStrategy.writeOnly;
 @SuppressWarnings("resource")
 class CacheStrategyTest {
 
-  static final List<EslintBridgeServer.CpdToken> CPD_TOKENS = CacheTestUtils.getCpdTokens();
+  static final CpdTokens CPD_TOKENS = CacheTestUtils.getCpdTokens();
   static final String PLUGIN_VERSION = "1.0.0";
 
+  CacheStrategies cacheStrategies;
   CacheAnalysisSerialization serialization;
   String jsonCacheKey;
   String seqCacheKey;
@@ -111,13 +113,16 @@ class CacheStrategyTest {
     var testFile = createFile(baseDir.resolve("src/test.js"));
     when(inputFile.uri()).thenReturn(testFile.toUri());
     when(inputFile.key()).thenReturn(baseDir.relativize(testFile).toString().replace(File.separator, "/"));
+    when(inputFile.filename()).thenReturn("test.js");
     doReturn("Hello World!").when(inputFile).contents();
     when(inputFile.charset()).thenReturn(StandardCharsets.UTF_8);
 
     previousCache = mock(ReadCache.class);
     nextCache = mock(WriteCache.class);
     context = mock(SensorContext.class);
-    serialization = new CacheAnalysisSerialization(context, CacheKey.forFile(inputFile, PLUGIN_VERSION));
+    cacheStrategies = new CacheStrategies();
+    serialization = new CacheAnalysisSerialization(context, new CacheReporter(), CacheKey.forFile(inputFile, PLUGIN_VERSION),
+      StringInterner.forCpdImages());
 
     jsonCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION).forUcfg().withPrefix(UCFGFilesSerialization.JSON_PREFIX).toString();
     seqCacheKey = CacheKey.forFile(inputFile, PLUGIN_VERSION).forUcfg().withPrefix(UCFGFilesSerialization.SEQ_PREFIX).toString();
@@ -151,7 +156,7 @@ class CacheStrategyTest {
     when(context.getSonarQubeVersion()).thenReturn(Version.create(9, 3));
     when(context.runtime()).thenReturn(SonarRuntimeImpl.forSonarQube(Version.create(9, 3), SonarQubeSide.SCANNER, SonarEdition.ENTERPRISE));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.NO_CACHE);
     assertThat(strategy.isAnalysisRequired()).isTrue();
     verify(context, never()).nextCache();
@@ -162,13 +167,28 @@ class CacheStrategyTest {
   void should_not_fail_in_sonarlint() throws Exception {
     when(context.runtime()).thenReturn(SonarRuntimeImpl.forSonarLint(Version.create(9, 6)));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.NO_CACHE);
     assertThat(strategy.isAnalysisRequired()).isTrue();
     verify(context, never()).nextCache();
     verify(context, never()).previousCache();
   }
 
+  @Test
+  void should_collect_statistics_per_instance() throws Exception {
+    when(context.canSkipUnchangedFiles()).thenReturn(true);
+
+    cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var statistics = cacheStrategies.statistics();
+    assertThat(statistics.getMisses()).containsExactly(entry("FILE_NOT_IN_CACHE", 1L));
+    assertThat(statistics.getStages().get("HASH").getCount()).isEqualTo(1);
+    assertThat(statistics.getStages().get("METADATA_READ").getCount()).isEqualTo(1);
+
+    var otherStatistics = new CacheStrategies().statistics();
+    assertThat(otherStatistics.getMisses()).isEmpty();
+    assertThat(otherStatistics.getStages().get("HASH").getCount()).isZero();
+  }
+
   @Test
   void should_write_to_cache() throws IOException {
     var ucfgFileRelativePaths = createUcfgFiles(workDir);
@@ -183,11 +203,12 @@ class CacheStrategyTest {
 
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
+    assertThat(strategy.isPreviouslyAnalyzed()).isFalse();
 
-    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgFiles, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new)), inputFile);
+    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgFiles, CPD_TOKENS), inputFile);
 
     var sequenceCaptor = ArgumentCaptor.forClass(InputStream.class);
     verify(nextCache).write(eq(seqCacheKey), sequenceCaptor.capture());
@@ -211,8 +232,8 @@ class CacheStrategyTest {
     verify(nextCache).write(eq(cpdDataCacheKey), cpdDataCaptor.capture());
     verify(nextCache).write(eq(cpdStringTableCacheKey), cpdStringTableCaptor.capture());
 
-    var cpdData = CpdDeserializer.fromBinary(cpdDataCaptor.getValue(), cpdStringTableCaptor.getValue());
-    assertThat(cpdData.getCpdTokens()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(CPD_TOKENS);
+    var cpdData = CpdDeserializer.fromBinary(cpdDataCaptor.getValue(), cpdStringTableCaptor.getValue(), StringInterner.forCpdImages());
+    assertThat(cpdData.getCpdTokens()).isEqualTo(CPD_TOKENS);
   }
 
   @Test
@@ -222,12 +243,12 @@ class CacheStrategyTest {
     when(previousCache.contains(anyString())).thenReturn(false);
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
     var generatedFiles = List.of("inexistent.ucfg");
-    var cacheAnalysis = new CacheAnalysis(generatedFiles, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new));
+    var cacheAnalysis = new CacheAnalysis(generatedFiles, CPD_TOKENS);
     assertThatThrownBy(() -> strategy.writeAnalysisToCache(cacheAnalysis, inputFile)).isInstanceOf(UncheckedIOException.class);
     verify(nextCache, never()).write(eq(jsonCacheKey), any(byte[].class));
     verify(nextCache, never()).write(eq(seqCacheKey), any(InputStream.class));
@@ -257,11 +278,11 @@ class CacheStrategyTest {
 
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
-    strategy.writeAnalysisToCache(CacheAnalysis.fromResponse(null, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new)), inputFile);
+    strategy.writeAnalysisToCache(CacheAnalysis.fromResponse(null, CPD_TOKENS), inputFile);
     verify(nextCache).write(eq(jsonCacheKey), any(byte[].class));
     verify(nextCache).write(eq(seqCacheKey), any(InputStream.class));
     verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
@@ -275,9 +296,10 @@ class CacheStrategyTest {
     when(inputFile.status()).thenReturn(InputFile.Status.SAME);
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.READ_AND_WRITE);
     assertThat(strategy.isAnalysisRequired()).isFalse();
+    assertThat(strategy.isPreviouslyAnalyzed()).isTrue();
 
     verify(previousCache).read(jsonCacheKey);
     verify(nextCache).copyFromPrevious(jsonCacheKey);
@@ -296,7 +318,7 @@ class CacheStrategyTest {
     }
 
     var ucfgPaths = ucfgFileRelativePaths.stream().map(workDir::resolve).map(Path::toString).collect(toList());
-    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new)), inputFile);
+    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS), inputFile);
     verify(nextCache).write(eq(jsonCacheKey), any(byte[].class));
     verify(nextCache).write(eq(seqCacheKey), any(InputStream.class));
     verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
@@ -311,7 +333,7 @@ class CacheStrategyTest {
     when(context.canSkipUnchangedFiles()).thenReturn(true);
     when(previousCache.read(jsonCacheKey)).thenReturn(InputStream.nullInputStream());
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -333,7 +355,7 @@ class CacheStrategyTest {
     when(context.canSkipUnchangedFiles()).thenReturn(true);
     when(previousCache.read(jsonCacheKey)).thenReturn(inputStream("invalid-json"));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -356,7 +378,7 @@ class CacheStrategyTest {
     when(previousCache.read(cpdDataCacheKey)).thenReturn(inputStream("invalid-cpd-data"));
     when(previousCache.read(cpdStringTableCacheKey)).thenReturn(inputStream("invalid-cpd-stringTable"));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -379,11 +401,11 @@ class CacheStrategyTest {
     when(inputFile.status()).thenReturn(InputFile.Status.SAME);
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var serializationResult = CpdSerializer.toBinary(new CpdData(emptyList()));
+    var serializationResult = CpdSerializer.toBinary(new CpdData(new CpdTokens()));
     when(previousCache.read(cpdDataCacheKey)).thenReturn(inputStream(serializationResult.getData()));
     when(previousCache.read(cpdStringTableCacheKey)).thenReturn(inputStream(serializationResult.getStringTable()));
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -421,7 +443,7 @@ class CacheStrategyTest {
     when(previousCache.read(seqCacheKey)).thenReturn(InputStream.nullInputStream());
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
   }
@@ -435,7 +457,7 @@ class CacheStrategyTest {
     when(previousCache.read(seqCacheKey)).thenReturn(new InfiniteCircularInputStream(new byte[] { 32 }));
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
   }
@@ -448,9 +470,10 @@ class CacheStrategyTest {
 
     when(context.canSkipUnchangedFiles()).thenReturn(true);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
+    assertThat(strategy.isPreviouslyAnalyzed()).isTrue();
 
     for (var ucfgFileRelativePath : ucfgFileRelativePaths) {
       createFile(workDir.resolve(ucfgFileRelativePath));
@@ -466,7 +489,7 @@ class CacheStrategyTest {
     verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
 
     var ucfgPaths = ucfgFileRelativePaths.stream().map(workDir::resolve).map(Path::toString).collect(toList());
-    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new)), inputFile);
+    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS), inputFile);
     verify(nextCache).write(eq(jsonCacheKey), any(byte[].class));
     verify(nextCache).write(eq(seqCacheKey), any(InputStream.class));
     verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
@@ -481,7 +504,7 @@ class CacheStrategyTest {
 
     when(context.canSkipUnchangedFiles()).thenReturn(false);
 
-    var strategy = CacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
+    var strategy = cacheStrategies.getStrategyFor(context, inputFile, PLUGIN_VERSION);
     assertThat(strategy.getName()).isEqualTo(CacheStrategy.WRITE_ONLY);
     assertThat(strategy.isAnalysisRequired()).isTrue();
 
@@ -499,7 +522,7 @@ class CacheStrategyTest {
     verify(nextCache, never()).copyFromPrevious(cpdStringTableCacheKey);
 
     var ucfgPaths = ucfgFileRelativePaths.stream().map(workDir::resolve).map(Path::toString).collect(toList());
-    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS.toArray(EslintBridgeServer.CpdToken[]::new)), inputFile);
+    strategy.writeAnalysisToCache(new CacheAnalysis(ucfgPaths, CPD_TOKENS), inputFile);
     verify(nextCache).write(eq(jsonCacheKey), any(byte[].class));
     verify(nextCache).write(eq(seqCacheKey), any(InputStream.class));
     verify(nextCache).write(eq(cpdDataCacheKey), any(byte[].class));
@@ -509,7 +532,7 @@ class CacheStrategyTest {
   @Test
   void should_log() {
     when(inputFile.toString()).thenReturn("test.js");
-    assertThat(CacheStrategies.getLogMessage(readAndWrite(CacheAnalysis.fromCache(new EslintBridgeServer.CpdToken[0]), serialization), inputFile, "this is a test"))
+    assertThat(CacheStrategies.getLogMessage(readAndWrite(CacheAnalysis.fromCache(new CpdTokens()), serialization), inputFile, "this is a test"))
       .isEqualTo("Cache strategy set to 'READ_AND_WRITE' for file 'test.js' as this is a test");
     assertThat(CacheStrategies.getLogMessage(writeOnly(serialization), inputFile, null))
       .isEqualTo("Cache strategy set to 'WRITE_ONLY' for file 'test.js'");
@@ -538,7 +561,7 @@ class CacheStrategyTest {
     var cacheKey = CacheKey.forFile(inputFile, pluginVersion);
     var metadataKey = cacheKey.forFileMetadata().toString();
 
-    var cacheStrategy = CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    var cacheStrategy = cacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
     assertThat(cacheStrategy.getName()).isEqualTo("WRITE_ONLY");
     verify(previousCache).contains(metadataKey);
     verify(previousCache, never()).read(metadataKey);
@@ -548,7 +571,7 @@ class CacheStrategyTest {
     when(previousCache.contains(metadataKey)).thenReturn(true);
     when(previousCache.read(metadataKey))
       .thenReturn(inputStream(new Gson().toJson(FileMetadata.from(inputFile))));
-    CacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
+    cacheStrategies.getStrategyFor(context, inputFile, pluginVersion);
 
     verify(previousCache).contains(metadataKey);
     verify(previousCache).read(metadataKey);
@@ -588,7 +611,7 @@ class CacheStrategyTest {
 
     when(fileSystem.workDir()).thenReturn(tempDir.toFile());
     when(context.nextCache()).thenReturn(tempCache);
-    serialization.writeToCache(CacheAnalysis.fromResponse(ucfgFiles, new EslintBridgeServer.CpdToken[0]), inputFile);
+    serialization.writeToCache(CacheAnalysis.fromResponse(ucfgFiles, new CpdTokens()), inputFile);
     when(fileSystem.workDir()).thenReturn(workDir.toFile());
     when(context.nextCache()).thenReturn(nextCache);
 
@@ -28,15 +28,15 @@ import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
 import org.sonar.api.SonarEdition;
 import org.sonar.api.SonarQubeSide;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.cache.ReadCache;
 import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.utils.Version;
-import org.sonar.plugins.javascript.eslint.EslintBridgeServer;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -48,11 +48,11 @@ public class CacheTestUtils {
   private CacheTestUtils() {
   }
 
-  public static CpdSerializer.SerializationResult getSerializedCpdTokens(List<EslintBridgeServer.CpdToken> cpdTokens) throws IOException {
+  public static CpdSerializer.SerializationResult getSerializedCpdTokens(CpdTokens cpdTokens) throws IOException {
     return CpdSerializer.toBinary(new CpdData(cpdTokens));
   }
 
-  public static List<EslintBridgeServer.CpdToken> getCpdTokens() {
+  public static CpdTokens getCpdTokens() {
     return new Gson().fromJson(CPD_TOKENS, CpdData.class).getCpdTokens();
   }
 
@@ -63,30 +63,41 @@ public class CacheTestUtils {
     context.setNextCache(mock(WriteCache.class));
     context.setPreviousCache(mock(ReadCache.class));
     context.setCanSkipUnchangedFiles(true);
+    addCachedFile(context, filePath);
+    return context;
+  }
 
+  public static void addCachedFile(SensorContextTester context, String filePath) {
     var cache = context.previousCache();
+    // like the actual cache, every read returns a new stream, as an entry may be read both by a prefetch and synchronously
     when(cache.contains("jssecurity:ucfgs:JSON:moduleKey:" + filePath)).thenReturn(true);
-    when(cache.read("jssecurity:ucfgs:JSON:moduleKey:" + filePath)).thenReturn(new ByteArrayInputStream("{\"fileSizes\":[]}".getBytes(StandardCharsets.UTF_8)));
+    when(cache.read("jssecurity:ucfgs:JSON:moduleKey:" + filePath)).thenAnswer(invocation -> inputStream("{\"fileSizes\":[]}"));
     when(cache.contains("jssecurity:ucfgs:SEQ:moduleKey:" + filePath)).thenReturn(true);
-    when(cache.read("jssecurity:ucfgs:SEQ:moduleKey:" + filePath)).thenReturn(new ByteArrayInputStream(new byte[0]));
+    when(cache.read("jssecurity:ucfgs:SEQ:moduleKey:" + filePath)).thenAnswer(invocation -> inputStream(new byte[0]));
 
     when(cache.contains("js:cpd:DATA:moduleKey:" + filePath)).thenReturn(true);
     when(cache.contains("js:cpd:STRING_TABLE:moduleKey:" + filePath)).thenReturn(true);
 
     try {
       var result = getSerializedCpdTokens(getCpdTokens());
-      when(cache.read("js:cpd:DATA:moduleKey:" + filePath)).thenReturn(new ByteArrayInputStream(result.getData()));
-      when(cache.read("js:cpd:STRING_TABLE:moduleKey:" + filePath)).thenReturn(new ByteArrayInputStream(result.getStringTable()));
+      when(cache.read("js:cpd:DATA:moduleKey:" + filePath)).thenAnswer(invocation -> inputStream(result.getData()));
+      when(cache.read("js:cpd:STRING_TABLE:moduleKey:" + filePath)).thenAnswer(invocation -> inputStream(result.getStringTable()));
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
 
     when(cache.contains("js:filemetadata:moduleKey:" + filePath)).thenReturn(true);
-    when(cache.read("js:filemetadata:moduleKey:" + filePath)).thenReturn(
+    when(cache.read("js:filemetadata:moduleKey:" + filePath)).thenAnswer(invocation ->
       inputStream("{\"size\":34,\"hash\":[-58,-66,77,-102,-13,-49,96,126,-125,-65,-111,109,-34,85,27,97,46,-58,-76,113," +
         "-97,53,64,108,112,-2,104,-75,-23,-111,119,77]}"));
+  }
 
-    return context;
+  /**
+   * Makes the cached metadata of the file match its current content, so that it is found unchanged.
+   */
+  public static void addCachedFileMetadata(SensorContextTester context, InputFile file, String filePath) throws IOException {
+    var fileMetadata = FileMetadata.from(file);
+    when(context.previousCache().read("js:filemetadata:moduleKey:" + filePath)).thenAnswer(invocation -> inputStream(fileMetadata));
   }
 
   public static InputStream inputStream(byte[] bytes) {
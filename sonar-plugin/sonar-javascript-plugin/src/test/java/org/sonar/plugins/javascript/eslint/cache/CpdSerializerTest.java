@@ -0,0 +1,123 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.javascript.eslint.CpdTokens;
+import org.sonar.plugins.javascript.eslint.StringInterner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CpdSerializerTest {
+
+  @Test
+  void should_round_trip_tokens() throws IOException {
+    var tokens = new CpdTokens();
+    tokens.add(1, 0, 1, 5, "const");
+    tokens.add(1, 6, 1, 7, "x");
+    tokens.add(3, 2, 5, 1, "LITERAL");
+    tokens.add(2, 10, 2, 4, "weird");
+    tokens.add(2, 0, 2, 0, "");
+
+    var result = CpdSerializer.toBinary(new CpdData(tokens));
+
+    assertThat(result.getData()).startsWith((byte) 0x80, (byte) 0x00, (byte) CpdSerializer.VERSION);
+    assertThat(deserialize(result)).isEqualTo(describe(tokens));
+  }
+
+  @Test
+  void should_deflate_large_payloads() throws IOException {
+    var tokens = new CpdTokens();
+    for (var line = 1; line <= 500; line++) {
+      tokens.add(line, 0, line, 3, "foo");
+      tokens.add(line, 3, line, 4, "(");
+      tokens.add(line, 4, line, 5, ")");
+    }
+
+    var result = CpdSerializer.toBinary(new CpdData(tokens));
+
+    assertThat(result.getData()[CpdSerializer.HEADER_SIZE - 1] & CpdSerializer.FLAG_DEFLATED).isEqualTo(CpdSerializer.FLAG_DEFLATED);
+    assertThat(result.getData()).hasSizeLessThan(tokens.size());
+    assertThat(deserialize(result)).isEqualTo(describe(tokens));
+  }
+
+  @Test
+  void should_read_version_1() throws IOException {
+    var data = new ByteArrayOutputStream();
+    var out = new VarLengthOutputStream(data);
+    out.writeInt(1);
+    for (var value : new int[] {130, 4, 131, 2, 0}) {
+      out.writeInt(value);
+    }
+    out.writeUTF("END");
+
+    var stringTable = new ByteArrayOutputStream();
+    var tableOut = new VarLengthOutputStream(stringTable);
+    tableOut.writeInt(1);
+    tableOut.writeUTF("LITERAL");
+    tableOut.writeUTF("END");
+
+    var cpdData = CpdDeserializer.fromBinary(data.toByteArray(), stringTable.toByteArray(), StringInterner.forCpdImages());
+
+    assertThat(describe(cpdData.getCpdTokens())).containsExactly("130:4-131:2 LITERAL");
+  }
+
+  @Test
+  void should_intern_images_with_the_interner_of_the_sensor() throws IOException {
+    var tokens = new CpdTokens();
+    tokens.add(1, 0, 1, 2, "if");
+    var result = CpdSerializer.toBinary(new CpdData(tokens));
+
+    var cpdImages = StringInterner.forCpdImages();
+    var first = CpdDeserializer.fromBinary(result.getData(), result.getStringTable(), cpdImages).getCpdTokens();
+    var second = CpdDeserializer.fromBinary(result.getData(), result.getStringTable(), cpdImages).getCpdTokens();
+    var otherSensor = CpdDeserializer.fromBinary(result.getData(), result.getStringTable(), StringInterner.forCpdImages()).getCpdTokens();
+
+    assertThat(second.image(0)).isSameAs(first.image(0));
+    assertThat(otherSensor.image(0)).isNotSameAs(first.image(0));
+  }
+
+  @Test
+  void should_reject_unknown_version() {
+    var data = new byte[] {(byte) 0x80, 0x00, 42, 0};
+    assertThatThrownBy(() -> CpdDeserializer.fromBinary(data, data, StringInterner.forCpdImages()))
+      .isInstanceOf(IOException.class)
+      .hasRootCauseMessage("Unsupported CPD cache format version 42");
+  }
+
+  private static List<String> deserialize(CpdSerializer.SerializationResult result) throws IOException {
+    return describe(CpdDeserializer.fromBinary(result.getData(), result.getStringTable(), StringInterner.forCpdImages()).getCpdTokens());
+  }
+
+  private static List<String> describe(CpdTokens tokens) {
+    var descriptions = new ArrayList<String>();
+    for (var i = 0; i < tokens.size(); i++) {
+      descriptions.add(String.format("%d:%d-%d:%d %s", tokens.startLine(i), tokens.startCol(i),
+        tokens.endLine(i), tokens.endCol(i), tokens.image(i)));
+    }
+    return descriptions;
+  }
+
+}
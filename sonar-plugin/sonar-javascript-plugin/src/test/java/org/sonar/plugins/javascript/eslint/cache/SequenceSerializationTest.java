@@ -0,0 +1,116 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.eslint.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SequenceSerializationTest {
+
+  private static final CacheKey CACHE_KEY = CacheKey.forFile(new TestInputFileBuilder("moduleKey", "file.js").build(), "1.0.0")
+    .forUcfg().withPrefix(UCFGFilesSerialization.SEQ_PREFIX);
+
+  @TempDir
+  Path baseDir;
+
+  @TempDir
+  Path workDir;
+
+  private SensorContextTester context;
+  private SequenceSerialization serialization;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    context.setPreviousCache(mock(ReadCache.class));
+    serialization = new SequenceSerialization(context, new CacheReporter(), CACHE_KEY);
+  }
+
+  @Test
+  void should_restore_files_in_their_directories() throws IOException {
+    mockEntry("abcdef");
+
+    serialization.readFromCache(manifest(
+      new FilesManifest.FileSize("ucfg/a/first.ucfg", 3),
+      new FilesManifest.FileSize("ucfg/a/second.ucfg", 2),
+      new FilesManifest.FileSize("ucfg/b/third.ucfg", 1)));
+
+    assertThat(workDir.resolve("ucfg/a/first.ucfg")).hasContent("abc");
+    assertThat(workDir.resolve("ucfg/a/second.ucfg")).hasContent("de");
+    assertThat(workDir.resolve("ucfg/b/third.ucfg")).hasContent("f");
+  }
+
+  @Test
+  void should_restore_files_larger_than_buffer() throws IOException {
+    var content = "x".repeat(20_000) + "y".repeat(10_000);
+    mockEntry(content);
+
+    serialization.readFromCache(manifest(
+      new FilesManifest.FileSize("ucfg/first.ucfg", 20_000),
+      new FilesManifest.FileSize("ucfg/second.ucfg", 10_000)));
+
+    assertThat(Files.readString(workDir.resolve("ucfg/first.ucfg"))).isEqualTo("x".repeat(20_000));
+    assertThat(Files.readString(workDir.resolve("ucfg/second.ucfg"))).isEqualTo("y".repeat(10_000));
+  }
+
+  @Test
+  void should_fail_when_stream_is_too_small() {
+    mockEntry("abc");
+
+    var manifest = manifest(new FilesManifest.FileSize("ucfg/first.ucfg", 2), new FilesManifest.FileSize("ucfg/second.ucfg", 2));
+    assertThatThrownBy(() -> serialization.readFromCache(manifest))
+      .isInstanceOf(IOException.class)
+      .hasMessageStartingWith("The cache stream is too small (<2) for file");
+  }
+
+  @Test
+  void should_fail_when_stream_is_too_big() {
+    mockEntry("abcd");
+
+    var manifest = manifest(new FilesManifest.FileSize("ucfg/first.ucfg", 3));
+    assertThatThrownBy(() -> serialization.readFromCache(manifest))
+      .isInstanceOf(IOException.class)
+      .hasMessageStartingWith("The cache stream is too big (>3) for file");
+  }
+
+  private void mockEntry(String content) {
+    when(context.previousCache().read(CACHE_KEY.toString())).thenReturn(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static FilesManifest manifest(FilesManifest.FileSize... fileSizes) {
+    return new FilesManifest(List.of(fileSizes));
+  }
+}
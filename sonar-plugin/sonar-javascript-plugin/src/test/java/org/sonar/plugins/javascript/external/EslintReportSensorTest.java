@@ -19,23 +19,39 @@
  */
 package org.sonar.plugins.javascript.external;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonar.api.SonarEdition;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultTextPointer;
 import org.sonar.api.batch.fs.internal.DefaultTextRange;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.batch.sensor.issue.ExternalIssue;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTesterJUnit5;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.javascript.JavaScriptPlugin;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.plugins.javascript.TestUtils.createInputFile;
 
 class EslintReportSensorTest {
@@ -96,6 +112,120 @@ class EslintReportSensorTest {
       "Saving external ESLint issue { file:\"file-ts.ts\", id:semi, message:\"Use the isNaN function to compare with NaN.\", line:3, offset:0, type: CODE_SMELL, severity:MAJOR, remediation:5 }");
   }
 
+  @Test
+  void should_import_reports_in_parallel() throws Exception {
+    setEslintReport("eslint-report.json,eslint-report-ts.json");
+    eslintReportSensor.execute(context);
+
+    assertThat(context.allExternalIssues()).hasSize(5);
+    assertThat(context.allExternalIssues())
+      .filteredOn(issue -> issue.primaryLocation().inputComponent().equals(tsInputFile))
+      .extracting(ExternalIssue::ruleId)
+      .containsExactlyInAnyOrder("semi", "indent");
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .filteredOn("No input file found for notExist.js. No ESLint issues will be imported on this file."::equals)
+      .hasSize(1);
+  }
+
+  @Test
+  void should_import_reports_sequentially() throws Exception {
+    context.settings().setProperty(EslintReportSensor.IMPORT_THREADS_PROPERTY, 1);
+    setEslintReport("eslint-report.json,eslint-report-ts.json");
+    eslintReportSensor.execute(context);
+
+    assertThat(context.allExternalIssues()).hasSize(5);
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .filteredOn("No input file found for notExist.js. No ESLint issues will be imported on this file."::equals)
+      .hasSize(1);
+  }
+
+  @Test
+  void should_write_fingerprints_to_cache() throws Exception {
+    var next = new HashMap<String, byte[]>();
+    var cacheContext = contextWithCache(new HashMap<>(), next, false);
+    addInputFile(cacheContext, "file.js", InputFile.Status.SAME);
+    addInputFile(cacheContext, "file-ts.ts", InputFile.Status.SAME);
+    cacheContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json");
+    eslintReportSensor.execute(cacheContext);
+
+    assertThat(cacheContext.allExternalIssues()).hasSize(4);
+    assertThat(next).containsOnlyKeys("js:external:eslint:reports", "js:external:eslint:moduleKey:file.js", "js:external:eslint:moduleKey:file-ts.ts");
+  }
+
+  @Test
+  void should_not_import_again_issues_of_unchanged_files() throws Exception {
+    var previous = new HashMap<String, byte[]>();
+    var firstContext = contextWithCache(new HashMap<>(), previous, false);
+    addInputFile(firstContext, "file.js", InputFile.Status.SAME);
+    addInputFile(firstContext, "file-ts.ts", InputFile.Status.SAME);
+    firstContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json");
+    eslintReportSensor.execute(firstContext);
+
+    var next = new HashMap<String, byte[]>();
+    var cacheContext = contextWithCache(previous, next, true);
+    addInputFile(cacheContext, "file.js", InputFile.Status.SAME);
+    var changedFile = addInputFile(cacheContext, "file-ts.ts", InputFile.Status.CHANGED);
+    cacheContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json");
+    eslintReportSensor.execute(cacheContext);
+
+    assertThat(cacheContext.allExternalIssues())
+      .extracting(issue -> issue.primaryLocation().inputComponent())
+      .containsExactly(changedFile);
+    assertThat(next).containsOnlyKeys(previous.keySet().toArray(new String[0]));
+    assertThat(next.get("js:external:eslint:reports")).isEqualTo(previous.get("js:external:eslint:reports"));
+  }
+
+  @Test
+  void should_import_issues_of_files_whose_entries_changed() throws Exception {
+    var previous = new HashMap<String, byte[]>();
+    var firstContext = contextWithCache(new HashMap<>(), previous, false);
+    addInputFile(firstContext, "file.js", InputFile.Status.SAME);
+    addInputFile(firstContext, "file-ts.ts", InputFile.Status.SAME);
+    firstContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json");
+    eslintReportSensor.execute(firstContext);
+
+    var next = new HashMap<String, byte[]>();
+    var cacheContext = contextWithCache(previous, next, true);
+    addInputFile(cacheContext, "file.js", InputFile.Status.SAME);
+    var changedFile = addInputFile(cacheContext, "file-ts.ts", InputFile.Status.SAME);
+    cacheContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json,eslint-report-ts.json");
+    eslintReportSensor.execute(cacheContext);
+
+    assertThat(cacheContext.allExternalIssues())
+      .extracting(issue -> issue.primaryLocation().inputComponent())
+      .containsOnly(changedFile)
+      .hasSize(2);
+    assertThat(next.get("js:external:eslint:moduleKey:file.js")).isEqualTo(previous.get("js:external:eslint:moduleKey:file.js"));
+    assertThat(next.get("js:external:eslint:moduleKey:file-ts.ts")).isNotEqualTo(previous.get("js:external:eslint:moduleKey:file-ts.ts"));
+    assertThat(logTester.logs(LoggerLevel.DEBUG))
+      .contains("Reading the ESLint reports again to import the issues of 1 unchanged file(s) whose entries changed");
+  }
+
+  @Test
+  void should_import_issues_of_changed_files_when_reports_changed() throws Exception {
+    var previous = new HashMap<String, byte[]>();
+    var firstContext = contextWithCache(new HashMap<>(), previous, false);
+    addInputFile(firstContext, "file.js", InputFile.Status.SAME);
+    addInputFile(firstContext, "file-ts.ts", InputFile.Status.SAME);
+    firstContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json");
+    eslintReportSensor.execute(firstContext);
+
+    var next = new HashMap<String, byte[]>();
+    var cacheContext = contextWithCache(previous, next, true);
+    addInputFile(cacheContext, "file.js", InputFile.Status.SAME);
+    var changedFile = addInputFile(cacheContext, "file-ts.ts", InputFile.Status.CHANGED);
+    cacheContext.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, "eslint-report.json,eslint-report-ts.json");
+    eslintReportSensor.execute(cacheContext);
+
+    assertThat(cacheContext.allExternalIssues())
+      .extracting(issue -> issue.primaryLocation().inputComponent())
+      .containsOnly(changedFile)
+      .hasSize(2);
+    assertThat(next.get("js:external:eslint:moduleKey:file.js")).isEqualTo(previous.get("js:external:eslint:moduleKey:file.js"));
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Issues of 1 unchanged file(s) were not imported again from the ESLint reports");
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).noneMatch(log -> log.startsWith("Reading the ESLint reports again"));
+  }
+
   @Test
   void should_log_invalid_report() throws Exception {
     setEslintReport("invalid-eslint-report.json");
@@ -126,6 +256,37 @@ class EslintReportSensorTest {
     assertThat(sensorDescriptor.languages()).isEmpty();
   }
 
+  private static SensorContextTester contextWithCache(Map<String, byte[]> previous, Map<String, byte[]> next, boolean canSkipUnchangedFiles) {
+    var cacheContext = SensorContextTester.create(BASE_DIR);
+    cacheContext.setRuntime(SonarRuntimeImpl.forSonarQube(Version.create(9, 6), SonarQubeSide.SCANNER, SonarEdition.ENTERPRISE));
+    cacheContext.setCacheEnabled(true);
+    cacheContext.setCanSkipUnchangedFiles(canSkipUnchangedFiles);
+
+    var readCache = mock(ReadCache.class);
+    when(readCache.contains(anyString())).thenAnswer(invocation -> previous.containsKey(invocation.<String>getArgument(0)));
+    when(readCache.read(anyString())).thenAnswer(invocation -> new ByteArrayInputStream(previous.get(invocation.<String>getArgument(0))));
+    cacheContext.setPreviousCache(readCache);
+
+    var writeCache = mock(WriteCache.class);
+    doAnswer(invocation -> next.put(invocation.getArgument(0), invocation.getArgument(1)))
+      .when(writeCache).write(anyString(), any(byte[].class));
+    doAnswer(invocation -> next.put(invocation.getArgument(0), previous.get(invocation.<String>getArgument(0))))
+      .when(writeCache).copyFromPrevious(anyString());
+    cacheContext.setNextCache(writeCache);
+    return cacheContext;
+  }
+
+  private static DefaultInputFile addInputFile(SensorContextTester cacheContext, String relativePath, InputFile.Status status) {
+    DefaultInputFile inputFile = new TestInputFileBuilder("moduleKey", relativePath)
+      .setModuleBaseDir(BASE_DIR.toPath())
+      .setLanguage(relativePath.split("\\.")[1])
+      .setContents(CONTENT)
+      .setStatus(status)
+      .build();
+    cacheContext.fileSystem().add(inputFile);
+    return inputFile;
+  }
+
   private void setEslintReport(String reportFileName) {
     context.settings().setProperty(JavaScriptPlugin.ESLINT_REPORT_PATHS, reportFileName);
   }
@@ -0,0 +1,73 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.external;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.utils.log.LogTesterJUnit5;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.plugins.javascript.TestUtils.createInputFile;
+
+class InputFileResolverTest {
+
+  @RegisterExtension
+  public final LogTesterJUnit5 logTester = new LogTesterJUnit5();
+
+  @TempDir
+  Path baseDir;
+
+  private int lookups;
+
+  @Test
+  void should_look_each_path_up_once() {
+    var context = SensorContextTester.create(baseDir);
+    var inputFile = createInputFile(context, "foo();", "file.js");
+    var resolver = new InputFileResolver(context, "ESLint", this::countingPredicate);
+
+    assertThat(resolver.resolve("file.js")).isEqualTo(inputFile);
+    assertThat(resolver.resolve("file.js")).isEqualTo(inputFile);
+    assertThat(resolver.resolve(inputFile.absolutePath())).isEqualTo(inputFile);
+    assertThat(lookups).isEqualTo(2);
+  }
+
+  @Test
+  void should_remember_missing_files() {
+    var context = SensorContextTester.create(baseDir);
+    var resolver = new InputFileResolver(context, "ESLint", this::countingPredicate);
+
+    assertThat(resolver.resolve("missing.js")).isNull();
+    assertThat(resolver.resolve("missing.js")).isNull();
+    assertThat(lookups).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .containsExactly("No input file found for missing.js. No ESLint issues will be imported on this file.");
+  }
+
+  private FilePredicate countingPredicate(FilePredicates predicates, String filePath) {
+    lookups++;
+    return predicates.hasPath(filePath);
+  }
+}
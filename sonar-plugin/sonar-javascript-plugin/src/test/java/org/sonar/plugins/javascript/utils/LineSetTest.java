@@ -0,0 +1,71 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.javascript.utils;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LineSetTest {
+
+  @Test
+  void should_deduplicate_lines() {
+    var lineSet = LineSet.of(new int[] {3, 1, 3, 200});
+    assertThat(lineSet).hasSize(3);
+    assertThat(lineSet.add(1)).isFalse();
+    assertThat(lineSet.add(Integer.valueOf(2))).isTrue();
+    assertThat(lineSet).containsExactly(1, 2, 3, 200);
+    assertThat(lineSet).isEqualTo(Set.of(1, 2, 3, 200));
+  }
+
+  @Test
+  void should_add_ranges() {
+    var lineSet = new LineSet();
+    lineSet.addRange(2, 4);
+    lineSet.addRange(4, 5);
+    lineSet.addRange(7, 6);
+
+    var lines = new ArrayList<Integer>();
+    lineSet.forEachLine(lines::add);
+    assertThat(lines).containsExactly(2, 3, 4, 5);
+    assertThat(lineSet.size()).isEqualTo(4);
+  }
+
+  @Test
+  void should_check_membership() {
+    var lineSet = LineSet.of(new int[] {1, 10});
+    assertThat(lineSet.contains(10)).isTrue();
+    assertThat(lineSet.contains(-1)).isFalse();
+    assertThat(lineSet.contains((Object) 1)).isTrue();
+    assertThat(lineSet.contains("1")).isFalse();
+    assertThat(new LineSet()).isEmpty();
+  }
+
+  @Test
+  void should_fail_after_last_line() {
+    var iterator = LineSet.of(new int[] {1}).iterator();
+    assertThat(iterator.next()).isEqualTo(1);
+    assertThatThrownBy(iterator::next).isInstanceOf(NoSuchElementException.class);
+  }
+}
@@ -0,0 +1,42 @@
+#!/usr/bin/env node
+
+const http = require("http");
+const port = process.argv[2];
+const host = process.argv[3];
+
+let server;
+
+const requestHandler = (request, response) => {
+  let data = "";
+  request.on("data", (chunk) => (data += chunk));
+  request.on("end", () => {
+    if (request.url === "/status") {
+      response.writeHead(200, { "Content-Type": "text/plain" });
+      response.end("OK!");
+    } else if (request.url === "/init-linter") {
+      console.log(`init-linter ${JSON.parse(data).linterId}`);
+      response.end("OK!");
+    } else if (request.url === "/close") {
+      response.end();
+      server.close();
+    } else if (data.includes("busy.js")) {
+      // blocks the event loop, so that the server does not answer to any request until it is killed
+      const start = Date.now();
+      while (Date.now() - start < 10_000) {}
+      response.end("{ issues: [] }");
+    } else {
+      response.end("{ issues: [] }");
+    }
+  });
+};
+
+server = http.createServer(requestHandler);
+server.keepAliveTimeout = 100; // this is used so server disconnects faster
+
+server.listen(port, host, (err) => {
+  if (err) {
+    return console.log("something bad happened", err);
+  }
+
+  console.log(`server is listening on ${host} ${port}`);
+});
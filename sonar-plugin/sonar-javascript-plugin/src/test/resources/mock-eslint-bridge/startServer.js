@@ -14,14 +14,26 @@ const requestHandler = (request, response) => {
   request.on("end", () => {
     console.log(data);
 
-    if (request.url === "/status" || request.url === "/new-tsconfig") {
+    if (request.url === "/status?details=true") {
+      response.end(
+        JSON.stringify({
+          heapUsed: 100 * 1024 * 1024,
+          heapTotal: 200 * 1024 * 1024,
+          heapLimit: 1024 * 1024 * 1024,
+          rss: 300 * 1024 * 1024,
+          eventLoopLag: 1.5,
+          eventLoopLagMax: 3,
+          programs: 2,
+        })
+      );
+    } else if (request.url === "/status" || request.url === "/new-tsconfig") {
       response.writeHead(200, { "Content-Type": "text/plain" });
       response.end("OK!");
     } else if (request.url === "/tsconfig-files") {
       response.end(
         "{files: ['abs/path/file1', 'abs/path/file2', 'abs/path/file3']}"
       );
-    } else if (request.url === "/init-linter") {
+    } else if (request.url === "/init-linter" || request.url === "/init-css-linter") {
       response.end("OK!");
     } else if (request.url === "/load-rule-bundles") {
       response.end("OK!");
@@ -43,7 +55,13 @@ const requestHandler = (request, response) => {
       // /analyze-js
       // /analyze-ts
       // /analyze-css
-      response.end("{ issues: [] }");
+      if (process.env.SONARJS_RULE_TIMING === "true") {
+        response.end(
+          "{ issues: [], perf: { parseTime: 1, analysisTime: 2, ruleTimes: { 'no-commented-code': 633, 'arguments-order': 398, 'deprecation': 335 } } }"
+        );
+      } else {
+        response.end("{ issues: [] }");
+      }
     }
   });
 };
@@ -58,13 +76,3 @@ server.listen(port, host, (err) => {
 
   console.log(`server is listening on ${host} ${port}`);
 });
-
-process.on("exit", () => {
-  console.log(`
-Rule                                 | Time (ms) | Relative
-:------------------------------------|----------:|--------:
-no-commented-code                    |   633.226 |    16.8%
-arguments-order                      |   398.175 |    10.6%
-deprecation                          |   335.577 |     8.9%
-  `);
-});
@@ -17,6 +17,7 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
+import crypto from 'crypto';
 import fs from 'fs/promises';
 import path from 'path';
 
@@ -52,6 +53,27 @@ export async function readFile(filePath: string) {
   return stripBOM(fileContent);
 }
 
+/**
+ * Asynchronous read of file contents handed over by the plugin
+ *
+ * The plugin writes UTF-8 copies of the files that cannot be read as is,
+ * e.g., files with another encoding, and sends their SHA-256 hash along
+ * with their path. The hash is checked to make sure that the copy was not
+ * changed or truncated in the meantime.
+ *
+ * @param filePath the path of the copy of a file
+ * @param hash the hexadecimal SHA-256 hash of the copy
+ * @returns Promise which resolves with the content of the file
+ */
+export async function readFileWithHash(filePath: string, hash: string) {
+  const buffer = await fs.readFile(filePath);
+  const actualHash = crypto.createHash('sha256').update(buffer).digest('hex');
+  if (actualHash !== hash) {
+    throw new Error(`Content of ${filePath} does not match its hash`);
+  }
+  return stripBOM(buffer.toString('utf8'));
+}
+
 /**
  * Removes any Byte Order Marker (BOM) from a string's head
  *
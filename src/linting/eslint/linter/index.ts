@@ -21,5 +21,6 @@ export * from './config';
 export * from './custom-rules';
 export * from './issues';
 export * from './quickfixes';
+export * from './timing';
 export * from './visitors';
 export * from './wrapper';
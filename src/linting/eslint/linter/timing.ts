@@ -0,0 +1,116 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { Linter, Rule } from 'eslint';
+import { hrtime } from 'process';
+
+/**
+ * The environment variable enabling the timing of rules
+ *
+ * It is set by the plugin when monitoring is on. The timings of
+ * a file are then returned with the performance data of its analysis.
+ */
+const RULE_TIMING_ENV = 'SONARJS_RULE_TIMING';
+
+/**
+ * The execution times of rules, in microseconds, indexed by rule key
+ */
+export type RuleTimes = { [ruleKey: string]: number };
+
+/**
+ * The rule execution times accumulated while linting the current file
+ */
+let ruleTimes: RuleTimes = {};
+
+/**
+ * Checks whether the timing of rules is enabled
+ * @returns true if rules should be timed
+ */
+export function isRuleTimingEnabled() {
+  return process.env[RULE_TIMING_ENV] === 'true';
+}
+
+/**
+ * Replaces the rules of a linter with timed rules
+ *
+ * A timed rule measures the creation of its listeners as well as
+ * each call of these listeners, and accumulates the elapsed time
+ * for the file being linted.
+ *
+ * @param linter the linter whose rules should be timed
+ */
+export function timeRules(linter: Linter) {
+  for (const [ruleKey, rule] of linter.getRules()) {
+    linter.defineRule(ruleKey, timeRule(ruleKey, rule));
+  }
+}
+
+function timeRule(ruleKey: string, rule: Rule.RuleModule): Rule.RuleModule {
+  /* legacy rules are plain functions, while rule modules may rely on `this` in `create` */
+  const create = (context: Rule.RuleContext): Rule.RuleListener =>
+    typeof rule === 'function'
+      ? (rule as Rule.RuleModule['create'])(context)
+      : rule.create.call(rule, context);
+  return {
+    ...rule,
+    create(context: Rule.RuleContext) {
+      const listeners = measure(ruleKey, () => create(context));
+      const timedListeners: Rule.RuleListener = {};
+      for (const [selector, listener] of Object.entries(listeners)) {
+        if (typeof listener === 'function') {
+          timedListeners[selector] = (...args: any[]) =>
+            measure(ruleKey, () => (listener as Function)(...args));
+        }
+      }
+      return timedListeners;
+    },
+  };
+}
+
+function measure<T>(ruleKey: string, f: () => T): T {
+  const start = hrtime.bigint();
+  try {
+    return f();
+  } finally {
+    ruleTimes[ruleKey] = (ruleTimes[ruleKey] ?? 0) + Number(hrtime.bigint() - start) / 1_000;
+  }
+}
+
+/**
+ * Clears the rule execution times accumulated so far
+ */
+export function resetRuleTimes() {
+  ruleTimes = {};
+}
+
+/**
+ * Returns the rule execution times accumulated since the last reset
+ * @returns the rounded execution times if timing is enabled, undefined otherwise
+ */
+export function takeRuleTimes(): RuleTimes | undefined {
+  if (!isRuleTimingEnabled()) {
+    return undefined;
+  }
+  const times: RuleTimes = {};
+  for (const [ruleKey, time] of Object.entries(ruleTimes)) {
+    times[ruleKey] = Math.round(time);
+  }
+  resetRuleTimes();
+  return times;
+}
@@ -23,6 +23,7 @@ import { createLinterConfig, RuleConfig } from './config';
 import { FileType } from 'helpers';
 import { transformMessages, LintingResult } from './issues';
 import { CustomRule } from './custom-rules';
+import { isRuleTimingEnabled, resetRuleTimes, timeRules } from './timing';
 
 /**
  * Wrapper's constructor initializer. All the parameters are optional,
@@ -103,6 +104,9 @@ export class LinterWrapper {
     this.linter = new Linter();
     loadBundles(this.linter, options.ruleBundles ?? defaultRuleBundles);
     loadCustomRules(this.linter, options.customRules);
+    if (isRuleTimingEnabled()) {
+      timeRules(this.linter);
+    }
     this.config = this.createConfig(options);
   }
 
@@ -122,6 +126,7 @@ export class LinterWrapper {
     const fileTypeConfig = this.config[fileType];
     const config = { ...fileTypeConfig, settings: { ...fileTypeConfig.settings, fileType } };
     const options = { filename: filePath, allowInlineConfig: false };
+    resetRuleTimes();
     const messages = this.linter.verify(sourceCode, config, options);
     return transformMessages(messages, { sourceCode, rules: this.linter.getRules() });
   }
@@ -17,7 +17,10 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-import { LinterWrapper } from './linter';
+import stylelint from 'stylelint';
+import { APIError } from 'errors';
+import { debug } from 'helpers';
+import { createStylelintConfig, LinterWrapper, RuleConfig } from './linter';
 
 export * from './linter';
 export * from './rules';
@@ -26,3 +29,40 @@ export * from './rules';
  * The global Stylelint linter wrapper
  */
 export const linter = new LinterWrapper();
+
+type Configs = { [id: string]: stylelint.Config };
+/**
+ * The global Stylelint configurations
+ *
+ * The plugin registers the rules from the active quality profile once
+ * before analyzing stylesheets. The resulting configurations are kept
+ * indexed by their linterId so that analysis requests only need to
+ * reference them instead of carrying the rules for every single file.
+ */
+const configs: Configs = {};
+
+/**
+ * Initializes a global Stylelint configuration
+ * @param rules the rules from the active quality profile
+ * @param linterId key of the configuration
+ */
+export function initializeStylelintConfig(rules: RuleConfig[], linterId = 'default') {
+  debug(`Initializing stylelint configuration "${linterId}" with ${rules.map(rule => rule.key)}`);
+  configs[linterId] = createStylelintConfig(rules);
+}
+
+/**
+ * Returns the Stylelint configuration with the given ID
+ *
+ * @param linterId key of the configuration
+ *
+ * Throws a runtime error if the configuration is not initialized.
+ */
+export function getStylelintConfig(linterId: keyof Configs = 'default') {
+  if (!configs[linterId]) {
+    throw APIError.linterError(
+      `Stylelint configuration ${linterId} does not exist. Did you call /init-css-linter?`,
+    );
+  }
+  return configs[linterId];
+}
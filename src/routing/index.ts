@@ -25,6 +25,7 @@ import onAnalyzeTs from './on-analyze-ts';
 import onAnalyzeYaml from './on-analyze-yaml';
 import onCreateProgram from './on-create-program';
 import onDeleteProgram from './on-delete-program';
+import onInitCssLinter from './on-init-css-linter';
 import onInitLinter from './on-init-linter';
 import onNewTSConfig from './on-new-tsconfig';
 import onStatus from './on-status';
@@ -41,6 +42,7 @@ router.post('/analyze-with-program', onAnalyzeTs);
 router.post('/analyze-yaml', onAnalyzeYaml);
 router.post('/create-program', onCreateProgram);
 router.post('/delete-program', onDeleteProgram);
+router.post('/init-css-linter', onInitCssLinter);
 router.post('/init-linter', onInitLinter);
 router.post('/new-tsconfig', onNewTSConfig);
 router.get('/status', onStatus);
@@ -29,8 +29,8 @@ export default async function (
   next: express.NextFunction,
 ) {
   try {
-    const { tsConfig } = request.body;
-    response.json(await createProgram(tsConfig));
+    const { tsConfig, rootFiles } = request.body;
+    response.json(await createProgram(tsConfig, rootFiles));
   } catch (error) {
     next(error);
   }
@@ -18,13 +18,22 @@
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
 import express from 'express';
+import { getProcessStatus } from 'services/monitoring';
+import { getProgramCount } from 'services/program';
 
 /**
  * Handles status requests
  *
  * This endpoint handler allows the sensor to make sure that the bridge is alive
  * and can continue handle analysis requests or any other kind of request.
+ *
+ * When the `details` query parameter is set, the bridge answers with a snapshot
+ * of its resource usage along with the number of live TypeScript programs.
  */
-export default function (_request: express.Request, response: express.Response) {
-  response.send('OK!');
+export default function (request: express.Request, response: express.Response) {
+  if (request.query.details === 'true') {
+    response.json({ ...getProcessStatus(), programs: getProgramCount() });
+  } else {
+    response.send('OK!');
+  }
 }
@@ -36,10 +36,14 @@ export type Analysis = (input: AnalysisInput) => Promise<AnalysisOutput>;
  *
  * @param filePath the path of the file to analyze
  * @param fileContent the content of the file to analyze
+ * @param fileContentPath the path of a UTF-8 copy of the file content, if any
+ * @param fileContentHash the SHA-256 hash of the copy of the file content
  */
 export interface AnalysisInput {
   filePath: string;
   fileContent: string;
+  fileContentPath?: string;
+  fileContentHash?: string;
   linterId?: string;
 }
 
@@ -23,13 +23,14 @@ import { AnalysisInput, AnalysisOutput } from 'services/analysis';
 /**
  * A CSS analysis input
  *
- * A CSS analysis input only needs an input file and a set
- * of rule configurations to analyze a stylesheet.
+ * A CSS analysis input only needs an input file and either the linterId
+ * of a configuration initialized beforehand, or a set of rule configurations
+ * to analyze a stylesheet.
  *
  * @param rules the rules from the active quality profile
  */
 export interface CssAnalysisInput extends AnalysisInput {
-  rules: RuleConfig[];
+  rules?: RuleConfig[];
 }
 
 /**
@@ -17,22 +17,23 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
-import { createStylelintConfig, linter } from 'linting/stylelint';
+import { createStylelintConfig, getStylelintConfig, linter } from 'linting/stylelint';
 import { CssAnalysisInput, CssAnalysisOutput } from './analysis';
 
 /**
  * Analyzes a CSS analysis input
  *
  * Analyzing a CSS analysis input is rather straighforward. All that is needed
- * is to create a Stylelint configuration based on the rules from the active
- * quality profile and uses this configuration to linter the input file.
+ * is a Stylelint configuration based on the rules from the active quality profile,
+ * either initialized beforehand under the input's linterId or created from the
+ * input's rules, and to use this configuration to lint the input file.
  *
  * @param input the CSS analysis input to analyze
  * @returns a promise of the CSS analysis output
  */
 export async function analyzeCSS(input: CssAnalysisInput): Promise<CssAnalysisOutput> {
-  const { filePath, fileContent: code, rules } = input;
-  const config = createStylelintConfig(rules);
+  const { filePath, fileContent: code, rules, linterId } = input;
+  const config = rules ? createStylelintConfig(rules) : getStylelintConfig(linterId);
   const options = {
     code,
     codeFilename: filePath,
@@ -28,6 +28,7 @@ import {
   getLinter,
   SymbolHighlight,
   LinterWrapper,
+  takeRuleTimes,
 } from 'linting/eslint';
 import { buildSourceCode, Language } from 'parsing/jsts';
 import { measureDuration } from 'services/monitoring';
@@ -56,7 +57,8 @@ export function analyzeJSTS(input: JsTsAnalysisInput, language: Language): JsTsA
   const { result: built, duration: parseTime } = measureDuration(building);
   const analysis = () => analyzeFile(linter, input, built);
   const { result: output, duration: analysisTime } = measureDuration(analysis);
-  return { ...output, perf: { parseTime, analysisTime } };
+  const ruleTimes = takeRuleTimes();
+  return { ...output, perf: { parseTime, analysisTime, ...(ruleTimes && { ruleTimes }) } };
 }
 
 /**
@@ -19,7 +19,7 @@
  */
 import express from 'express';
 import { Analysis } from './analysis';
-import { readFile } from 'helpers';
+import { readFile, readFileWithHash } from 'helpers';
 
 /**
  * Runs an analysis
@@ -40,7 +40,9 @@ export function runner(analysis: Analysis): express.RequestHandler {
   ) => {
     try {
       const input = request.body;
-      if (input.filePath && !input.fileContent) {
+      if (input.fileContentPath && !input.fileContent) {
+        input.fileContent = await readFileWithHash(input.fileContentPath, input.fileContentHash);
+      } else if (input.filePath && !input.fileContent) {
         input.fileContent = await readFile(input.filePath);
       }
       const output = await analysis(input);
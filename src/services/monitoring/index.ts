@@ -19,3 +19,4 @@
  */
 export * from './measure';
 export * from './performance';
+export * from './status';
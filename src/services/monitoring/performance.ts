@@ -24,8 +24,10 @@
  *
  * @param parseTime the parsing time
  * @param analysisTime the analysis time
+ * @param ruleTimes the execution time of each rule, only when rule timing is enabled
  */
 export interface Perf {
   parseTime: number;
   analysisTime: number;
+  ruleTimes?: { [ruleKey: string]: number };
 }
@@ -0,0 +1,78 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import { IntervalHistogram, monitorEventLoopDelay } from 'perf_hooks';
+import { getHeapStatistics } from 'v8';
+
+/**
+ * A snapshot of the resources used by the bridge process
+ *
+ * Memory values are in bytes, event loop delays in milliseconds.
+ *
+ * @param heapUsed the used V8 heap
+ * @param heapTotal the allocated V8 heap
+ * @param heapLimit the maximum size of the V8 heap
+ * @param rss the resident set size of the process
+ * @param eventLoopLag the mean delay of the event loop since the previous snapshot
+ * @param eventLoopLagMax the maximum delay of the event loop since the previous snapshot
+ */
+export interface ProcessStatus {
+  heapUsed: number;
+  heapTotal: number;
+  heapLimit: number;
+  rss: number;
+  eventLoopLag: number;
+  eventLoopLagMax: number;
+}
+
+/**
+ * The event loop delay histogram, enabled on the first snapshot
+ */
+let eventLoopDelay: IntervalHistogram | undefined;
+
+/**
+ * Takes a snapshot of the resources used by the bridge process
+ *
+ * The event loop delay is sampled from the first call on, and it is
+ * reset after each snapshot so that it covers the interval between
+ * two consecutive snapshots.
+ *
+ * @returns the process status
+ */
+export function getProcessStatus(): ProcessStatus {
+  if (!eventLoopDelay) {
+    eventLoopDelay = monitorEventLoopDelay({ resolution: 20 });
+    eventLoopDelay.enable();
+  }
+  const { heapUsed, heapTotal, rss } = process.memoryUsage();
+  const status = {
+    heapUsed,
+    heapTotal,
+    heapLimit: getHeapStatistics().heap_size_limit,
+    rss,
+    eventLoopLag: toMillis(eventLoopDelay.mean),
+    eventLoopLagMax: toMillis(eventLoopDelay.max),
+  };
+  eventLoopDelay.reset();
+  return status;
+}
+
+function toMillis(nanos: number) {
+  return Number.isFinite(nanos) ? Math.round(nanos / 1_000) / 1_000 : 0;
+}
@@ -138,18 +138,26 @@ export function createProgramOptions(
  * files considered by the TSConfig as well as any project references.
  *
  * @param tsConfig the TSConfig input to create a program for
+ * @param rootFiles the root files to consider instead of the ones of the TSConfig, if any.
+ *                  Their dependencies are still resolved by TypeScript.
  * @returns the identifier of the created TypeScript's Program along with the
  *          resolved files, project references and a boolean 'missingTsConfig'
  *          which is true when an extended tsconfig.json path was not found,
  *          which defaulted to default Typescript configuration
  */
-export async function createProgram(tsConfig: string): Promise<{
+export async function createProgram(
+  tsConfig: string,
+  rootFiles?: string[],
+): Promise<{
   programId: string;
   files: string[];
   projectReferences: string[];
   missingTsConfig: boolean;
 }> {
   const programOptions = createProgramOptions(tsConfig);
+  if (rootFiles) {
+    programOptions.rootNames = rootFiles;
+  }
 
   const program = ts.createProgram(programOptions);
   const inputProjectReferences = program.getProjectReferences() || [];
@@ -177,6 +185,14 @@ export async function createProgram(tsConfig: string): Promise<{
   };
 }
 
+/**
+ * Returns the number of TypeScript's Programs currently held in memory
+ * @returns the number of live programs
+ */
+export function getProgramCount(): number {
+  return programs.size;
+}
+
 /**
  * Deletes an existing TypeScript's Program by its identifier
  * @param programId the identifier of the TypeScript's Program to delete
@@ -17,8 +17,10 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
+import crypto from 'crypto';
+import fs from 'fs';
 import path from 'path';
-import { readFile } from 'helpers';
+import { readFile, readFileWithHash } from 'helpers';
 
 describe('readFile', () => {
   it('should read a file', async () => {
@@ -31,3 +33,19 @@ describe('readFile', () => {
     expect(contents).toBe('bom();');
   });
 });
+
+describe('readFileWithHash', () => {
+  const filePath = path.join(__dirname, 'fixtures', 'bom.js');
+  const hash = crypto.createHash('sha256').update(fs.readFileSync(filePath)).digest('hex');
+
+  it('should read a file with a matching hash', async () => {
+    const contents = await readFileWithHash(filePath, hash);
+    expect(contents).toBe('bom();');
+  });
+
+  it('should fail on a hash mismatch', async () => {
+    await expect(readFileWithHash(filePath, '0'.repeat(64))).rejects.toThrow(
+      `Content of ${filePath} does not match its hash`,
+    );
+  });
+});
@@ -0,0 +1,105 @@
+/*
+ * SonarQube JavaScript Plugin
+ * Copyright (C) 2011-2023 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+import path from 'path';
+import { Linter, Rule, SourceCode } from 'eslint';
+import { setContext } from 'helpers';
+import {
+  LinterWrapper,
+  resetRuleTimes,
+  RuleConfig,
+  takeRuleTimes,
+  timeRules,
+} from 'linting/eslint';
+import { parseJavaScriptSourceFile } from '../../../tools';
+
+describe('rule timing', () => {
+  beforeAll(() => {
+    setContext({
+      workDir: '/tmp/workdir',
+      shouldUseTypeScriptParserForJS: true,
+      sonarlint: false,
+      bundles: [],
+    });
+  });
+
+  afterEach(() => {
+    delete process.env.SONARJS_RULE_TIMING;
+    resetRuleTimes();
+  });
+
+  it('should not time rules by default', async () => {
+    const filePath = path.join(__dirname, 'fixtures', 'wrapper', 'eslint.js');
+    const sourceCode = (await parseJavaScriptSourceFile(filePath)) as SourceCode;
+
+    const rules = [{ key: 'no-extra-semi', configurations: [], fileTypeTarget: ['MAIN'] }] as RuleConfig[];
+    new LinterWrapper({ inputRules: rules }).lint(sourceCode, filePath);
+
+    expect(takeRuleTimes()).toBeUndefined();
+  });
+
+  it('should time the rules of a file', async () => {
+    process.env.SONARJS_RULE_TIMING = 'true';
+    const filePath = path.join(__dirname, 'fixtures', 'wrapper', 'eslint.js');
+    const sourceCode = (await parseJavaScriptSourceFile(filePath)) as SourceCode;
+
+    const rules = [
+      { key: 'no-extra-semi', configurations: [], fileTypeTarget: ['MAIN'] },
+      { key: 'no-new-symbol', configurations: [], fileTypeTarget: ['MAIN'] },
+    ] as RuleConfig[];
+    const linter = new LinterWrapper({ inputRules: rules });
+    const { issues } = linter.lint(sourceCode, filePath);
+
+    expect(issues).toEqual([expect.objectContaining({ ruleId: 'no-extra-semi' })]);
+    const ruleTimes = takeRuleTimes();
+    expect(Object.keys(ruleTimes).sort()).toEqual(['no-extra-semi', 'no-new-symbol']);
+    expect(ruleTimes['no-extra-semi']).toBeGreaterThanOrEqual(0);
+    expect(takeRuleTimes()).toEqual({});
+  });
+
+  it('should time rules relying on their module and legacy function rules', () => {
+    process.env.SONARJS_RULE_TIMING = 'true';
+    const moduleRule = {
+      message: 'module rule',
+      create(context: Rule.RuleContext) {
+        const message = this.message;
+        return {
+          Program: (node: Rule.Node) => context.report({ node, message }),
+        };
+      },
+    } as Rule.RuleModule & { message: string };
+    const functionRule = ((context: Rule.RuleContext) => ({
+      Program: (node: Rule.Node) => context.report({ node, message: 'function rule' }),
+    })) as unknown as Rule.RuleModule;
+
+    const linter = new Linter();
+    linter.defineRule('module-rule', moduleRule);
+    linter.defineRule('function-rule', functionRule);
+    timeRules(linter);
+    const messages = linter.verify('foo();', {
+      rules: { 'module-rule': 'error', 'function-rule': 'error' },
+    });
+
+    expect(messages.map(message => message.message).sort()).toEqual([
+      'function rule',
+      'module rule',
+    ]);
+    expect(Object.keys(takeRuleTimes()).sort()).toEqual(['function-rule', 'module-rule']);
+  });
+});
@@ -20,6 +20,7 @@
 import { setContext, toUnixPath } from 'helpers';
 import http from 'http';
 import { initializeLinter } from 'linting/eslint';
+import { initializeStylelintConfig } from 'linting/stylelint';
 import path from 'path';
 import { start } from 'server';
 import { createProgram } from 'services/program';
@@ -66,6 +67,20 @@ describe('router', () => {
     });
   });
 
+  it('should route /analyze-css requests with an initialized configuration', async () => {
+    initializeStylelintConfig([{ key: 'function-calc-no-invalid', configurations: [] }], 'css');
+    const filePath = path.join(__dirname, 'fixtures', 'file.css');
+    const data = { filePath, linterId: 'css' };
+    const response = (await request(server, '/analyze-css', 'POST', data)) as string;
+    expect(JSON.parse(response)).toEqual({
+      issues: [
+        expect.objectContaining({
+          ruleId: 'function-calc-no-invalid',
+        }),
+      ],
+    });
+  });
+
   it('should route /analyze-js requests', async () => {
     initializeLinter([
       { key: 'prefer-regex-literals', configurations: [], fileTypeTarget: ['MAIN'] },
@@ -217,6 +232,12 @@ describe('router', () => {
     expect(response).toEqual('OK!');
   });
 
+  it('should route /init-css-linter requests', async () => {
+    const data = { rules: [], linterId: 'default' };
+    const response = await request(server, '/init-css-linter', 'POST', data);
+    expect(response).toEqual('OK!');
+  });
+
   it('should route /new-tsconfig requests', async () => {
     /**
      * There is no easy way to test that a module was unloaded, because jest is modifying require calls for tests
@@ -232,6 +253,19 @@ describe('router', () => {
     expect(response).toEqual('OK!');
   });
 
+  it('should route /status requests with details', async () => {
+    const response = (await request(server, '/status?details=true', 'GET')) as string;
+    expect(JSON.parse(response)).toEqual({
+      heapUsed: expect.any(Number),
+      heapTotal: expect.any(Number),
+      heapLimit: expect.any(Number),
+      rss: expect.any(Number),
+      eventLoopLag: expect.any(Number),
+      eventLoopLagMax: expect.any(Number),
+      programs: expect.any(Number),
+    });
+  });
+
   it('should route /tsconfig-files requests', async () => {
     const tsconfig = path.join(__dirname, 'fixtures', 'tsconfig.json');
     const data = { tsconfig };
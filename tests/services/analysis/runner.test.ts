@@ -17,7 +17,10 @@
  * along with this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
  */
+import crypto from 'crypto';
 import express from 'express';
+import fs from 'fs';
+import path from 'path';
 import { AnalysisOutput, runner } from 'services/analysis';
 
 describe('runner', () => {
@@ -39,6 +42,28 @@ describe('runner', () => {
     expect(response.json).toHaveBeenCalledWith('DONE');
   });
 
+  it('should read the file content handed over by the plugin', async () => {
+    const fileContentPath = path.join(__dirname, '..', '..', 'helpers', 'fixtures', 'file.js');
+    const fileContentHash = crypto
+      .createHash('sha256')
+      .update(fs.readFileSync(fileContentPath))
+      .digest('hex');
+    const request = {
+      body: { filePath: '/project/windows-1252.js', fileContentPath, fileContentHash },
+    } as express.Request;
+    const response = { json: jest.fn() } as any as express.Response;
+
+    const analysis = input => Promise.resolve(input.fileContent as AnalysisOutput);
+
+    const handler = runner(analysis) as (
+      request: express.Request,
+      response: express.Response,
+    ) => Promise<void>;
+    await handler(request, response);
+
+    expect(response.json).toHaveBeenCalledWith('file();');
+  });
+
   it('should forward the caught runtime error to the next middleware', async () => {
     const mockRequest = () => ({ body: 'whatever' } as express.Request);
     const mockResponse = () =>
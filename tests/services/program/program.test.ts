@@ -46,6 +46,20 @@ describe('program', () => {
     expect(projectReferences).toEqual([path.join(reference, 'tsconfig.json')]);
   });
 
+  it('should create a program with only some root files', async () => {
+    const fixtures = path.join(__dirname, 'fixtures');
+    const reference = path.join(fixtures, 'reference');
+    const tsConfig = path.join(fixtures, 'tsconfig.json');
+
+    const { files, projectReferences } = await createProgram(tsConfig, [
+      path.join(fixtures, 'file.ts'),
+    ]);
+
+    expect(files).toEqual(expect.arrayContaining([toUnixPath(path.join(fixtures, 'file.ts'))]));
+    expect(files).not.toContain(toUnixPath(path.join(reference, 'file.ts')));
+    expect(projectReferences).toEqual([path.join(reference, 'tsconfig.json')]);
+  });
+
   it('should skip missing reference of a program', async () => {
     const fixtures = path.join(__dirname, 'fixtures');
     const tsConfig = path.join(fixtures, `tsconfig_missing_reference.json`);